@@ -0,0 +1,81 @@
+#!/bin/bash
+
+# Load test for route generation: platform threads vs virtual threads.
+# Sends POST /api/routes/generate at increasing concurrency levels and reports, per level,
+# successful generations, error rate and latency percentiles. The highest level whose error
+# rate stays under MAX_ERROR_RATE and whose p95 stays under MAX_P95_SECONDS is reported as
+# the maximum number of concurrent generations.
+#
+# Usage:
+#   1. Start the backend in platform mode:  mvn spring-boot:run -Dspring-boot.run.profiles=simulator
+#      ./load-test-generation.sh platform
+#   2. Restart it on Java 21 in virtual mode: mvn spring-boot:run -Dspring-boot.run.profiles=simulator,virtual
+#      ./load-test-generation.sh virtual
+#   3. Compare the two summaries (saved as load-test-<label>.txt)
+#
+# Environment: BASE_URL (default http://localhost:8080/api), LEVELS (default "8 16 32 64 128 256"),
+#              REQUESTS_PER_LEVEL (default 4 x level), MAX_ERROR_RATE (default 0.05), MAX_P95_SECONDS (default 10)
+# Run the backend with the "simulator" profile (e.g. profiles simulator or simulator,virtual) so the
+# providers are simulated locally; against the real providers the test mostly measures their quotas.
+
+LABEL="${1:-run}"
+BASE_URL="${BASE_URL:-http://localhost:8080/api}"
+LEVELS="${LEVELS:-8 16 32 64 128 256}"
+MAX_ERROR_RATE="${MAX_ERROR_RATE:-0.05}"
+MAX_P95_SECONDS="${MAX_P95_SECONDS:-10}"
+OUTPUT="load-test-${LABEL}.txt"
+
+request_body() {
+    # A few nearby request locations so that requests are spread over several cache tiles
+    local locations=("48.8566 2.3522" "48.8606 2.3376" "48.8530 2.3499" "48.8738 2.2950" "48.8462 2.3371")
+    local location=(${locations[$(( $1 % ${#locations[@]} ))]})
+    cat <<JSON
+{"latitude": ${location[0]}, "longitude": ${location[1]}, "activities": ["CULTURE", "RESTAURANT", "LEISURE"],
+ "maxBudget": 100, "numberOfPlaces": 5, "transportationMode": "WALKING",
+ "coldSensitivity": 3, "heatSensitivity": 3, "humiditySensitivity": 3}
+JSON
+}
+export -f request_body
+export BASE_URL
+
+one_request() {
+    curl -s -o /dev/null -w "%{http_code} %{time_total}\n" --max-time 60 \
+        -X POST -H "Content-Type: application/json" \
+        -d "$(request_body "$1")" \
+        "$BASE_URL/routes/generate"
+}
+export -f one_request
+
+if ! curl -s -o /dev/null "$BASE_URL/routes/test"; then
+    echo "Backend not reachable at $BASE_URL"
+    exit 1
+fi
+
+echo "Load test '$LABEL' against $BASE_URL" | tee "$OUTPUT"
+printf "%-12s %-10s %-10s %-10s %-10s %-10s %-10s\n" "concurrency" "requests" "ok" "errors" "p50(s)" "p95(s)" "req/s" | tee -a "$OUTPUT"
+
+MAX_OK_LEVEL=0
+for LEVEL in $LEVELS; do
+    TOTAL="${REQUESTS_PER_LEVEL:-$(( LEVEL * 4 ))}"
+    START=$(date +%s.%N)
+    RESULTS=$(seq 1 "$TOTAL" | xargs -P "$LEVEL" -I{} bash -c 'one_request {}')
+    ELAPSED=$(echo "$(date +%s.%N) - $START" | bc)
+
+    OK=$(echo "$RESULTS" | awk '$1 == 200' | wc -l)
+    ERRORS=$(( TOTAL - OK ))
+    TIMES=$(echo "$RESULTS" | awk '$1 == 200 { print $2 }' | sort -n)
+    P50=$(echo "$TIMES" | awk '{ t[NR] = $1 } END { if (NR) print t[int((NR - 1) * 0.50) + 1]; else print 0 }')
+    P95=$(echo "$TIMES" | awk '{ t[NR] = $1 } END { if (NR) print t[int((NR - 1) * 0.95) + 1]; else print 0 }')
+    RATE=$(echo "scale=1; $TOTAL / $ELAPSED" | bc)
+
+    printf "%-12s %-10s %-10s %-10s %-10s %-10s %-10s\n" "$LEVEL" "$TOTAL" "$OK" "$ERRORS" "$P50" "$P95" "$RATE" | tee -a "$OUTPUT"
+
+    ERROR_RATE=$(echo "scale=4; $ERRORS / $TOTAL" | bc)
+    if (( $(echo "$ERROR_RATE > $MAX_ERROR_RATE" | bc) )) || (( $(echo "$P95 > $MAX_P95_SECONDS" | bc) )); then
+        echo "Stopping: error rate $ERROR_RATE or p95 ${P95}s above the limits" | tee -a "$OUTPUT"
+        break
+    fi
+    MAX_OK_LEVEL=$LEVEL
+done
+
+echo "Max concurrent generations within limits ($LABEL): $MAX_OK_LEVEL" | tee -a "$OUTPUT"
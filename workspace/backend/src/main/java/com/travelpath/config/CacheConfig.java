@@ -1,6 +1,7 @@
 package com.travelpath.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
@@ -14,12 +15,25 @@ import java.util.concurrent.TimeUnit;
 public class CacheConfig {
     
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("places");
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-            .expireAfterWrite(24, TimeUnit.HOURS)  // Cache for 24 hours
-            .maximumSize(1000)  // Max 1000 cached entries
-            .recordStats());
+    public CacheManager cacheManager(
+            @Value("${weather.cache.ttl-minutes:30}") long weatherTtlMinutes,
+            @Value("${weather.cache.max-size:2000}") long weatherMaxSize,
+            @Value("${weather.forecast.cache.ttl-minutes:180}") long forecastTtlMinutes
+    ) {
+        // Places have their own stale-while-revalidate cache in PlacesService
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Current weather per tile, short-lived
+        cacheManager.registerCustomCache("weather", Caffeine.newBuilder()
+            .expireAfterWrite(weatherTtlMinutes, TimeUnit.MINUTES)
+            .maximumSize(weatherMaxSize)
+            .recordStats()
+            .build());
+        // Forecasts per tile: OpenWeather updates them every few hours, so they live longer
+        cacheManager.registerCustomCache("weather-forecast", Caffeine.newBuilder()
+            .expireAfterWrite(forecastTtlMinutes, TimeUnit.MINUTES)
+            .maximumSize(weatherMaxSize)
+            .recordStats()
+            .build());
         return cacheManager;
     }
 }
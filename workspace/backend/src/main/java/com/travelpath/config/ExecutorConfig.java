@@ -0,0 +1,58 @@
+package com.travelpath.config;
+
+import com.travelpath.external.RequestPriority;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Executor used to call external providers in parallel (hedged place searches, late cache merges).
+     * Provider tasks may submit nested tasks (batched category searches), so tasks are handed off
+     * directly to a thread and run in the caller when the pool is full instead of queueing behind their parent.
+     * Tasks keep the RequestPriority of the submitting thread, so background loads stay background.
+     */
+    @Bean(name = "providerExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor providerExecutor(
+            @Value("${providers.executor.core-size:8}") int coreSize,
+            @Value("${providers.executor.max-size:64}") int maxSize,
+            @Value("${providers.executor.queue-capacity:0}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("provider-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(RequestPriority::propagate);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Virtual-thread mode (spring.threads.virtual.enabled=true on Java 21, see the "virtual" profile):
+     * one virtual thread per provider task. A blocked provider call then no longer holds a platform
+     * thread, so the pool size stops limiting concurrent generations; provider load stays bounded by
+     * the quotas and circuit breakers.
+     */
+    @Bean(name = "providerExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualProviderExecutor(
+            @Value("${providers.executor.virtual-concurrency-limit:-1}") int concurrencyLimit
+    ) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("provider-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        executor.setTaskDecorator(RequestPriority::propagate);
+        return executor;
+    }
+}
@@ -0,0 +1,37 @@
+package com.travelpath.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Configuration
+public class HttpClientConfig {
+
+    /**
+     * Connection pool shared by every external provider client (see ProviderHttpClients).
+     * Reactor Netty keeps one pool per remote host, so max-connections applies per provider host.
+     * Idle connections are closed before the usual server keep-alive timeouts to avoid reusing
+     * a connection the server already dropped.
+     */
+    @Bean(name = "providerConnectionProvider", destroyMethod = "dispose")
+    public ConnectionProvider providerConnectionProvider(
+            @Value("${providers.http.pool.max-connections:50}") int maxConnections,
+            @Value("${providers.http.pool.pending-acquire-max-count:500}") int pendingAcquireMaxCount,
+            @Value("${providers.http.pool.pending-acquire-timeout-ms:5000}") long pendingAcquireTimeoutMs,
+            @Value("${providers.http.pool.max-idle-ms:20000}") long maxIdleMs,
+            @Value("${providers.http.pool.max-life-ms:300000}") long maxLifeMs
+    ) {
+        return ConnectionProvider.builder("providers")
+            .maxConnections(maxConnections)
+            .pendingAcquireMaxCount(pendingAcquireMaxCount)
+            .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+            .maxIdleTime(Duration.ofMillis(maxIdleMs))
+            .maxLifeTime(Duration.ofMillis(maxLifeMs))
+            .evictInBackground(Duration.ofSeconds(30))
+            .metrics(true)
+            .build();
+    }
+}
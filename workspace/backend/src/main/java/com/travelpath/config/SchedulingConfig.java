@@ -0,0 +1,12 @@
+package com.travelpath.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (cache prefetch)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,47 @@
+package com.travelpath.config;
+
+import com.travelpath.simulator.ProviderSimulator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the provider simulator inside the application ("simulator" profile).
+ * The profile also points every provider client at it (providers.http.&lt;name&gt;.base-url).
+ * Per provider behaviour: simulator.&lt;name&gt;.latency-median-ms, latency-p95-ms, error-rate,
+ * error-status and rate-limit-per-minute.
+ */
+@Configuration
+@Profile("simulator")
+public class SimulatorConfig {
+
+    private static final List<String> PROVIDERS = List.of("overpass", "google", "yelp", "openweather", "openrouteservice");
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ProviderSimulator providerSimulator(
+            Environment environment,
+            @Value("${simulator.host:localhost}") String host,
+            @Value("${simulator.port:8089}") int port,
+            @Value("${simulator.recordings-dir:}") String recordingsDir
+    ) {
+        Map<String, ProviderSimulator.Behaviour> behaviours = new HashMap<>();
+        for (String provider : PROVIDERS) {
+            String prefix = "simulator." + provider + ".";
+            behaviours.put(provider, new ProviderSimulator.Behaviour(
+                environment.getProperty(prefix + "latency-median-ms", Long.class, 100L),
+                environment.getProperty(prefix + "latency-p95-ms", Long.class, 300L),
+                environment.getProperty(prefix + "error-rate", Double.class, 0.0),
+                environment.getProperty(prefix + "error-status", Integer.class, 503),
+                environment.getProperty(prefix + "rate-limit-per-minute", Long.class, 0L)
+            ));
+        }
+        return new ProviderSimulator(host, port, behaviours, recordingsDir.isEmpty() ? null : Path.of(recordingsDir));
+    }
+}
@@ -1,10 +1,15 @@
 package com.travelpath.controller;
 
-import com.travelpath.external.OpenRouteServiceClient;
+import com.travelpath.dto.DirectionsResult;
+import com.travelpath.dto.RouteGeometry;
+import com.travelpath.geo.GeometryDetail;
+import com.travelpath.geo.PolylineCodec;
+import com.travelpath.service.DirectionsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -14,32 +19,90 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class DirectionsController {
     
+    private static final int MAX_ITINERARY_POINTS = 100;
+    
     @Autowired
-    private OpenRouteServiceClient openRouteServiceClient;
+    private DirectionsService directionsService;
     
+    /**
+     * Distance (meters), duration (seconds) and polyline of the route between two points.
+     * polyline is a list of [longitude, latitude] pairs, or with format=encoded the
+     * encoded polyline string (precision 5), several times smaller.
+     * detail (low, medium, high, full) or the map zoom picks a simplified geometry for overviews
+     */
     @GetMapping
     public ResponseEntity<Map<String, Object>> getDirections(
             @RequestParam double fromLat,
             @RequestParam double fromLon,
             @RequestParam double toLat,
             @RequestParam double toLon,
-            @RequestParam(defaultValue = "foot-walking") String profile
+            @RequestParam(defaultValue = "foot-walking") String profile,
+            @RequestParam(defaultValue = "coordinates") String format,
+            @RequestParam(required = false) String detail,
+            @RequestParam(required = false) Integer zoom
     ) {
-        OpenRouteServiceClient.DirectionsResponse response = openRouteServiceClient.getDirections(
-            fromLat, fromLon, toLat, toLon, profile
-        );
+        GeometryDetail level;
+        try {
+            level = GeometryDetail.fromRequest(detail, zoom, GeometryDetail.FULL);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        DirectionsResult directions = directionsService.getDirections(fromLat, fromLon, toLat, toLon, profile);
         
-        if (response == null || response.routes == null || response.routes.isEmpty()) {
+        if (directions == null) {
             return ResponseEntity.badRequest().build();
         }
         
-        OpenRouteServiceClient.Route route = response.routes.get(0);
         Map<String, Object> result = new HashMap<>();
-        result.put("distance", route.summary.distance);
-        result.put("duration", route.summary.duration);
-        result.put("polyline", route.geometry.coordinates);
+        result.put("distance", directions.getDistanceMeters());
+        result.put("duration", directions.getDurationSeconds());
+        result.put("detail", level.name().toLowerCase());
+        String polyline = directions.getPolyline(level);
+        if ("encoded".equalsIgnoreCase(format)) {
+            result.put("polyline", polyline);
+            result.put("encoding", "polyline5");
+        } else {
+            result.put("polyline", PolylineCodec.decodeLonLat(polyline));
+        }
         
         return ResponseEntity.ok(result);
     }
+    
+    /**
+     * Geometry of a whole itinerary through points (lat,lon;lat,lon;...), e.g. the steps of a
+     * generated route, at one level: detail (low, medium, high, full) or the map zoom, full by default.
+     * Itineraries are cached by their waypoints, so a finer level of a route costs no new call
+     */
+    @GetMapping("/itinerary")
+    public ResponseEntity<RouteGeometry> getItinerary(
+            @RequestParam String points,
+            @RequestParam(defaultValue = "foot-walking") String profile,
+            @RequestParam(required = false) String detail,
+            @RequestParam(required = false) Integer zoom
+    ) {
+        GeometryDetail level;
+        List<double[]> waypoints = new ArrayList<>();
+        try {
+            level = GeometryDetail.fromRequest(detail, zoom, GeometryDetail.FULL);
+            for (String point : points.split(";")) {
+                String[] latLon = point.split(",");
+                if (latLon.length != 2) {
+                    return ResponseEntity.badRequest().build();
+                }
+                waypoints.add(new double[]{Double.parseDouble(latLon[0].trim()), Double.parseDouble(latLon[1].trim())});
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (waypoints.size() > MAX_ITINERARY_POINTS) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        RouteGeometry geometry = directionsService.getItinerary(waypoints, profile);
+        if (geometry == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(geometry.atDetail(level));
+    }
 }
-
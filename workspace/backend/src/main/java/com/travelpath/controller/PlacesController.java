@@ -1,7 +1,12 @@
 package com.travelpath.controller;
 
+import com.travelpath.dto.MapMarker;
+import com.travelpath.dto.PlacePage;
 import com.travelpath.dto.PlaceResponse;
+import com.travelpath.dto.PlaceSuggestion;
 import com.travelpath.model.PlaceCategory;
+import com.travelpath.service.PlaceAutocompleteService;
+import com.travelpath.service.PlaceViewportService;
 import com.travelpath.service.PlacesService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -11,21 +16,84 @@ import java.util.List;
 
 @RestController
 @RequestMapping("/places")  // Note: context-path=/api already prefixes this, so full path is /api/places
-@CrossOrigin(origins = "*") // Configure properly for production
+@CrossOrigin(origins = "*", exposedHeaders = "X-Next-Cursor") // Configure properly for production
 public class PlacesController {
     
     @Autowired
     private PlacesService placesService;
     
+    @Autowired
+    private PlaceViewportService placeViewportService;
+    
+    @Autowired
+    private PlaceAutocompleteService placeAutocompleteService;
+    
+    /**
+     * Without fields/cursor/limit: every place as a full PlaceResponse (unchanged behaviour).
+     * With fields: only these fields per place (e.g. fields=id,name,latitude,longitude,distance).
+     * With limit or cursor: pages ordered by distance, the next page cursor is in the X-Next-Cursor header.
+     */
     @GetMapping("/search")
-    public ResponseEntity<List<PlaceResponse>> searchPlaces(
+    public ResponseEntity<List<?>> searchPlaces(
             @RequestParam double lat,
             @RequestParam double lng,
             @RequestParam(defaultValue = "5000") int radius,
-            @RequestParam PlaceCategory category
+            @RequestParam PlaceCategory category,
+            @RequestParam(required = false) List<String> fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        if (fields == null && cursor == null && limit == null) {
+            List<PlaceResponse> places = placesService.searchNearby(lat, lng, radius, category);
+            return ResponseEntity.ok(places);
+        }
+        
+        PlacePage page;
+        try {
+            page = placesService.searchPage(lat, lng, radius, category, fields, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+    
+    /**
+     * Clustered markers for a map viewport: a single place per marker when zoomed in,
+     * place counts per screen cell when zoomed out
+     */
+    @GetMapping("/viewport")
+    public ResponseEntity<List<MapMarker>> getViewportMarkers(
+            @RequestParam double minLat,
+            @RequestParam double minLng,
+            @RequestParam double maxLat,
+            @RequestParam double maxLng,
+            @RequestParam int zoom,
+            @RequestParam(required = false) PlaceCategory category
+    ) {
+        try {
+            return ResponseEntity.ok(placeViewportService.getMarkers(minLat, minLng, maxLat, maxLng, zoom, category));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Place name autocomplete, optionally biased towards a position
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<PlaceSuggestion>> autocomplete(
+            @RequestParam String q,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng,
+            @RequestParam(required = false) PlaceCategory category,
+            @RequestParam(defaultValue = "10") int limit
     ) {
-        List<PlaceResponse> places = placesService.searchNearby(lat, lng, radius, category);
-        return ResponseEntity.ok(places);
+        return ResponseEntity.ok(placeAutocompleteService.suggest(q, lat, lng, category, limit));
     }
     
     @GetMapping("/{id}")
@@ -1,7 +1,10 @@
 package com.travelpath.controller;
 
+import com.travelpath.dto.RouteGeometry;
 import com.travelpath.dto.RouteRequest;
 import com.travelpath.dto.RouteResponse;
+import com.travelpath.dto.RouteSummary;
+import com.travelpath.geo.GeometryDetail;
 import com.travelpath.service.RouteGeneratorService;
 import com.travelpath.service.RouteService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,8 +36,24 @@ public class RoutesController {
         ));
     }
     
+    /**
+     * Generated routes, each with its geometry at one level: detail (low, medium, high, full)
+     * or the map zoom, low by default for the overview; finer levels come from /{id}/geometry
+     * once saved, or /directions/itinerary
+     */
     @PostMapping("/generate")
-    public ResponseEntity<List<RouteResponse>> generateRoutes(@RequestBody RouteRequest request) {
+    public ResponseEntity<List<RouteResponse>> generateRoutes(
+            @RequestBody RouteRequest request,
+            @RequestParam(required = false) String detail,
+            @RequestParam(required = false) Integer zoom
+    ) {
+        GeometryDetail level;
+        try {
+            level = GeometryDetail.fromRequest(detail, zoom, GeometryDetail.LOW);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        
         System.out.println("=== ROUTE GENERATION REQUEST RECEIVED ===");
         System.out.println("Location: " + request.getLatitude() + ", " + request.getLongitude());
         System.out.println("Activities: " + request.getActivities());
@@ -55,7 +74,7 @@ public class RoutesController {
         System.out.println("Starting route generation...");
         
         try {
-            List<RouteResponse> routes = routeGeneratorService.generateRoutes(request);
+            List<RouteResponse> routes = routeGeneratorService.generateRoutes(request, level);
             System.out.println("Route generation completed. Generated " + routes.size() + " routes.");
             return ResponseEntity.ok(routes);
         } catch (Exception e) {
@@ -101,12 +120,45 @@ public class RoutesController {
         return ResponseEntity.ok(routes);
     }
     
+    /**
+     * Saved routes without their steps (step count, first place, bounding box), for the lists
+     */
+    @GetMapping("/saved/summary")
+    public ResponseEntity<List<RouteSummary>> getSavedRouteSummaries(
+            @RequestParam(required = false) String userId
+    ) {
+        return ResponseEntity.ok(routeService.getSavedRouteSummaries(userId != null ? userId : "anonymous"));
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<RouteResponse> getRouteById(@PathVariable String id) {
         RouteResponse route = routeService.getRouteById(id);
         return ResponseEntity.ok(route);
     }
     
+    /**
+     * Geometry of a saved route at one level: detail (low, medium, high, full) or the map zoom,
+     * full by default
+     */
+    @GetMapping("/{id}/geometry")
+    public ResponseEntity<RouteGeometry> getRouteGeometry(
+            @PathVariable String id,
+            @RequestParam(required = false) String detail,
+            @RequestParam(required = false) Integer zoom
+    ) {
+        GeometryDetail level;
+        try {
+            level = GeometryDetail.fromRequest(detail, zoom, GeometryDetail.FULL);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        RouteGeometry geometry = routeService.getRouteGeometry(id, level);
+        if (geometry == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(geometry);
+    }
+    
     @PostMapping("/{id}/favorite")
     public ResponseEntity<Map<String, Boolean>> toggleFavorite(
             @PathVariable String id,
@@ -1,5 +1,6 @@
 package com.travelpath.controller;
 
+import com.travelpath.dto.WeatherPoint;
 import com.travelpath.service.WeatherService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +23,28 @@ public class WeatherController {
         return ResponseEntity.ok(weather);
     }
     
+    /**
+     * Current weather for many points at once (saved routes, route details), in input order;
+     * points in the same weather tile share one lookup
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<java.util.List<WeatherService.WeatherData>> getCurrentWeatherBatch(
+            @RequestBody java.util.List<WeatherPoint> points
+    ) {
+        java.util.List<double[]> coordinates = new java.util.ArrayList<>();
+        for (WeatherPoint point : points) {
+            if (point == null || point.getLat() == null || point.getLng() == null) {
+                return ResponseEntity.badRequest().build();
+            }
+            coordinates.add(new double[]{point.getLat(), point.getLng()});
+        }
+        try {
+            return ResponseEntity.ok(weatherService.getCurrentWeather(coordinates));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/forecast")
     public ResponseEntity<java.util.List<WeatherService.WeatherData>> getForecast(
             @RequestParam double lat,
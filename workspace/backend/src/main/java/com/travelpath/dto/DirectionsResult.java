@@ -0,0 +1,43 @@
+package com.travelpath.dto;
+
+import com.travelpath.geo.GeometryDetail;
+
+import java.util.Map;
+
+/**
+ * Directions between two points, with the geometry as encoded polylines (precision 5),
+ * one per detail level
+ */
+public class DirectionsResult {
+    private double distanceMeters;
+    private double durationSeconds;
+    private Map<GeometryDetail, String> polylines;
+    
+    public DirectionsResult() {}
+    
+    public DirectionsResult(double distanceMeters, double durationSeconds, Map<GeometryDetail, String> polylines) {
+        this.distanceMeters = distanceMeters;
+        this.durationSeconds = durationSeconds;
+        this.polylines = polylines;
+    }
+    
+    public double getDistanceMeters() { return distanceMeters; }
+    public void setDistanceMeters(double distanceMeters) { this.distanceMeters = distanceMeters; }
+    
+    public double getDurationSeconds() { return durationSeconds; }
+    public void setDurationSeconds(double durationSeconds) { this.durationSeconds = durationSeconds; }
+    
+    public Map<GeometryDetail, String> getPolylines() { return polylines; }
+    public void setPolylines(Map<GeometryDetail, String> polylines) { this.polylines = polylines; }
+    
+    /**
+     * Full-resolution polyline
+     */
+    public String getPolyline() {
+        return polylines.get(GeometryDetail.FULL);
+    }
+    
+    public String getPolyline(GeometryDetail detail) {
+        return polylines.get(detail);
+    }
+}
@@ -0,0 +1,47 @@
+package com.travelpath.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.travelpath.model.PlaceCategory;
+
+/**
+ * Map marker of the viewport endpoint: a single place, or a cluster of several places
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MapMarker {
+    private String placeId;   // single place only
+    private String name;      // single place only
+    private PlaceCategory category; // single place, or the most common category of a cluster
+    private Double latitude;
+    private Double longitude;
+    private Integer count;
+    
+    public MapMarker() {}
+    
+    public MapMarker(String placeId, String name, PlaceCategory category, Double latitude, Double longitude, Integer count) {
+        this.placeId = placeId;
+        this.name = name;
+        this.category = category;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.count = count;
+    }
+    
+    public String getPlaceId() { return placeId; }
+    public void setPlaceId(String placeId) { this.placeId = placeId; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public PlaceCategory getCategory() { return category; }
+    public void setCategory(PlaceCategory category) { this.category = category; }
+    
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    
+    /** Number of places (1 for a single place) */
+    public Integer getCount() { return count; }
+    public void setCount(Integer count) { this.count = count; }
+}
@@ -0,0 +1,26 @@
+package com.travelpath.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a place search: projected places (only the requested fields) and the cursor of the next page
+ */
+public class PlacePage {
+    private List<Map<String, Object>> items;
+    private String nextCursor;
+    
+    public PlacePage() {}
+    
+    public PlacePage(List<Map<String, Object>> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<Map<String, Object>> getItems() { return items; }
+    public void setItems(List<Map<String, Object>> items) { this.items = items; }
+    
+    /** Null on the last page */
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,44 @@
+package com.travelpath.dto;
+
+import com.travelpath.model.PlaceCategory;
+
+/**
+ * Autocomplete result: just enough to show a place in a suggestion list or on the map
+ */
+public class PlaceSuggestion {
+    private String id;
+    private String name;
+    private PlaceCategory category;
+    private Double latitude;
+    private Double longitude;
+    private String address;
+    
+    public PlaceSuggestion() {}
+    
+    public PlaceSuggestion(String id, String name, PlaceCategory category, Double latitude, Double longitude, String address) {
+        this.id = id;
+        this.name = name;
+        this.category = category;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.address = address;
+    }
+    
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public PlaceCategory getCategory() { return category; }
+    public void setCategory(PlaceCategory category) { this.category = category; }
+    
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+}
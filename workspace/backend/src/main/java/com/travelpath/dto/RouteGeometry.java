@@ -0,0 +1,63 @@
+package com.travelpath.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.travelpath.geo.GeometryDetail;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Geometry of a whole route through its steps: encoded polylines (precision 5) per detail level,
+ * and the distance and duration of each leg.
+ * Only the polyline of the selected detail level is serialized (see atDetail); the instances
+ * kept in the directions cache have every level and no selection.
+ */
+public class RouteGeometry {
+    private double distanceMeters;
+    private double durationSeconds;
+    private Map<GeometryDetail, String> polylines;
+    private List<RouteLeg> legs;
+    private GeometryDetail detail;
+    
+    public RouteGeometry() {}
+    
+    public RouteGeometry(double distanceMeters, double durationSeconds, Map<GeometryDetail, String> polylines, List<RouteLeg> legs) {
+        this.distanceMeters = distanceMeters;
+        this.durationSeconds = durationSeconds;
+        this.polylines = polylines;
+        this.legs = legs;
+    }
+    
+    public double getDistanceMeters() { return distanceMeters; }
+    public void setDistanceMeters(double distanceMeters) { this.distanceMeters = distanceMeters; }
+    
+    public double getDurationSeconds() { return durationSeconds; }
+    public void setDurationSeconds(double durationSeconds) { this.durationSeconds = durationSeconds; }
+    
+    @JsonIgnore
+    public Map<GeometryDetail, String> getPolylines() { return polylines; }
+    @JsonIgnore
+    public void setPolylines(Map<GeometryDetail, String> polylines) { this.polylines = polylines; }
+    
+    public GeometryDetail getDetail() { return detail; }
+    public void setDetail(GeometryDetail detail) { this.detail = detail; }
+    
+    /**
+     * Polyline of the selected detail level, null if none is selected
+     */
+    public String getPolyline() {
+        return polylines != null && detail != null ? polylines.get(detail) : null;
+    }
+    
+    public List<RouteLeg> getLegs() { return legs; }
+    public void setLegs(List<RouteLeg> legs) { this.legs = legs; }
+    
+    /**
+     * Copy with one detail level selected for the response, sharing the polylines and legs
+     */
+    public RouteGeometry atDetail(GeometryDetail detail) {
+        RouteGeometry copy = new RouteGeometry(distanceMeters, durationSeconds, polylines, legs);
+        copy.setDetail(detail);
+        return copy;
+    }
+}
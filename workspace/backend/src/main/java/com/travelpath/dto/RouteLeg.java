@@ -0,0 +1,22 @@
+package com.travelpath.dto;
+
+/**
+ * One leg of a route geometry, between two consecutive steps
+ */
+public class RouteLeg {
+    private double distanceMeters;
+    private double durationSeconds;
+    
+    public RouteLeg() {}
+    
+    public RouteLeg(double distanceMeters, double durationSeconds) {
+        this.distanceMeters = distanceMeters;
+        this.durationSeconds = durationSeconds;
+    }
+    
+    public double getDistanceMeters() { return distanceMeters; }
+    public void setDistanceMeters(double distanceMeters) { this.distanceMeters = distanceMeters; }
+    
+    public double getDurationSeconds() { return durationSeconds; }
+    public void setDurationSeconds(double durationSeconds) { this.durationSeconds = durationSeconds; }
+}
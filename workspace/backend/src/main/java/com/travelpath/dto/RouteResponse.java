@@ -15,6 +15,7 @@ public class RouteResponse {
     private String city;
     private Boolean isFavorite;
     private List<StepResponse> steps;
+    private RouteGeometry geometry; // Freshly generated routes, one detail level; saved routes: /routes/{id}/geometry
     
     public RouteResponse() {}
     
@@ -58,5 +59,7 @@ public class RouteResponse {
     
     public List<StepResponse> getSteps() { return steps; }
     public void setSteps(List<StepResponse> steps) { this.steps = steps; }
+    
+    public RouteGeometry getGeometry() { return geometry; }
+    public void setGeometry(RouteGeometry geometry) { this.geometry = geometry; }
 }
-
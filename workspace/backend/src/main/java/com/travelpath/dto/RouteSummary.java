@@ -0,0 +1,94 @@
+package com.travelpath.dto;
+
+import com.travelpath.model.RouteType;
+import com.travelpath.model.TransportationMode;
+
+/**
+ * Saved route without its steps, for the route lists; read from the summary columns of the
+ * routes table so the steps are neither loaded nor decoded (the detail comes from /routes/{id})
+ */
+public class RouteSummary {
+    private String id;
+    private String name;
+    private RouteType routeType;
+    private Double totalBudget;
+    private Integer totalDuration;
+    private TransportationMode transportationMode;
+    private String city;
+    private Boolean isFavorite;
+    private Integer stepCount;
+    private String firstPlaceId;
+    private String firstPlaceName;
+    private Double minLatitude;
+    private Double minLongitude;
+    private Double maxLatitude;
+    private Double maxLongitude;
+    
+    public RouteSummary() {}
+    
+    public RouteSummary(String id, String name, RouteType routeType, Double totalBudget, Integer totalDuration,
+                        TransportationMode transportationMode, String city, Boolean isFavorite, Integer stepCount,
+                        String firstPlaceId, String firstPlaceName, Double minLatitude, Double minLongitude,
+                        Double maxLatitude, Double maxLongitude) {
+        this.id = id;
+        this.name = name;
+        this.routeType = routeType;
+        this.totalBudget = totalBudget;
+        this.totalDuration = totalDuration;
+        this.transportationMode = transportationMode != null ? transportationMode : TransportationMode.MIXED;
+        this.city = city;
+        this.isFavorite = isFavorite != null ? isFavorite : false;
+        this.stepCount = stepCount;
+        this.firstPlaceId = firstPlaceId;
+        this.firstPlaceName = firstPlaceName;
+        this.minLatitude = minLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLatitude = maxLatitude;
+        this.maxLongitude = maxLongitude;
+    }
+    
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public RouteType getRouteType() { return routeType; }
+    public void setRouteType(RouteType routeType) { this.routeType = routeType; }
+    
+    public Double getTotalBudget() { return totalBudget; }
+    public void setTotalBudget(Double totalBudget) { this.totalBudget = totalBudget; }
+    
+    public Integer getTotalDuration() { return totalDuration; }
+    public void setTotalDuration(Integer totalDuration) { this.totalDuration = totalDuration; }
+    
+    public TransportationMode getTransportationMode() { return transportationMode; }
+    public void setTransportationMode(TransportationMode transportationMode) { this.transportationMode = transportationMode; }
+    
+    public String getCity() { return city; }
+    public void setCity(String city) { this.city = city; }
+    
+    public Boolean getIsFavorite() { return isFavorite; }
+    public void setIsFavorite(Boolean isFavorite) { this.isFavorite = isFavorite; }
+    
+    public Integer getStepCount() { return stepCount; }
+    public void setStepCount(Integer stepCount) { this.stepCount = stepCount; }
+    
+    public String getFirstPlaceId() { return firstPlaceId; }
+    public void setFirstPlaceId(String firstPlaceId) { this.firstPlaceId = firstPlaceId; }
+    
+    public String getFirstPlaceName() { return firstPlaceName; }
+    public void setFirstPlaceName(String firstPlaceName) { this.firstPlaceName = firstPlaceName; }
+    
+    public Double getMinLatitude() { return minLatitude; }
+    public void setMinLatitude(Double minLatitude) { this.minLatitude = minLatitude; }
+    
+    public Double getMinLongitude() { return minLongitude; }
+    public void setMinLongitude(Double minLongitude) { this.minLongitude = minLongitude; }
+    
+    public Double getMaxLatitude() { return maxLatitude; }
+    public void setMaxLatitude(Double maxLatitude) { this.maxLatitude = maxLatitude; }
+    
+    public Double getMaxLongitude() { return maxLongitude; }
+    public void setMaxLongitude(Double maxLongitude) { this.maxLongitude = maxLongitude; }
+}
@@ -0,0 +1,22 @@
+package com.travelpath.dto;
+
+/**
+ * One point of a batch weather request
+ */
+public class WeatherPoint {
+    private Double lat;
+    private Double lng;
+    
+    public WeatherPoint() {}
+    
+    public WeatherPoint(Double lat, Double lng) {
+        this.lat = lat;
+        this.lng = lng;
+    }
+    
+    public Double getLat() { return lat; }
+    public void setLat(Double lat) { this.lat = lat; }
+    
+    public Double getLng() { return lng; }
+    public void setLng(Double lng) { this.lng = lng; }
+}
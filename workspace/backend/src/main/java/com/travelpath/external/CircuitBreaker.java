@@ -0,0 +1,133 @@
+package com.travelpath.external;
+
+/**
+ * Count-based circuit breaker for one provider endpoint.
+ * CLOSED: calls go through and the outcome of the last window-size calls is kept; once at least
+ * min-calls were recorded and the failure rate reaches the threshold the breaker OPENs.
+ * OPEN: calls are refused until open-duration has elapsed, then the breaker turns HALF_OPEN.
+ * HALF_OPEN: up to half-open-probes calls are let through; all succeeding closes the breaker,
+ * any failure opens it again.
+ */
+class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean[] outcomes;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long openDurationMillis;
+    private final int halfOpenProbes;
+
+    private State state = State.CLOSED;
+    private int next = 0;
+    private int calls = 0;
+    private int failures = 0;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    CircuitBreaker(int windowSize, int minCalls, double failureRateThreshold, long openDurationMillis, int halfOpenProbes) {
+        this.outcomes = new boolean[windowSize];
+        this.minCalls = Math.min(minCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationMillis = openDurationMillis;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    }
+
+    /**
+     * Ask to make a call; a granted call must be reported with onSuccess, onFailure or onIgnored
+     */
+    synchronized boolean tryAcquire() {
+        switch (currentState()) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (probesStarted < halfOpenProbes) {
+                    probesStarted++;
+                    return true;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * True if a call would currently be let through
+     */
+    synchronized boolean isCallPermitted() {
+        State current = currentState();
+        return current == State.CLOSED || (current == State.HALF_OPEN && probesStarted < halfOpenProbes);
+    }
+
+    synchronized State getState() {
+        return currentState();
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            probesSucceeded++;
+            if (probesSucceeded >= halfOpenProbes) {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (calls >= minCalls && (double) failures / calls >= failureRateThreshold) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * The call ended without telling anything about the provider (cancelled, refused locally)
+     */
+    synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && probesStarted > probesSucceeded) {
+            probesStarted--;
+        }
+    }
+
+    private State currentState() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openDurationMillis) {
+            state = State.HALF_OPEN;
+            probesStarted = 0;
+            probesSucceeded = 0;
+        }
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (calls == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        calls = 0;
+        failures = 0;
+    }
+}
@@ -3,9 +3,9 @@ package com.travelpath.external;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,10 +19,23 @@ public class GooglePlacesService {
     @Value("${google.places.enabled:true}")
     private boolean enabled;
     
-    private static final String GOOGLE_PLACES_BASE_URL = "https://places.googleapis.com/v1/places:searchNearby";
-    private final RestTemplate restTemplate = new RestTemplate();
+    private static final String GOOGLE_PLACES_BASE_URL = "https://places.googleapis.com/v1";
+    private final WebClient webClient;
+    private final ProviderHttpClients httpClients;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
+    public GooglePlacesService(ProviderHttpClients httpClients) {
+        this.httpClients = httpClients;
+        this.webClient = httpClients.create("google", GOOGLE_PLACES_BASE_URL);
+    }
+    
+    /**
+     * False while the circuit breaker refuses Google Places calls
+     */
+    public boolean isAvailable() {
+        return httpClients.isAvailable("google", "searchNearby");
+    }
+    
     /**
      * Search for places near a location
      */
@@ -30,30 +43,11 @@ public class GooglePlacesService {
                                          double longitude, 
                                          int radius,
                                          List<String> types) {
-        if (!enabled || apiKey == null || apiKey.isEmpty()) {
-            return new ArrayList<>();
-        }
-        
         try {
-            // Build request body
-            String requestBody = buildSearchRequest(latitude, longitude, radius, types);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("X-Goog-Api-Key", apiKey);
-            headers.set("X-Goog-FieldMask", "places.id,places.displayName,places.location,places.priceLevel,places.rating,places.userRatingCount,places.formattedAddress,places.types");
-            
-            HttpEntity<String> entity = new HttpEntity<>(requestBody, headers);
-            
-            ResponseEntity<String> response = restTemplate.exchange(
-                GOOGLE_PLACES_BASE_URL,
-                HttpMethod.POST,
-                entity,
-                String.class
-            );
-            
-            return parseSearchResponse(response.getBody());
-            
+            return requestPlaces(latitude, longitude, radius, types);
+        } catch (ProviderCallRefusedException e) {
+            System.err.println("Google Places API skipped: " + e.getMessage());
+            return new ArrayList<>();
         } catch (Exception e) {
             System.err.println("Google Places API error: " + e.getMessage());
             e.printStackTrace();
@@ -62,14 +56,37 @@ public class GooglePlacesService {
     }
     
     /**
-     * Search by single category
+     * Search by single category; unlike searchPlaces, a failed or refused call is thrown so the
+     * caller can tell it from an empty answer
      */
     public List<GooglePlace> searchByCategory(String category, 
                                              double latitude, 
                                              double longitude,
                                              int radius) {
         List<String> types = List.of(category);
-        return searchPlaces(latitude, longitude, radius, types);
+        return requestPlaces(latitude, longitude, radius, types);
+    }
+    
+    private List<GooglePlace> requestPlaces(double latitude, double longitude, int radius, List<String> types) {
+        if (!enabled || apiKey == null || apiKey.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        // Build request body
+        String requestBody = buildSearchRequest(latitude, longitude, radius, types);
+        
+        String response = webClient.post()
+            .uri("/places:searchNearby")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("X-Goog-Api-Key", apiKey)
+            .header("X-Goog-FieldMask", "places.id,places.displayName,places.location,places.priceLevel,places.rating,places.userRatingCount,places.formattedAddress,places.types")
+            .bodyValue(requestBody)
+            .attribute(ProviderHttpClients.ENDPOINT, "searchNearby")
+            .retrieve()
+            .bodyToMono(String.class)
+            .block();
+        
+        return parseSearchResponse(response);
     }
     
     private String buildSearchRequest(double lat, double lng, int radius, List<String> types) {
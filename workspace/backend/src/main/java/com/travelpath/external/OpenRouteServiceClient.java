@@ -1,5 +1,6 @@
 package com.travelpath.external;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -20,12 +21,19 @@ public class OpenRouteServiceClient {
     private String apiKey;
     
     private final WebClient webClient;
+    private final ProviderHttpClients httpClients;
     private static final String ORS_BASE_URL = "https://api.openrouteservice.org/v2";
     
-    public OpenRouteServiceClient() {
-        this.webClient = WebClient.builder()
-            .baseUrl(ORS_BASE_URL)
-            .build();
+    public OpenRouteServiceClient(ProviderHttpClients httpClients) {
+        this.webClient = httpClients.create("openrouteservice", ORS_BASE_URL);
+        this.httpClients = httpClients;
+    }
+    
+    /**
+     * False while the circuit breaker refuses calls to the endpoint ("matrix" or "directions")
+     */
+    public boolean isAvailable(String endpoint) {
+        return httpClients.isAvailable("openrouteservice", endpoint);
     }
     
     /**
@@ -35,6 +43,20 @@ public class OpenRouteServiceClient {
     public DistanceMatrixResponse getDistanceMatrix(
         List<Location> locations,
         String profile
+    ) {
+        return getDistanceMatrix(locations, null, null, profile);
+    }
+    
+    /**
+     * Get the distance matrix from the sources to the destinations (indexes into locations,
+     * null for all); the answer has one row per source and one column per destination.
+     * ORS refuses requests of more than 3,500 sources x destinations
+     */
+    public DistanceMatrixResponse getDistanceMatrix(
+        List<Location> locations,
+        int[] sources,
+        int[] destinations,
+        String profile
     ) {
         // Check if API key is configured
         if (apiKey == null || apiKey.isEmpty() || apiKey.equals("your-openrouteservice-api-key")) {
@@ -45,16 +67,22 @@ public class OpenRouteServiceClient {
         try {
             System.out.println("[OpenRouteService] Getting distance matrix for " + locations.size() + " locations...");
             DistanceMatrixRequest request = new DistanceMatrixRequest();
-            request.locations = locations;
+            request.locations = new double[locations.size()][];
+            for (int i = 0; i < locations.size(); i++) {
+                request.locations[i] = new double[]{locations.get(i).longitude, locations.get(i).latitude};
+            }
             request.profile = profile;
             request.metrics = new String[]{"distance", "duration"};
             request.units = "km";
+            request.sources = sources;
+            request.destinations = destinations;
             
             DistanceMatrixResponse response = webClient.post()
                 .uri("/matrix/" + profile)
                 .header("Authorization", apiKey)
                 .header("Content-Type", "application/json")
                 .bodyValue(request)
+                .attribute(ProviderHttpClients.ENDPOINT, "matrix")
                 .retrieve()
                 .bodyToMono(DistanceMatrixResponse.class)
                 .block();
@@ -73,6 +101,9 @@ public class OpenRouteServiceClient {
                 System.err.println("[OpenRouteService] Authentication failed. Check your API key.");
             }
             return null;
+        } catch (ProviderCallRefusedException e) {
+            System.err.println("[OpenRouteService] " + e.getMessage() + ". Using fallback distance calculation.");
+            return null;
         } catch (Exception e) {
             System.err.println("[OpenRouteService] Unexpected error: " + e.getMessage());
             e.printStackTrace();
@@ -81,8 +112,8 @@ public class OpenRouteServiceClient {
     }
     
     /**
-     * Get directions/route between two points
-     * Returns polyline for map display
+     * Get directions/route between two points (GeoJSON, distances in meters)
+     * Returns the route geometry for map display
      */
     public DirectionsResponse getDirections(
         double fromLat, double fromLon,
@@ -103,14 +134,15 @@ public class OpenRouteServiceClient {
                     .queryParam("start", fromLon + "," + fromLat)
                     .queryParam("end", toLon + "," + toLat)
                     .build())
+                .attribute(ProviderHttpClients.ENDPOINT, "directions")
                 .retrieve()
                 .bodyToMono(DirectionsResponse.class)
                 .block();
             
-            if (response != null && response.routes != null && !response.routes.isEmpty()) {
+            if (response != null && response.first() != null) {
                 System.out.println("[OpenRouteService] Got directions: " + 
-                                 response.routes.get(0).summary.distance + " km, " +
-                                 (response.routes.get(0).summary.duration / 60) + " min");
+                                 (response.first().properties.summary.distance / 1000) + " km, " +
+                                 (response.first().properties.summary.duration / 60) + " min");
             }
             
             return response;
@@ -127,32 +159,49 @@ public class OpenRouteServiceClient {
     }
     
     /**
-     * Get route with multiple waypoints (optimized)
+     * Get route through multiple waypoints in one call (POST, GeoJSON answer with one segment
+     * per leg). ORS accepts at most 50 waypoints per request; callers split longer itineraries
      */
     public DirectionsResponse getRouteWithWaypoints(
         List<Location> waypoints,
         String profile
     ) {
+        if (apiKey == null || apiKey.isEmpty() || apiKey.equals("your-openrouteservice-api-key")) {
+            System.out.println("[OpenRouteService] WARNING: API key not configured. Using fallback distance calculation.");
+            return null;
+        }
+        
         try {
-            StringBuilder coordinates = new StringBuilder();
-            for (Location loc : waypoints) {
-                if (coordinates.length() > 0) coordinates.append("|");
-                coordinates.append(loc.longitude).append(",").append(loc.latitude);
+            WaypointsRequest request = new WaypointsRequest();
+            request.coordinates = new double[waypoints.size()][];
+            for (int i = 0; i < waypoints.size(); i++) {
+                request.coordinates[i] = new double[]{waypoints.get(i).longitude, waypoints.get(i).latitude};
             }
             
-            DirectionsResponse response = webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                    .path("/directions/" + profile)
-                    .queryParam("api_key", apiKey)
-                    .queryParam("coordinates", coordinates.toString())
-                    .build())
+            DirectionsResponse response = webClient.post()
+                .uri("/directions/" + profile + "/geojson")
+                .header("Authorization", apiKey)
+                .header("Content-Type", "application/json")
+                .bodyValue(request)
+                .attribute(ProviderHttpClients.ENDPOINT, "directions")
                 .retrieve()
                 .bodyToMono(DirectionsResponse.class)
                 .block();
             
+            if (response != null && response.first() != null) {
+                System.out.println("[OpenRouteService] Got route through " + waypoints.size() + " waypoints: " +
+                                 (response.first().properties.summary.distance / 1000) + " km");
+            }
+            
             return response;
+        } catch (WebClientResponseException e) {
+            System.err.println("[OpenRouteService] ERROR getting route with waypoints: " + e.getStatusCode() + " - " + e.getMessage());
+            return null;
+        } catch (ProviderCallRefusedException e) {
+            System.err.println("[OpenRouteService] " + e.getMessage() + ". Using per-leg fallback.");
+            return null;
         } catch (Exception e) {
-            System.err.println("Error getting route with waypoints: " + e.getMessage());
+            System.err.println("[OpenRouteService] Unexpected error getting route with waypoints: " + e.getMessage());
             return null;
         }
     }
@@ -168,34 +217,56 @@ public class OpenRouteServiceClient {
         }
     }
     
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private static class DistanceMatrixRequest {
-        public List<Location> locations;
+        public double[][] locations; // [longitude, latitude] pairs
+        public int[] sources;
+        public int[] destinations;
         public String profile;
         public String[] metrics;
         public String units;
     }
     
+    private static class WaypointsRequest {
+        public double[][] coordinates; // [longitude, latitude] pairs
+    }
+    
     public static class DistanceMatrixResponse {
         public double[][] distances; // in km
         public double[][] durations; // in seconds
     }
     
+    /**
+     * GeoJSON answer of GET /directions/{profile}: one feature per route
+     */
     public static class DirectionsResponse {
-        public List<Route> routes;
+        public List<Feature> features;
+        
+        /**
+         * First (best) route, or null if none was found
+         */
+        public Feature first() {
+            return features == null || features.isEmpty() ? null : features.get(0);
+        }
     }
     
-    public static class Route {
+    public static class Feature {
+        public Properties properties;
+        public Geometry geometry;
+    }
+    
+    public static class Properties {
         public Summary summary;
-        public Geometry geometry; // Encoded polyline
+        public List<Summary> segments; // One per leg between consecutive waypoints
+        public int[] way_points; // Index of each waypoint in the geometry
     }
     
     public static class Summary {
-        public double distance; // in km
+        public double distance; // in meters
         public double duration; // in seconds
     }
     
     public static class Geometry {
-        public String coordinates; // Encoded polyline string
+        public double[][] coordinates; // [longitude, latitude] pairs
     }
 }
-
@@ -2,26 +2,41 @@ package com.travelpath.external;
 
 import com.travelpath.model.Place;
 import com.travelpath.model.PlaceCategory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 @Component
 public class OverpassClient {
     
     private final WebClient webClient;
+    private final ProviderHttpClients httpClients;
     private static final String OVERPASS_API_URL = "https://overpass-api.de/api/interpreter";
+    private static final int MAX_PLACES = 500;
     
-    public OverpassClient() {
-        this.webClient = WebClient.builder()
-            .baseUrl(OVERPASS_API_URL)
-            .codecs(configurer -> configurer
-                .defaultCodecs()
-                .maxInMemorySize(10 * 1024 * 1024))
-            .build();
+    public OverpassClient(ProviderHttpClients httpClients) {
+        // Responses are parsed as a stream of buffers (see OverpassElementParser); the size
+        // limit of the shared client still caps how much of a response is read
+        this.webClient = httpClients.create("overpass", OVERPASS_API_URL);
+        this.httpClients = httpClients;
+    }
+    
+    /**
+     * False while the circuit breaker refuses calls to Overpass
+     */
+    public boolean isAvailable() {
+        return httpClients.isAvailable("overpass", "interpreter");
     }
     
     public List<Place> searchNearby(
@@ -29,71 +44,141 @@ public class OverpassClient {
         double longitude,
         int radiusMeters,
         PlaceCategory category
+    ) {
+        return searchNearby(latitude, longitude, radiusMeters, EnumSet.of(category))
+            .getOrDefault(category, new ArrayList<>());
+    }
+    
+    public Map<PlaceCategory, List<Place>> searchNearby(
+        double latitude,
+        double longitude,
+        int radiusMeters,
+        Set<PlaceCategory> categories
+    ) {
+        return searchNearby(latitude, longitude, radiusMeters, categories, EnumSet.noneOf(PlaceCategory.class));
+    }
+    
+    /**
+     * Search several categories with one combined Overpass query.
+     * Results are split by determineCategory; an element whose category was not asked for goes to the
+     * first requested category whose tag filter it matched (see requestedCategory).
+     * Failures (circuit open, errors, retries exhausted) return empty lists like an empty answer;
+     * the categories Overpass actually answered are added to answered.
+     */
+    public Map<PlaceCategory, List<Place>> searchNearby(
+        double latitude,
+        double longitude,
+        int radiusMeters,
+        Set<PlaceCategory> categories,
+        Set<PlaceCategory> answered
     ) {
         int initialRadius = Math.min(radiusMeters, 2000);
+        if (!isAvailable()) {
+            System.err.println("[OverpassClient] Circuit open, skipping Overpass for " + categories);
+            return emptyResult(categories);
+        }
         
         try {
-            return searchWithRadius(latitude, longitude, initialRadius, category);
+            return searchWithRadius(latitude, longitude, initialRadius, categories, answered);
         } catch (org.springframework.web.reactive.function.client.WebClientResponseException.GatewayTimeout e) {
             System.err.println("[OverpassClient] ERROR: Gateway Timeout (504). Retrying with reduced radius...");
-            return retryWithReducedRadius(latitude, longitude, initialRadius, category, 2);
+            return retryWithReducedRadius(latitude, longitude, initialRadius, categories, 2);
         } catch (org.springframework.web.reactive.function.client.WebClientResponseException e) {
             if (e.getStatusCode().value() >= 500) {
                 System.err.println("[OverpassClient] ERROR: Server error (" + e.getStatusCode() + "). Retrying with reduced radius...");
-                return retryWithReducedRadius(latitude, longitude, initialRadius, category, 2);
+                return retryWithReducedRadius(latitude, longitude, initialRadius, categories, 2);
             }
             System.err.println("[OverpassClient] ERROR calling Overpass API: " + e.getStatusCode() + " - " + e.getMessage());
-            return new ArrayList<>();
-        } catch (org.springframework.core.io.buffer.DataBufferLimitException e) {
-            System.err.println("[OverpassClient] ERROR: Response too large. Retrying with reduced radius...");
-            return retryWithReducedRadius(latitude, longitude, initialRadius, category, 2);
+            return emptyResult(categories);
+        } catch (ProviderCallRefusedException e) {
+            System.err.println("[OverpassClient] " + e.getMessage());
+            return emptyResult(categories);
         } catch (Exception e) {
             System.err.println("[OverpassClient] ERROR calling Overpass API: " + e.getMessage());
             e.printStackTrace();
-            return new ArrayList<>();
+            return emptyResult(categories);
         }
     }
     
-    private List<Place> searchWithRadius(
+    private Map<PlaceCategory, List<Place>> searchWithRadius(
         double latitude,
         double longitude,
         int radiusMeters,
-        PlaceCategory category
+        Set<PlaceCategory> categories,
+        Set<PlaceCategory> answered
     ) {
-        System.out.println("[OverpassClient] Searching for category: " + category + " at (" + latitude + ", " + longitude + ") within " + radiusMeters + "m");
-        String overpassQuery = buildOverpassQuery(latitude, longitude, radiusMeters, category);
+        System.out.println("[OverpassClient] Searching for categories: " + categories + " at (" + latitude + ", " + longitude + ") within " + radiusMeters + "m");
+        String overpassQuery = buildOverpassQuery(latitude, longitude, radiusMeters, categories);
         System.out.println("[OverpassClient] Overpass query: " + overpassQuery);
         
-        OverpassResponse response = webClient.post()
+        Map<PlaceCategory, List<Place>> placesByCategory = emptyResult(categories);
+        int[] fullCategories = {0};
+        OverpassElementParser parser = new OverpassElementParser(element -> {
+            Place place = convertToPlace(element);
+            if (place != null) {
+                PlaceCategory requested = requestedCategory(place.getCategory(), element.tags, placesByCategory.keySet());
+                List<Place> bucket = requested != null ? placesByCategory.get(requested) : null;
+                if (bucket != null && bucket.size() < MAX_PLACES) {
+                    bucket.add(place);
+                    if (bucket.size() == MAX_PLACES) {
+                        fullCategories[0]++;
+                    }
+                }
+            }
+            // Stop reading the response once every requested category reached the limit
+            return fullCategories[0] < placesByCategory.size();
+        });
+        
+        webClient.post()
             .bodyValue(overpassQuery)
             .header("Content-Type", "text/plain")
+            .attribute(ProviderHttpClients.ENDPOINT, "interpreter")
             .retrieve()
-            .bodyToMono(OverpassResponse.class)
-            .block();
+            .bodyToFlux(DataBuffer.class)
+            .map(buffer -> feedParser(parser, buffer))
+            .takeUntil(wantsMore -> !wantsMore)
+            .blockLast();
         
-        if (response != null && response.elements != null) {
-            System.out.println("[OverpassClient] Overpass API returned " + response.elements.size() + " elements");
-            List<Place> places = response.elements.stream()
-                .limit(500)
-                .map(this::convertToPlace)
-                .filter(p -> p != null)
-                .collect(Collectors.toList());
-            System.out.println("[OverpassClient] Converted to " + places.size() + " Place entities");
-            return places;
+        try {
+            parser.endOfInput();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
         
-        System.out.println("[OverpassClient] Overpass API returned null or empty response");
-        return new ArrayList<>();
+        int total = placesByCategory.values().stream().mapToInt(List::size).sum();
+        System.out.println("[OverpassClient] Overpass API streamed " + parser.getElementCount() + " elements, converted to " + total + " Place entities");
+        answered.addAll(categories);
+        return placesByCategory;
+    }
+    
+    private Map<PlaceCategory, List<Place>> emptyResult(Set<PlaceCategory> categories) {
+        Map<PlaceCategory, List<Place>> result = new EnumMap<>(PlaceCategory.class);
+        for (PlaceCategory category : categories) {
+            result.put(category, new ArrayList<>());
+        }
+        return result;
+    }
+    
+    private boolean feedParser(OverpassElementParser parser, DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return parser.feed(bytes, 0, bytes.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
     }
     
     /**
      * Retry search with progressively smaller radius
      */
-    private List<Place> retryWithReducedRadius(
+    private Map<PlaceCategory, List<Place>> retryWithReducedRadius(
         double latitude,
         double longitude,
         int originalRadius,
-        PlaceCategory category,
+        Set<PlaceCategory> categories,
         int maxRetries
     ) {
         for (int attempt = 1; attempt <= maxRetries; attempt++) {
@@ -101,15 +186,24 @@ public class OverpassClient {
             if (reducedRadius < 500) {
                 // Don't go below 500m - too small to be useful
                 System.err.println("[OverpassClient] Radius too small (" + reducedRadius + "m). Giving up.");
-                return new ArrayList<>();
+                return emptyResult(categories);
+            }
+            if (!isAvailable()) {
+                // The failures opened the breaker: more calls would only add load to a failing server
+                System.err.println("[OverpassClient] Circuit open. Giving up retries.");
+                return emptyResult(categories);
             }
             
             try {
                 System.out.println("[OverpassClient] Retry attempt " + attempt + " with radius: " + reducedRadius + "m");
-                return searchWithRadius(latitude, longitude, reducedRadius, category);
+                // Not an answer for the whole area: an empty result here is not reported as answered
+                return searchWithRadius(latitude, longitude, reducedRadius, categories, EnumSet.noneOf(PlaceCategory.class));
             } catch (org.springframework.web.reactive.function.client.WebClientResponseException.GatewayTimeout e) {
                 System.err.println("[OverpassClient] Retry attempt " + attempt + " also timed out. Trying smaller radius...");
                 // Continue to next retry
+            } catch (ProviderCallRefusedException e) {
+                System.err.println("[OverpassClient] " + e.getMessage() + ". Giving up retries.");
+                return emptyResult(categories);
             } catch (Exception e) {
                 System.err.println("[OverpassClient] Retry attempt " + attempt + " failed: " + e.getMessage());
                 // Continue to next retry
@@ -117,63 +211,46 @@ public class OverpassClient {
         }
         
         System.err.println("[OverpassClient] All retry attempts failed. Returning empty list.");
-        return new ArrayList<>();
+        return emptyResult(categories);
     }
     
     /**
      * Build Overpass QL query
      * Note: Overpass QL doesn't support OR in tag values
-     * We need to use union() for multiple tag types
-     * Limit results to prevent buffer overflow (max 1000 results per category)
+     * We need to use union() for multiple tag types (of one or several categories)
+     * The number of results is limited while streaming the response
      */
-    private String buildOverpassQuery(double lat, double lon, int radius, PlaceCategory category) {
-        List<String> tagQueries = mapCategoryToAmenities(category);
+    private String buildOverpassQuery(double lat, double lon, int radius, Set<PlaceCategory> categories) {
+        Set<String> tagQueries = new LinkedHashSet<>();
+        for (PlaceCategory category : categories) {
+            tagQueries.addAll(mapCategoryToAmenities(category));
+        }
         
         // Reduce radius for large cities to prevent too many results and timeouts
         // Paris has thousands of restaurants, so we limit the search area
-        int effectiveRadius = Math.min(radius, 2000); // Max 2km to prevent timeout and buffer overflow
+        int effectiveRadius = Math.min(radius, 2000); // Max 2km to prevent timeout
         
-        if (tagQueries.size() == 1) {
-            // Single tag query - simple query with limit
-            String tagQuery = tagQueries.get(0);
+        // 10 seconds for one category (fail fast and retry), a bit more for combined queries
+        int timeoutSeconds = Math.min(25, 10 + 5 * (categories.size() - 1));
+        
+        StringBuilder query = new StringBuilder("[out:json][timeout:" + timeoutSeconds + "];(");
+        for (String tagQuery : tagQueries) {
             // Parse tag query (format: "key=value")
             String[] parts = tagQuery.split("=");
             String key = parts[0];
             String value = parts[1];
             
-            return String.format(
-                "[out:json][timeout:10];" + // Reduced from 25 to 10 seconds to fail faster and retry
-                "(" +
+            query.append(String.format(
                 "  node[\"%s\"=\"%s\"](around:%d,%f,%f);" +
                 "  way[\"%s\"=\"%s\"](around:%d,%f,%f);" +
-                "  relation[\"%s\"=\"%s\"](around:%d,%f,%f);" +
-                ");" +
-                "out center meta;", // Note: limit is not valid in out clause, we'll limit in Java code
+                "  relation[\"%s\"=\"%s\"](around:%d,%f,%f);",
                 key, value, effectiveRadius, lat, lon,
                 key, value, effectiveRadius, lat, lon,
                 key, value, effectiveRadius, lat, lon
-            );
-        } else {
-            // Multiple tag queries - use union with limit
-            StringBuilder query = new StringBuilder("[out:json][timeout:10];("); // Reduced from 25 to 10 seconds
-            for (String tagQuery : tagQueries) {
-                // Parse tag query (format: "key=value")
-                String[] parts = tagQuery.split("=");
-                String key = parts[0];
-                String value = parts[1];
-                
-                query.append(String.format(
-                    "  node[\"%s\"=\"%s\"](around:%d,%f,%f);" +
-                    "  way[\"%s\"=\"%s\"](around:%d,%f,%f);" +
-                    "  relation[\"%s\"=\"%s\"](around:%d,%f,%f);",
-                    key, value, effectiveRadius, lat, lon,
-                    key, value, effectiveRadius, lat, lon,
-                    key, value, effectiveRadius, lat, lon
-                ));
-            }
-            query.append(");out center meta;"); // Note: limit is not valid in out clause, we'll limit in Java code
-            return query.toString();
+            ));
         }
+        query.append(");out center;"); // No meta (version/user data we never read)
+        return query.toString();
     }
     
     /**
@@ -189,17 +266,17 @@ public class OverpassClient {
         };
     }
     
-    private Place convertToPlace(OverpassElement element) {
+    private Place convertToPlace(OverpassElementParser.Element element) {
         // Get coordinates from element or center
         Double lat = element.lat;
         Double lon = element.lon;
         
-        if (lat == null && element.center != null) {
-            lat = element.center.lat;
-            lon = element.center.lon;
+        if (lat == null) {
+            lat = element.centerLat;
+            lon = element.centerLon;
         }
         
-        if (lat == null || lon == null || (lat == 0.0 && lon == 0.0)) {
+        if (element.id == null || lat == null || lon == null || (lat == 0.0 && lon == 0.0)) {
             return null;
         }
         
@@ -221,7 +298,7 @@ public class OverpassClient {
         // Estimate cost from tags (simplified)
         Double averageCost = estimateCost(element.tags);
         
-        return new Place(
+        Place place = new Place(
             "osm_" + element.id, // Use OSM ID as identifier
             name,
             category,
@@ -237,6 +314,28 @@ public class OverpassClient {
             null, // createdAt
             null  // updatedAt
         );
+        place.setProvider("overpass");
+        return place;
+    }
+    
+    /**
+     * Requested category an element is returned under: its own if it was asked for, otherwise the
+     * first requested one whose tag filter it carries (e.g. a park that is also a tourist
+     * attraction, searched for DISCOVERY); null if it matches none of them
+     */
+    private PlaceCategory requestedCategory(PlaceCategory category, java.util.Map<String, String> tags, Set<PlaceCategory> requested) {
+        if (requested.contains(category)) {
+            return category;
+        }
+        for (PlaceCategory candidate : requested) {
+            for (String tagQuery : mapCategoryToAmenities(candidate)) {
+                String[] parts = tagQuery.split("=");
+                if (parts[1].equals(tags.get(parts[0]))) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
     }
     
     private PlaceCategory determineCategory(java.util.Map<String, String> tags) {
@@ -304,23 +403,4 @@ public class OverpassClient {
     }
     
     
-    // Response classes
-    private static class OverpassResponse {
-        public List<OverpassElement> elements;
-    }
-    
-    private static class OverpassElement {
-        public String type;
-        public Long id;
-        public Double lat;
-        public Double lon;
-        public OverpassCenter center;
-        public java.util.Map<String, String> tags;
-    }
-    
-    private static class OverpassCenter {
-        public Double lat;
-        public Double lon;
-    }
 }
-
@@ -0,0 +1,186 @@
+package com.travelpath.external;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Incremental (non-blocking) parser for the "elements" array of an Overpass JSON response.
+ * Bytes are fed chunk by chunk as they arrive; each complete element is handed to the sink,
+ * keeping only the tags we use. Parsing stops as soon as the sink asks for no more elements,
+ * so the rest of the response is never read or buffered.
+ */
+class OverpassElementParser {
+
+    /** Tags used to build a Place, every other tag is dropped while parsing */
+    static final Set<String> KEPT_TAGS = Set.of(
+        "name", "amenity", "tourism", "leisure", "historic", "description", "cuisine",
+        "addr:street", "addr:housenumber", "addr:city"
+    );
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final Predicate<Element> sink;
+
+    private int depth = 0;
+    private String rootField;
+    private String elementField;
+    private String objectField;
+    private String nestedField;
+    private boolean inElements = false;
+    private boolean done = false;
+    private int elementCount = 0;
+    private Element current;
+
+    /**
+     * @param sink receives each parsed element, returns false to stop parsing
+     */
+    OverpassElementParser(Predicate<Element> sink) {
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create JSON parser", e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.sink = sink;
+    }
+
+    /**
+     * Feed the next chunk of the response
+     * @return true if more input is wanted, false once the elements array is finished or the sink stopped
+     */
+    boolean feed(byte[] bytes, int offset, int length) throws IOException {
+        if (done) {
+            return false;
+        }
+        feeder.feedInput(bytes, offset, offset + length);
+        processAvailableTokens();
+        return !done;
+    }
+
+    void endOfInput() throws IOException {
+        if (!done) {
+            feeder.endOfInput();
+            processAvailableTokens();
+        }
+        parser.close();
+    }
+
+    int getElementCount() {
+        return elementCount;
+    }
+
+    private void processAvailableTokens() throws IOException {
+        JsonToken token;
+        while (!done && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            switch (token) {
+                case START_OBJECT -> {
+                    depth++;
+                    if (inElements && depth == 3) {
+                        current = new Element();
+                    } else if (inElements && depth == 4) {
+                        objectField = elementField;
+                    }
+                }
+                case START_ARRAY -> {
+                    depth++;
+                    if (depth == 2 && "elements".equals(rootField)) {
+                        inElements = true;
+                    } else if (inElements && depth == 4) {
+                        objectField = null;
+                    }
+                }
+                case END_OBJECT -> {
+                    if (inElements && depth == 3 && current != null) {
+                        elementCount++;
+                        boolean more = sink.test(current);
+                        current = null;
+                        if (!more) {
+                            done = true;
+                        }
+                    }
+                    depth--;
+                }
+                case END_ARRAY -> {
+                    if (inElements && depth == 2) {
+                        // Nothing of interest follows the elements array
+                        inElements = false;
+                        done = true;
+                    }
+                    depth--;
+                }
+                case FIELD_NAME -> {
+                    String name = parser.currentName();
+                    if (depth == 1) {
+                        rootField = name;
+                    } else if (inElements && depth == 3) {
+                        elementField = name;
+                    } else if (inElements && depth == 4) {
+                        nestedField = name;
+                    }
+                }
+                default -> {
+                    if (inElements && current != null) {
+                        if (depth == 3) {
+                            readElementValue(token);
+                        } else if (depth == 4) {
+                            readNestedValue(token);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void readElementValue(JsonToken token) throws IOException {
+        if (elementField == null) {
+            return;
+        }
+        switch (elementField) {
+            case "type" -> current.type = parser.getText();
+            case "id" -> current.id = token.isNumeric() ? parser.getLongValue() : null;
+            case "lat" -> current.lat = token.isNumeric() ? parser.getDoubleValue() : null;
+            case "lon" -> current.lon = token.isNumeric() ? parser.getDoubleValue() : null;
+            default -> { }
+        }
+    }
+
+    private void readNestedValue(JsonToken token) throws IOException {
+        if (objectField == null || nestedField == null) {
+            return;
+        }
+        if ("tags".equals(objectField)) {
+            if (token == JsonToken.VALUE_STRING && KEPT_TAGS.contains(nestedField)) {
+                current.tags.put(nestedField, parser.getText());
+            }
+        } else if ("center".equals(objectField) && token.isNumeric()) {
+            if ("lat".equals(nestedField)) {
+                current.centerLat = parser.getDoubleValue();
+            } else if ("lon".equals(nestedField)) {
+                current.centerLon = parser.getDoubleValue();
+            }
+        }
+    }
+
+    /**
+     * One OSM element (node, way or relation) with only the fields we use
+     */
+    static class Element {
+        String type;
+        Long id;
+        Double lat;
+        Double lon;
+        Double centerLat;
+        Double centerLon;
+        final Map<String, String> tags = new HashMap<>(8);
+    }
+}
@@ -0,0 +1,12 @@
+package com.travelpath.external;
+
+/**
+ * A provider call refused locally, before any request was sent (quota exhausted, circuit open).
+ * Callers fall back the same way as for a failed call, without the stack trace.
+ */
+public abstract class ProviderCallRefusedException extends RuntimeException {
+
+    protected ProviderCallRefusedException(String message) {
+        super(message);
+    }
+}
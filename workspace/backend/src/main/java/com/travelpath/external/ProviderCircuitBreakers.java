@@ -0,0 +1,113 @@
+package com.travelpath.external;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Circuit breakers of the external providers, one per provider and endpoint.
+ * Settings come from providers.circuit.&lt;name&gt;.* with providers.circuit.defaults.* as fallback:
+ * window-size, min-calls, failure-rate-threshold, open-duration-ms and half-open-probes.
+ * Server errors (5xx), 429 and connection failures or timeouts count as failures.
+ * Metrics: providers.circuit.state{provider,endpoint} (0 closed, 1 half-open, 2 open),
+ * providers.circuit.transitions and providers.circuit.rejected.
+ */
+@Component
+public class ProviderCircuitBreakers {
+
+    private static final String PREFIX = "providers.circuit.";
+
+    @Value("${providers.circuit.enabled:true}")
+    private boolean enabled;
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public ProviderCircuitBreakers(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Ask to call the endpoint; a granted call must be reported with onResult or onIgnored
+     */
+    public boolean tryAcquire(String provider, String endpoint) {
+        if (!enabled) {
+            return true;
+        }
+        CircuitBreaker breaker = breaker(provider, endpoint);
+        boolean granted = breaker.tryAcquire();
+        if (!granted) {
+            meterRegistry.counter("providers.circuit.rejected", "provider", provider, "endpoint", endpoint).increment();
+        }
+        return granted;
+    }
+
+    /**
+     * True if a call to the endpoint would currently be let through (no permission is taken)
+     */
+    public boolean isCallPermitted(String provider, String endpoint) {
+        return !enabled || breaker(provider, endpoint).isCallPermitted();
+    }
+
+    public void onResult(String provider, String endpoint, boolean failure) {
+        if (!enabled) {
+            return;
+        }
+        CircuitBreaker breaker = breaker(provider, endpoint);
+        CircuitBreaker.State before = breaker.getState();
+        if (failure) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+        CircuitBreaker.State after = breaker.getState();
+        if (before != after) {
+            System.out.println("[ProviderCircuitBreakers] " + provider + "/" + endpoint + ": " + before + " -> " + after);
+            meterRegistry.counter("providers.circuit.transitions",
+                "provider", provider, "endpoint", endpoint, "state", after.name().toLowerCase()).increment();
+        }
+    }
+
+    public void onIgnored(String provider, String endpoint) {
+        if (enabled) {
+            breaker(provider, endpoint).onIgnored();
+        }
+    }
+
+    private CircuitBreaker breaker(String provider, String endpoint) {
+        return breakers.computeIfAbsent(provider + "/" + endpoint, key -> {
+            CircuitBreaker breaker = new CircuitBreaker(
+                (int) setting(provider, "window-size", 20),
+                (int) setting(provider, "min-calls", 10),
+                environment.getProperty(PREFIX + provider + ".failure-rate-threshold", Double.class,
+                    environment.getProperty(PREFIX + "defaults.failure-rate-threshold", Double.class, 0.5)),
+                setting(provider, "open-duration-ms", 30000),
+                (int) setting(provider, "half-open-probes", 2)
+            );
+            Gauge.builder("providers.circuit.state", breaker, b -> switch (b.getState()) {
+                    case CLOSED -> 0;
+                    case HALF_OPEN -> 1;
+                    case OPEN -> 2;
+                })
+                .tag("provider", provider)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    private long setting(String provider, String key, long fallback) {
+        Long value = environment.getProperty(PREFIX + provider + "." + key, Long.class);
+        if (value != null) {
+            return value;
+        }
+        return environment.getProperty(PREFIX + "defaults." + key, Long.class, fallback);
+    }
+}
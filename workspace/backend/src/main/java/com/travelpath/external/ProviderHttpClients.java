@@ -0,0 +1,238 @@
+package com.travelpath.external;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds the WebClient of each external provider on one shared connection pool.
+ * Settings are read per provider from providers.http.&lt;name&gt;.* and fall back to
+ * providers.http.defaults.*: base-url, connect-timeout-ms, read-timeout-ms,
+ * max-response-bytes and http2 (negotiated with ALPN, https only).
+ * Every client records providers.http.requests (timer) and providers.http.response.bytes
+ * tagged with the provider name, and takes a token from ProviderQuotas before each call.
+ * Calls go through the circuit breaker of their endpoint (see ProviderCircuitBreakers); clients name
+ * the endpoint with the ENDPOINT request attribute.
+ */
+@Component
+public class ProviderHttpClients {
+
+    /** Request attribute naming the endpoint of a call, for circuit breakers */
+    public static final String ENDPOINT = "provider.endpoint";
+
+    private static final String PREFIX = "providers.http.";
+
+    private final WebClient.Builder webClientBuilder;
+    private final ConnectionProvider connectionProvider;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final ProviderQuotas quotas;
+    private final ProviderCircuitBreakers circuitBreakers;
+
+    public ProviderHttpClients(
+            WebClient.Builder webClientBuilder,
+            @Qualifier("providerConnectionProvider") ConnectionProvider connectionProvider,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            ProviderQuotas quotas,
+            ProviderCircuitBreakers circuitBreakers
+    ) {
+        this.webClientBuilder = webClientBuilder;
+        this.connectionProvider = connectionProvider;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.quotas = quotas;
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    /**
+     * WebClient for one provider
+     * @param provider provider name, used for settings and metric tags
+     * @param defaultBaseUrl base url used when providers.http.&lt;name&gt;.base-url is not set
+     */
+    public WebClient create(String provider, String defaultBaseUrl) {
+        String baseUrl = environment.getProperty(PREFIX + provider + ".base-url", defaultBaseUrl);
+        int connectTimeoutMs = (int) setting(provider, "connect-timeout-ms", 3000);
+        long readTimeoutMs = setting(provider, "read-timeout-ms", 10000);
+        long maxResponseBytes = setting(provider, "max-response-bytes", 2 * 1024 * 1024);
+        boolean http2 = environment.getProperty(PREFIX + provider + ".http2", Boolean.class,
+            environment.getProperty(PREFIX + "defaults.http2", Boolean.class, true));
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .keepAlive(true)
+            .responseTimeout(Duration.ofMillis(readTimeoutMs))
+            .compress(true);
+        if (http2 && baseUrl.startsWith("https")) {
+            // Falls back to HTTP/1.1 when the server does not offer h2 during the TLS handshake
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        System.out.println("[ProviderHttpClients] " + provider + " -> " + baseUrl
+            + " (connect " + connectTimeoutMs + "ms, read " + readTimeoutMs + "ms, max " + maxResponseBytes + " bytes"
+            + (http2 ? ", h2" : "") + ")");
+
+        return webClientBuilder.clone()
+            .baseUrl(baseUrl)
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) Math.min(maxResponseBytes, Integer.MAX_VALUE)))
+            .filter(circuitBreaker(provider))
+            .filter(quota(provider))
+            .filter(metrics(provider))
+            .filter(responseSizeLimit(provider, maxResponseBytes))
+            .build();
+    }
+
+    /**
+     * False while the circuit breaker of the endpoint refuses calls, so callers can fall back right away
+     */
+    public boolean isAvailable(String provider, String endpoint) {
+        return circuitBreakers.isCallPermitted(provider, endpoint);
+    }
+
+    private long setting(String provider, String key, long fallback) {
+        Long value = environment.getProperty(PREFIX + provider + "." + key, Long.class);
+        if (value != null) {
+            return value;
+        }
+        return environment.getProperty(PREFIX + "defaults." + key, Long.class, fallback);
+    }
+
+    /**
+     * Refuses the call while the endpoint's breaker is open, and reports the outcome of the calls it lets through.
+     * Calls refused further down (quota) or cancelled before the response do not count.
+     */
+    private ExchangeFilterFunction circuitBreaker(String provider) {
+        return (request, next) -> Mono.defer(() -> {
+            String endpoint = request.attribute(ENDPOINT).map(Object::toString).orElse("default");
+            if (!circuitBreakers.tryAcquire(provider, endpoint)) {
+                return Mono.error(new ProviderUnavailableException(provider, endpoint));
+            }
+            AtomicBoolean reported = new AtomicBoolean();
+            return next.exchange(request)
+                .doOnSuccess(response -> {
+                    if (reported.compareAndSet(false, true)) {
+                        if (response == null) {
+                            circuitBreakers.onIgnored(provider, endpoint);
+                        } else {
+                            int status = response.statusCode().value();
+                            circuitBreakers.onResult(provider, endpoint, status >= 500 || status == 429);
+                        }
+                    }
+                })
+                .doOnError(error -> {
+                    if (reported.compareAndSet(false, true)) {
+                        if (error instanceof ProviderCallRefusedException) {
+                            circuitBreakers.onIgnored(provider, endpoint);
+                        } else {
+                            circuitBreakers.onResult(provider, endpoint, true);
+                        }
+                    }
+                })
+                .doOnCancel(() -> {
+                    if (reported.compareAndSet(false, true)) {
+                        circuitBreakers.onIgnored(provider, endpoint);
+                    }
+                });
+        });
+    }
+
+    /**
+     * Refuses the call without sending it when the provider's quota is exhausted for the caller's priority.
+     * Evaluated on subscription, i.e. on the thread that blocks on the call.
+     */
+    private ExchangeFilterFunction quota(String provider) {
+        return (request, next) -> Mono.defer(() -> {
+            RequestPriority priority = RequestPriority.current();
+            if (!quotas.tryAcquire(provider, priority)) {
+                return Mono.error(new ProviderQuotaExceededException(provider, priority));
+            }
+            return next.exchange(request);
+        });
+    }
+
+    /**
+     * Time until the response status is known, tagged with the status code or the error type
+     */
+    private ExchangeFilterFunction metrics(String provider) {
+        return (request, next) -> {
+            long start = System.nanoTime();
+            return next.exchange(request)
+                .doOnSuccess(response -> {
+                    if (response != null) {
+                        record(provider, request.method().name(), String.valueOf(response.statusCode().value()), start);
+                    }
+                })
+                .doOnError(error -> record(provider, request.method().name(), errorOutcome(error), start));
+        };
+    }
+
+    private void record(String provider, String method, String status, long start) {
+        Timer.builder("providers.http.requests")
+            .tag("provider", provider)
+            .tag("method", method)
+            .tag("status", status)
+            .register(meterRegistry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static String errorOutcome(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            String name = cause.getClass().getSimpleName();
+            if (name.contains("Timeout")) {
+                return "TIMEOUT";
+            }
+            if (name.contains("Connect")) {
+                return "CONNECT_ERROR";
+            }
+        }
+        return "IO_ERROR";
+    }
+
+    /**
+     * Counts the bytes of each response body and fails once it exceeds the limit.
+     * Unlike maxInMemorySize this also covers streamed bodies (Overpass).
+     */
+    private ExchangeFilterFunction responseSizeLimit(String provider, long maxBytes) {
+        DistributionSummary sizes = DistributionSummary.builder("providers.http.response.bytes")
+            .tag("provider", provider)
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        return ExchangeFilterFunction.ofResponseProcessor(response -> Mono.just(response.mutate()
+            .body(body -> {
+                AtomicLong received = new AtomicLong();
+                return body
+                    .map(buffer -> limit(buffer, received, maxBytes, provider))
+                    .doFinally(signal -> sizes.record(received.get()));
+            })
+            .build()));
+    }
+
+    private static DataBuffer limit(DataBuffer buffer, AtomicLong received, long maxBytes, String provider) {
+        if (received.addAndGet(buffer.readableByteCount()) > maxBytes) {
+            DataBufferUtils.release(buffer);
+            throw new DataBufferLimitException("Response from " + provider + " exceeds " + maxBytes + " bytes");
+        }
+        return buffer;
+    }
+}
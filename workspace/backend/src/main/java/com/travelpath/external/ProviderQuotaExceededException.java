@@ -0,0 +1,12 @@
+package com.travelpath.external;
+
+/**
+ * Thrown by the provider HTTP clients when a call is refused by ProviderQuotas.
+ * No request is sent; callers handle it like any other provider failure.
+ */
+public class ProviderQuotaExceededException extends ProviderCallRefusedException {
+
+    public ProviderQuotaExceededException(String provider, RequestPriority priority) {
+        super("Quota of " + provider + " exhausted for " + priority.name().toLowerCase() + " calls");
+    }
+}
@@ -0,0 +1,149 @@
+package com.travelpath.external;
+
+import com.travelpath.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Request quotas of the external providers, as token buckets per provider and window.
+ * Windows are read from providers.quota.&lt;name&gt;.per-minute, per-day and per-month; a provider
+ * without any window is not limited. A call takes one token from every window of its provider,
+ * or none if one of them is empty.
+ * BACKGROUND calls must leave background-reserve (a fraction of each window) in the buckets,
+ * so prefetching stops well before interactive requests run out.
+ * Metrics: providers.quota.remaining{provider,window} and providers.quota.requests{provider,priority,outcome}.
+ */
+@Component
+public class ProviderQuotas {
+
+    private static final Map<String, Duration> WINDOWS = new LinkedHashMap<>();
+
+    static {
+        WINDOWS.put("minute", Duration.ofMinutes(1));
+        WINDOWS.put("day", Duration.ofDays(1));
+        WINDOWS.put("month", Duration.ofDays(30));
+    }
+
+    @Value("${providers.quota.enabled:true}")
+    private boolean enabled;
+
+    @Value("${providers.quota.background-reserve:0.25}")
+    private double backgroundReserve;
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Quota> quotas = new ConcurrentHashMap<>();
+
+    public ProviderQuotas(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Take one token for a call to the provider with the current thread's priority
+     * @return false if the call should not be made
+     */
+    public boolean tryAcquire(String provider) {
+        return tryAcquire(provider, RequestPriority.current());
+    }
+
+    public boolean tryAcquire(String provider, RequestPriority priority) {
+        if (!enabled) {
+            return true;
+        }
+        Quota quota = quotas.computeIfAbsent(provider, this::createQuota);
+        boolean granted = quota.tryAcquire(priority == RequestPriority.BACKGROUND ? backgroundReserve : 0.0);
+        Counter.builder("providers.quota.requests")
+            .tag("provider", provider)
+            .tag("priority", priority.name().toLowerCase())
+            .tag("outcome", granted ? "granted" : "rejected")
+            .register(meterRegistry)
+            .increment();
+        return granted;
+    }
+
+    /**
+     * True if a call with this priority would currently be granted, without taking a token
+     */
+    public boolean isAvailable(String provider, RequestPriority priority) {
+        if (!enabled) {
+            return true;
+        }
+        return quotas.computeIfAbsent(provider, this::createQuota)
+            .isAvailable(priority == RequestPriority.BACKGROUND ? backgroundReserve : 0.0);
+    }
+
+    private Quota createQuota(String provider) {
+        List<TokenBucket> buckets = new ArrayList<>();
+        StringBuilder description = new StringBuilder();
+        WINDOWS.forEach((window, period) -> {
+            Long limit = environment.getProperty("providers.quota." + provider + ".per-" + window, Long.class);
+            if (limit == null || limit <= 0) {
+                return;
+            }
+            TokenBucket bucket = new TokenBucket(limit, period.toNanos());
+            buckets.add(bucket);
+            description.append(' ').append(limit).append('/').append(window);
+            Gauge.builder("providers.quota.remaining", bucket, b -> {
+                    synchronized (b) {
+                        return b.available();
+                    }
+                })
+                .description("Tokens left in the provider's quota window")
+                .tag("provider", provider)
+                .tag("window", window)
+                .register(meterRegistry);
+        });
+        if (!buckets.isEmpty()) {
+            System.out.println("[ProviderQuotas] " + provider + " limited to" + description);
+        }
+        return new Quota(buckets);
+    }
+
+    private static class Quota {
+        private final List<TokenBucket> buckets;
+
+        Quota(List<TokenBucket> buckets) {
+            this.buckets = buckets;
+        }
+
+        boolean tryAcquire(double reserveFraction) {
+            if (buckets.isEmpty()) {
+                return true;
+            }
+            synchronized (this) {
+                if (!isAvailable(reserveFraction)) {
+                    return false;
+                }
+                for (TokenBucket bucket : buckets) {
+                    synchronized (bucket) {
+                        bucket.take();
+                    }
+                }
+                return true;
+            }
+        }
+
+        synchronized boolean isAvailable(double reserveFraction) {
+            for (TokenBucket bucket : buckets) {
+                synchronized (bucket) {
+                    if (!bucket.canTake(bucket.getCapacity() * reserveFraction)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
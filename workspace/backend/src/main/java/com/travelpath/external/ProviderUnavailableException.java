@@ -0,0 +1,11 @@
+package com.travelpath.external;
+
+/**
+ * Thrown by the provider HTTP clients while the circuit breaker of the endpoint is open
+ */
+public class ProviderUnavailableException extends ProviderCallRefusedException {
+
+    public ProviderUnavailableException(String provider, String endpoint) {
+        super("Circuit open for " + provider + "/" + endpoint);
+    }
+}
@@ -0,0 +1,57 @@
+package com.travelpath.external;
+
+import java.util.function.Supplier;
+
+/**
+ * Priority of the provider calls made by the current thread.
+ * User requests run as INTERACTIVE (the default); prefetching and background refreshes run as
+ * BACKGROUND, which ProviderQuotas rejects early so the remaining quota is kept for users.
+ * The priority follows tasks submitted to the providerExecutor (see ExecutorConfig).
+ */
+public enum RequestPriority {
+    INTERACTIVE,
+    BACKGROUND;
+
+    private static final ThreadLocal<RequestPriority> CURRENT = new ThreadLocal<>();
+
+    public static RequestPriority current() {
+        RequestPriority priority = CURRENT.get();
+        return priority != null ? priority : INTERACTIVE;
+    }
+
+    /**
+     * Run the call with this priority, restoring the previous one afterwards
+     */
+    public <T> T call(Supplier<T> call) {
+        RequestPriority previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public void run(Runnable task) {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Wrap a task so it runs with the priority of the thread that submitted it
+     */
+    public static Runnable propagate(Runnable task) {
+        RequestPriority priority = current();
+        return () -> priority.run(task);
+    }
+
+    private static void restore(RequestPriority previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
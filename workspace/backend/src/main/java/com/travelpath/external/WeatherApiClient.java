@@ -20,10 +20,8 @@ public class WeatherApiClient {
     
     private final WebClient webClient;
     
-    public WeatherApiClient() {
-        this.webClient = WebClient.builder()
-            .baseUrl("https://api.openweathermap.org/data/2.5")
-            .build();
+    public WeatherApiClient(ProviderHttpClients httpClients) {
+        this.webClient = httpClients.create("openweather", "https://api.openweathermap.org/data/2.5");
     }
     
     /**
@@ -40,6 +38,7 @@ public class WeatherApiClient {
                     .queryParam("units", "metric") // Celsius
                     .queryParam("lang", "fr") // French descriptions
                     .build())
+                .attribute(ProviderHttpClients.ENDPOINT, "weather")
                 .retrieve()
                 .bodyToMono(WeatherResponse.class)
                 .block();
@@ -51,7 +50,8 @@ public class WeatherApiClient {
                     response.weather.get(0).description,
                     response.main.humidity,
                     response.wind.speed,
-                    response.main.feels_like
+                    response.main.feels_like,
+                    response.dt
                 );
             }
             
@@ -79,6 +79,7 @@ public class WeatherApiClient {
                     .queryParam("units", "metric")
                     .queryParam("lang", "fr")
                     .build())
+                .attribute(ProviderHttpClients.ENDPOINT, "forecast")
                 .retrieve()
                 .bodyToMono(ForecastResponse.class)
                 .block();
@@ -91,7 +92,8 @@ public class WeatherApiClient {
                         item.weather.get(0).description,
                         item.main.humidity,
                         item.wind.speed,
-                        item.main.feels_like
+                        item.main.feels_like,
+                        item.dt
                     ))
                     .toList();
             }
@@ -111,19 +113,22 @@ public class WeatherApiClient {
         public final int humidity;
         public final double windSpeed;
         public final double feelsLike;
+        public final long time; // Unix time (seconds) of the observation or forecast
         
         public WeatherData(double temperature, String condition, String description, 
-                          int humidity, double windSpeed, double feelsLike) {
+                          int humidity, double windSpeed, double feelsLike, long time) {
             this.temperature = temperature;
             this.condition = condition;
             this.description = description;
             this.humidity = humidity;
             this.windSpeed = windSpeed;
             this.feelsLike = feelsLike;
+            this.time = time;
         }
     }
     
     private static class WeatherResponse {
+        public long dt;
         public Main main;
         public List<Weather> weather;
         public Wind wind;
@@ -134,6 +139,7 @@ public class WeatherApiClient {
     }
     
     private static class ForecastItem {
+        public long dt;
         public Main main;
         public List<Weather> weather;
         public Wind wind;
@@ -3,12 +3,9 @@ package com.travelpath.external;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,10 +18,23 @@ public class YelpPlacesService {
     @Value("${yelp.api.enabled:true}")
     private boolean enabled;
     
-    private static final String YELP_BASE_URL = "https://api.yelp.com/v3/businesses";
-    private final RestTemplate restTemplate = new RestTemplate();
+    private static final String YELP_BASE_URL = "https://api.yelp.com/v3";
+    private final WebClient webClient;
+    private final ProviderHttpClients httpClients;
     private final ObjectMapper objectMapper = new ObjectMapper();
     
+    public YelpPlacesService(ProviderHttpClients httpClients) {
+        this.httpClients = httpClients;
+        this.webClient = httpClients.create("yelp", YELP_BASE_URL);
+    }
+    
+    /**
+     * False while the circuit breaker refuses Yelp search calls
+     */
+    public boolean isAvailable() {
+        return httpClients.isAvailable("yelp", "search");
+    }
+    
     /**
      * Search for businesses near a location
      */
@@ -32,35 +42,8 @@ public class YelpPlacesService {
                                                double latitude, 
                                                double longitude,
                                                int radius) {
-        if (!enabled) {
-            return new ArrayList<>();
-        }
-        
         try {
-            String url = String.format(
-                "%s/search?term=%s&latitude=%f&longitude=%f&radius=%d&limit=20",
-                YELP_BASE_URL,
-                URLEncoder.encode(term, StandardCharsets.UTF_8),
-                latitude,
-                longitude,
-                radius
-            );
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(apiKey);
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            ResponseEntity<String> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                entity,
-                String.class
-            );
-            
-            return parseSearchResponse(response.getBody());
-            
+            return requestBusinesses(term, latitude, longitude, radius);
         } catch (Exception e) {
             System.err.println("Yelp API error: " + e.getMessage());
             return new ArrayList<>();
@@ -68,7 +51,8 @@ public class YelpPlacesService {
     }
     
     /**
-     * Search for businesses by category
+     * Search for businesses by category; unlike searchBusinesses, a failed or refused call is
+     * thrown so the caller can tell it from an empty answer
      */
     public List<YelpBusiness> searchByCategory(String category, 
                                              double latitude, 
@@ -76,7 +60,30 @@ public class YelpPlacesService {
                                              int radius) {
         // Map TravelPath categories to Yelp categories
         String yelpCategory = mapCategoryToYelp(category);
-        return searchBusinesses(yelpCategory, latitude, longitude, radius);
+        return requestBusinesses(yelpCategory, latitude, longitude, radius);
+    }
+    
+    private List<YelpBusiness> requestBusinesses(String term, double latitude, double longitude, int radius) {
+        if (!enabled) {
+            return new ArrayList<>();
+        }
+        
+        String response = webClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path("/businesses/search")
+                .queryParam("term", term)
+                .queryParam("latitude", latitude)
+                .queryParam("longitude", longitude)
+                .queryParam("radius", radius)
+                .queryParam("limit", 20)
+                .build())
+            .headers(headers -> headers.setBearerAuth(apiKey))
+            .attribute(ProviderHttpClients.ENDPOINT, "search")
+            .retrieve()
+            .bodyToMono(String.class)
+            .block();
+        
+        return parseSearchResponse(response);
     }
     
     /**
@@ -88,21 +95,15 @@ public class YelpPlacesService {
         }
         
         try {
-            String url = YELP_BASE_URL + "/" + businessId;
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(apiKey);
-            
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            ResponseEntity<String> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                entity,
-                String.class
-            );
+            String response = webClient.get()
+                .uri("/businesses/{id}", businessId)
+                .headers(headers -> headers.setBearerAuth(apiKey))
+                .attribute(ProviderHttpClients.ENDPOINT, "business")
+                .retrieve()
+                .bodyToMono(String.class)
+                .block();
             
-            return parseBusinessDetails(response.getBody());
+            return parseBusinessDetails(response);
             
         } catch (Exception e) {
             System.err.println("Yelp API error: " + e.getMessage());
@@ -0,0 +1,142 @@
+package com.travelpath.geo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reverse geocoding to city level.
+ * City boundaries are loaded at startup from a GeoJSON FeatureCollection (properties: name,
+ * country, optional costMultiplier) into an STR-packed R-tree; a lookup only runs the
+ * point-in-polygon test on the few regions whose bounding box contains the point.
+ */
+@Component
+public class CityIndex {
+
+    private static final String UNKNOWN_PARTITION = "unknown";
+
+    @Value("${geo.cities.location:classpath:geo/cities.geojson}")
+    private String location;
+
+    @Value("${geo.cities.default-cost-multiplier:0.7}")
+    private double defaultCostMultiplier;
+
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile StrTree<CityRegion> tree = new StrTree<>(List.of());
+
+    public CityIndex(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    @PostConstruct
+    public void load() {
+        Resource resource = resourceLoader.getResource(location);
+        if (!resource.exists()) {
+            System.err.println("[CityIndex] City boundaries not found at " + location + ", city lookups disabled");
+            return;
+        }
+        try (InputStream input = resource.getInputStream()) {
+            List<StrTree.Entry<CityRegion>> entries = new ArrayList<>();
+            for (JsonNode feature : objectMapper.readTree(input).path("features")) {
+                CityRegion region = toRegion(feature);
+                if (region != null) {
+                    entries.add(new StrTree.Entry<>(region.getMinLon(), region.getMinLat(), region.getMaxLon(), region.getMaxLat(), region));
+                }
+            }
+            tree = new StrTree<>(entries);
+            System.out.println("[CityIndex] Loaded " + entries.size() + " city boundaries from " + location);
+        } catch (Exception e) {
+            System.err.println("[CityIndex] Error loading city boundaries: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The most specific region containing the point (smallest one when regions are nested)
+     */
+    public Optional<CityRegion> findCity(double latitude, double longitude) {
+        CityRegion[] best = new CityRegion[1];
+        tree.query(longitude, latitude, region -> {
+            if ((best[0] == null || region.boundingArea() < best[0].boundingArea()) && region.contains(latitude, longitude)) {
+                best[0] = region;
+            }
+        });
+        return Optional.ofNullable(best[0]);
+    }
+
+    public String cityName(double latitude, double longitude) {
+        return findCity(latitude, longitude).map(CityRegion::getName).orElse(null);
+    }
+
+    /**
+     * Cost multiplier of the city containing the point, or the default outside known cities
+     */
+    public double costMultiplier(double latitude, double longitude) {
+        return findCity(latitude, longitude)
+            .map(CityRegion::getCostMultiplier)
+            .orElse(defaultCostMultiplier);
+    }
+
+    /**
+     * Partition key for city-level caching ("fr:paris"), "unknown" outside known cities
+     */
+    public String partitionKey(double latitude, double longitude) {
+        return findCity(latitude, longitude).map(CityRegion::getPartitionKey).orElse(UNKNOWN_PARTITION);
+    }
+
+    public double getDefaultCostMultiplier() {
+        return defaultCostMultiplier;
+    }
+
+    private CityRegion toRegion(JsonNode feature) {
+        JsonNode properties = feature.path("properties");
+        JsonNode geometry = feature.path("geometry");
+        String name = properties.path("name").asText(null);
+        if (name == null) {
+            return null;
+        }
+
+        List<List<double[]>> polygons = new ArrayList<>();
+        switch (geometry.path("type").asText()) {
+            case "Polygon" -> polygons.add(toPolygon(geometry.path("coordinates")));
+            case "MultiPolygon" -> geometry.path("coordinates").forEach(polygon -> polygons.add(toPolygon(polygon)));
+            default -> {
+                return null;
+            }
+        }
+        polygons.removeIf(List::isEmpty);
+        if (polygons.isEmpty()) {
+            return null;
+        }
+
+        Double costMultiplier = properties.hasNonNull("costMultiplier")
+            ? properties.get("costMultiplier").asDouble()
+            : defaultCostMultiplier;
+        return new CityRegion(name, properties.path("country").asText(null), costMultiplier, polygons);
+    }
+
+    private static List<double[]> toPolygon(JsonNode rings) {
+        List<double[]> polygon = new ArrayList<>();
+        for (JsonNode ring : rings) {
+            double[] points = new double[ring.size() * 2];
+            int i = 0;
+            for (JsonNode point : ring) {
+                points[i++] = point.get(0).asDouble();
+                points[i++] = point.get(1).asDouble();
+            }
+            if (points.length >= 6) {
+                polygon.add(points);
+            }
+        }
+        return polygon;
+    }
+}
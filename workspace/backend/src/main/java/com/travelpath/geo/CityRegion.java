@@ -0,0 +1,100 @@
+package com.travelpath.geo;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A city (or region) boundary: one or more polygons, each an outer ring followed by optional holes.
+ * Rings are stored as flat arrays of alternating longitude/latitude values.
+ */
+public class CityRegion {
+
+    private final String name;
+    private final String country;
+    private final Double costMultiplier;
+    private final List<List<double[]>> polygons;
+    private final double minLon;
+    private final double minLat;
+    private final double maxLon;
+    private final double maxLat;
+
+    public CityRegion(String name, String country, Double costMultiplier, List<List<double[]>> polygons) {
+        this.name = name;
+        this.country = country;
+        this.costMultiplier = costMultiplier;
+        this.polygons = polygons;
+
+        double minLon = Double.POSITIVE_INFINITY, minLat = Double.POSITIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        for (List<double[]> polygon : polygons) {
+            double[] outer = polygon.get(0);
+            for (int i = 0; i < outer.length; i += 2) {
+                minLon = Math.min(minLon, outer[i]);
+                maxLon = Math.max(maxLon, outer[i]);
+                minLat = Math.min(minLat, outer[i + 1]);
+                maxLat = Math.max(maxLat, outer[i + 1]);
+            }
+        }
+        this.minLon = minLon;
+        this.minLat = minLat;
+        this.maxLon = maxLon;
+        this.maxLat = maxLat;
+    }
+
+    /**
+     * Point-in-polygon test (ray casting), holes excluded
+     */
+    public boolean contains(double latitude, double longitude) {
+        for (List<double[]> polygon : polygons) {
+            if (ringContains(polygon.get(0), longitude, latitude)) {
+                boolean inHole = false;
+                for (int i = 1; i < polygon.size() && !inHole; i++) {
+                    inHole = ringContains(polygon.get(i), longitude, latitude);
+                }
+                if (!inHole) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean ringContains(double[] ring, double x, double y) {
+        boolean inside = false;
+        int points = ring.length / 2;
+        for (int i = 0, j = points - 1; i < points; j = i++) {
+            double xi = ring[2 * i], yi = ring[2 * i + 1];
+            double xj = ring[2 * j], yj = ring[2 * j + 1];
+            if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Stable key for city-level partitioning (caches, metrics), e.g. "fr:paris"
+     */
+    public String getPartitionKey() {
+        String slug = Normalizer.normalize(name, Normalizer.Form.NFD)
+            .replaceAll("\\p{M}", "")
+            .toLowerCase(Locale.ROOT)
+            .replaceAll("[^a-z0-9]+", "-")
+            .replaceAll("(^-|-$)", "");
+        return country != null ? country.toLowerCase(Locale.ROOT) + ":" + slug : slug;
+    }
+
+    /** Area of the bounding box in square degrees, used to prefer the most specific region */
+    double boundingArea() {
+        return (maxLon - minLon) * (maxLat - minLat);
+    }
+
+    public String getName() { return name; }
+    public String getCountry() { return country; }
+    public Double getCostMultiplier() { return costMultiplier; }
+    public double getMinLon() { return minLon; }
+    public double getMinLat() { return minLat; }
+    public double getMaxLon() { return maxLon; }
+    public double getMaxLat() { return maxLat; }
+}
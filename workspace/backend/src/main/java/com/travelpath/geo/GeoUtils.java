@@ -0,0 +1,58 @@
+package com.travelpath.geo;
+
+/**
+ * Small geodesic helpers shared by the spatial components
+ */
+public final class GeoUtils {
+    
+    public static final double EARTH_RADIUS_KM = 6371.0;
+    public static final double METERS_PER_DEGREE_LAT = 111_320.0;
+    
+    private GeoUtils() {}
+    
+    /**
+     * Great-circle (Haversine) distance in kilometers
+     */
+    public static double haversineKm(double fromLat, double fromLon, double toLat, double toLon) {
+        double dLat = Math.toRadians(toLat - fromLat);
+        double dLon = Math.toRadians(toLon - fromLon);
+        
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                   Math.cos(Math.toRadians(fromLat)) * Math.cos(Math.toRadians(toLat)) *
+                   Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+    
+    public static double haversineMeters(double fromLat, double fromLon, double toLat, double toLon) {
+        return haversineKm(fromLat, fromLon, toLat, toLon) * 1000.0;
+    }
+    
+    /**
+     * Meters covered by one degree of longitude at the given latitude
+     */
+    public static double metersPerDegreeLon(double latitude) {
+        return METERS_PER_DEGREE_LAT * Math.max(0.01, Math.cos(Math.toRadians(latitude)));
+    }
+    
+    /**
+     * Index of the tile containing a coordinate, on a grid of square tiles of the given size in degrees
+     */
+    public static long tileIndex(double value, double tileDegrees) {
+        return (long) Math.floor(value / tileDegrees);
+    }
+    
+    /**
+     * Center of a tile, rounded so the same tile always gives the same value (used in cache keys)
+     */
+    public static double tileCenter(long index, double tileDegrees) {
+        return Math.round((index + 0.5) * tileDegrees * 1_000_000d) / 1_000_000d;
+    }
+    
+    /**
+     * Snap a coordinate to the center of its tile
+     */
+    public static double snapToTile(double value, double tileDegrees) {
+        return tileCenter(tileIndex(value, tileDegrees), tileDegrees);
+    }
+}
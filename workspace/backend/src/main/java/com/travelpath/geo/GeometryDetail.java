@@ -0,0 +1,55 @@
+package com.travelpath.geo;
+
+/**
+ * Detail levels of route geometries, from the overview to the full ORS resolution.
+ * Each level is the Douglas-Peucker simplification of the route at a tolerance of about half
+ * a screen pixel at the zooms it is drawn at, so the simplification is not visible.
+ */
+public enum GeometryDetail {
+    LOW(50.0),    // Whole route on screen, zoom 11 and below
+    MEDIUM(10.0), // City district, zoom 12 to 14
+    HIGH(2.0),    // Street level, zoom 15 and 16
+    FULL(0.0);    // As returned by the routing service
+    
+    private final double toleranceMeters;
+    
+    GeometryDetail(double toleranceMeters) {
+        this.toleranceMeters = toleranceMeters;
+    }
+    
+    public double getToleranceMeters() {
+        return toleranceMeters;
+    }
+    
+    /**
+     * Level drawn at a map zoom
+     */
+    public static GeometryDetail forZoom(int zoom) {
+        if (zoom <= 11) {
+            return LOW;
+        }
+        if (zoom <= 14) {
+            return MEDIUM;
+        }
+        return zoom <= 16 ? HIGH : FULL;
+    }
+    
+    /**
+     * Level from a request parameter (low, medium, high or full)
+     * @throws IllegalArgumentException for any other value
+     */
+    public static GeometryDetail fromParam(String value) {
+        return GeometryDetail.valueOf(value.trim().toUpperCase());
+    }
+    
+    /**
+     * Level asked by the detail or zoom request parameters (detail first), or the default
+     * @throws IllegalArgumentException for an unknown detail value
+     */
+    public static GeometryDetail fromRequest(String detail, Integer zoom, GeometryDetail defaultLevel) {
+        if (detail != null) {
+            return fromParam(detail);
+        }
+        return zoom != null ? forZoom(zoom) : defaultLevel;
+    }
+}
@@ -0,0 +1,96 @@
+package com.travelpath.geo;
+
+/**
+ * Encoded polyline format (Google, precision 5: about 1 m), as decoded by the map SDKs.
+ * Each point is stored as the zigzag varint delta from the previous one, so a route costs
+ * a few bytes per point instead of two JSON doubles.
+ */
+public final class PolylineCodec {
+    
+    private static final double FACTOR = 1e5;
+    
+    private PolylineCodec() {}
+    
+    /**
+     * Encode [longitude, latitude] pairs (GeoJSON order, as returned by OpenRouteService)
+     */
+    public static String encodeLonLat(double[][] coordinates) {
+        StringBuilder encoded = new StringBuilder(coordinates.length * 8);
+        long previousLat = 0;
+        long previousLon = 0;
+        for (double[] point : coordinates) {
+            long lat = Math.round(point[1] * FACTOR);
+            long lon = Math.round(point[0] * FACTOR);
+            writeValue(encoded, lat - previousLat);
+            writeValue(encoded, lon - previousLon);
+            previousLat = lat;
+            previousLon = lon;
+        }
+        return encoded.toString();
+    }
+    
+    /**
+     * Decode to [longitude, latitude] pairs
+     * @throws IllegalArgumentException if the string is not a valid polyline
+     */
+    public static double[][] decodeLonLat(String encoded) {
+        double[][] points = new double[countPoints(encoded)][];
+        int index = 0;
+        long lat = 0;
+        long lon = 0;
+        for (int i = 0; i < points.length; i++) {
+            long[] value = readValue(encoded, index);
+            lat += value[0];
+            value = readValue(encoded, (int) value[1]);
+            lon += value[0];
+            index = (int) value[1];
+            points[i] = new double[]{lon / FACTOR, lat / FACTOR};
+        }
+        return points;
+    }
+    
+    /**
+     * Number of points in an encoded polyline (each value ends with a chunk below 0x20)
+     */
+    public static int countPoints(String encoded) {
+        int values = 0;
+        for (int i = 0; i < encoded.length(); i++) {
+            int chunk = encoded.charAt(i) - 63;
+            if (chunk < 0 || chunk > 0x3f) {
+                throw new IllegalArgumentException("Invalid polyline character at " + i);
+            }
+            if (chunk < 0x20) {
+                values++;
+            }
+        }
+        if (values % 2 != 0) {
+            throw new IllegalArgumentException("Truncated polyline");
+        }
+        return values / 2;
+    }
+    
+    private static void writeValue(StringBuilder encoded, long delta) {
+        long value = delta < 0 ? ~(delta << 1) : delta << 1;
+        while (value >= 0x20) {
+            encoded.append((char) ((0x20 | (value & 0x1f)) + 63));
+            value >>= 5;
+        }
+        encoded.append((char) (value + 63));
+    }
+    
+    /**
+     * Value starting at index, and the index after it
+     */
+    private static long[] readValue(String encoded, int index) {
+        long result = 0;
+        int shift = 0;
+        int chunk;
+        do {
+            chunk = encoded.charAt(index++) - 63;
+            result |= (long) (chunk & 0x1f) << shift;
+            shift += 5;
+        } while (chunk >= 0x20);
+        long value = (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+        return new long[]{value, index};
+    }
+}
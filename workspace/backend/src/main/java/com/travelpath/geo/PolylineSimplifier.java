@@ -0,0 +1,89 @@
+package com.travelpath.geo;
+
+/**
+ * Douglas-Peucker simplification of [longitude, latitude] lines, with the tolerance in meters.
+ * Points are projected on a local equirectangular plane (exact enough at route scale), and the
+ * recursion runs on an explicit stack so long routes cannot overflow the thread stack.
+ */
+public final class PolylineSimplifier {
+    
+    private PolylineSimplifier() {}
+    
+    /**
+     * Subset of the points (first and last always kept) such that no dropped point is farther
+     * than toleranceMeters from the simplified line; the input itself if nothing can be dropped
+     */
+    public static double[][] simplify(double[][] points, double toleranceMeters) {
+        int n = points.length;
+        if (n < 3 || toleranceMeters <= 0) {
+            return points;
+        }
+        
+        double referenceLat = points[0][1];
+        double metersPerDegreeLon = GeoUtils.metersPerDegreeLon(referenceLat);
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = points[i][0] * metersPerDegreeLon;
+            y[i] = points[i][1] * GeoUtils.METERS_PER_DEGREE_LAT;
+        }
+        
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        double toleranceSquared = toleranceMeters * toleranceMeters;
+        int[] stack = new int[2 * n];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            int farthest = -1;
+            double farthestDistance = toleranceSquared;
+            for (int i = first + 1; i < last; i++) {
+                double distance = segmentDistanceSquared(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (distance > farthestDistance) {
+                    farthest = i;
+                    farthestDistance = distance;
+                }
+            }
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+        
+        int kept = 0;
+        for (boolean k : keep) {
+            if (k) {
+                kept++;
+            }
+        }
+        if (kept == n) {
+            return points;
+        }
+        double[][] simplified = new double[kept][];
+        int j = 0;
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                simplified[j++] = points[i];
+            }
+        }
+        return simplified;
+    }
+    
+    private static double segmentDistanceSquared(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double ex = ax + t * dx - px;
+        double ey = ay + t * dy - py;
+        return ex * ex + ey * ey;
+    }
+}
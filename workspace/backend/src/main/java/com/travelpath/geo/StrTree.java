@@ -0,0 +1,135 @@
+package com.travelpath.geo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Static R-tree built with Sort-Tile-Recursive packing.
+ * Items are indexed by their bounding box (x = longitude, y = latitude); the tree is
+ * built once and is read-only afterwards, so lookups need no locking.
+ */
+public class StrTree<T> {
+
+    private static final int NODE_CAPACITY = 16;
+
+    private final Node root;
+    private final int size;
+
+    public StrTree(List<Entry<T>> entries) {
+        this.size = entries.size();
+        List<Node> level = new ArrayList<>();
+        for (Entry<T> entry : entries) {
+            level.add(new Node(entry.minX, entry.minY, entry.maxX, entry.maxY, entry.item, null));
+        }
+        while (level.size() > 1) {
+            level = pack(level);
+        }
+        this.root = level.isEmpty() ? null : level.get(0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Visit every item whose bounding box contains the point
+     */
+    public void query(double x, double y, Consumer<T> visitor) {
+        if (root != null) {
+            query(root, x, y, visitor);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void query(Node node, double x, double y, Consumer<T> visitor) {
+        if (x < node.minX || x > node.maxX || y < node.minY || y > node.maxY) {
+            return;
+        }
+        if (node.children == null) {
+            visitor.accept((T) node.item);
+            return;
+        }
+        for (Node child : node.children) {
+            query(child, x, y, visitor);
+        }
+    }
+
+    /**
+     * One level of STR packing: sort by x into vertical slices, sort each slice by y, group by NODE_CAPACITY
+     */
+    private static List<Node> pack(List<Node> nodes) {
+        int parentCount = (int) Math.ceil(nodes.size() / (double) NODE_CAPACITY);
+        int sliceCount = (int) Math.ceil(Math.sqrt(parentCount));
+        int sliceSize = sliceCount * NODE_CAPACITY;
+
+        List<Node> sorted = new ArrayList<>(nodes);
+        sorted.sort(Comparator.comparingDouble(Node::centerX));
+
+        List<Node> parents = new ArrayList<>(parentCount);
+        for (int sliceStart = 0; sliceStart < sorted.size(); sliceStart += sliceSize) {
+            List<Node> slice = new ArrayList<>(sorted.subList(sliceStart, Math.min(sliceStart + sliceSize, sorted.size())));
+            slice.sort(Comparator.comparingDouble(Node::centerY));
+            for (int start = 0; start < slice.size(); start += NODE_CAPACITY) {
+                List<Node> children = slice.subList(start, Math.min(start + NODE_CAPACITY, slice.size()));
+                parents.add(Node.parentOf(new ArrayList<>(children)));
+            }
+        }
+        return parents;
+    }
+
+    private static class Node {
+        final double minX;
+        final double minY;
+        final double maxX;
+        final double maxY;
+        final Object item;
+        final List<Node> children;
+
+        Node(double minX, double minY, double maxX, double maxY, Object item, List<Node> children) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.item = item;
+            this.children = children;
+        }
+
+        static Node parentOf(List<Node> children) {
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (Node child : children) {
+                minX = Math.min(minX, child.minX);
+                minY = Math.min(minY, child.minY);
+                maxX = Math.max(maxX, child.maxX);
+                maxY = Math.max(maxY, child.maxY);
+            }
+            return new Node(minX, minY, maxX, maxY, null, children);
+        }
+
+        double centerX() { return (minX + maxX) / 2; }
+        double centerY() { return (minY + maxY) / 2; }
+    }
+
+    /**
+     * An item with its bounding box
+     */
+    public static class Entry<T> {
+        private final double minX;
+        private final double minY;
+        private final double maxX;
+        private final double maxY;
+        private final T item;
+
+        public Entry(double minX, double minY, double maxX, double maxY, T item) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.item = item;
+        }
+
+        public T getItem() { return item; }
+    }
+}
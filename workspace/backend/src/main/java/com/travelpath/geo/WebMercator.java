@@ -0,0 +1,49 @@
+package com.travelpath.geo;
+
+/**
+ * Slippy-map tile math (Web Mercator, 256 px tiles as used by OpenStreetMap)
+ */
+public final class WebMercator {
+    
+    /** Latitude limit of the Web Mercator projection */
+    public static final double MAX_LATITUDE = 85.05112878;
+    
+    private WebMercator() {}
+    
+    /**
+     * Fractional tile x of a longitude at the given zoom
+     */
+    public static double tileX(double longitude, int zoom) {
+        return (longitude + 180.0) / 360.0 * (1 << zoom);
+    }
+    
+    /**
+     * Fractional tile y of a latitude at the given zoom (0 at the top)
+     */
+    public static double tileY(double latitude, int zoom) {
+        double lat = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        return (1.0 - Math.log(Math.tan(lat) + 1.0 / Math.cos(lat)) / Math.PI) / 2.0 * (1 << zoom);
+    }
+    
+    /**
+     * Longitude of the west edge of tile column x
+     */
+    public static double tileLongitude(int x, int zoom) {
+        return x / (double) (1 << zoom) * 360.0 - 180.0;
+    }
+    
+    /**
+     * Latitude of the north edge of tile row y
+     */
+    public static double tileLatitude(int y, int zoom) {
+        double n = Math.PI - 2.0 * Math.PI * y / (1 << zoom);
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+    
+    /**
+     * Clamp a tile index to the tiles that exist at this zoom
+     */
+    public static int clampTile(double tile, int zoom) {
+        return (int) Math.max(0, Math.min((1 << zoom) - 1, Math.floor(tile)));
+    }
+}
@@ -0,0 +1,57 @@
+package com.travelpath.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persistent tier of the directions cache (see DirectionsService)
+ */
+@Entity
+@Table(name = "directions_cache")
+public class CachedDirections {
+    
+    @Id
+    private String cacheKey; // Profile and quantised endpoints
+    
+    private double distanceMeters;
+    
+    private double durationSeconds;
+    
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String polyline; // Encoded polyline, precision 5
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    public CachedDirections() {}
+    
+    public CachedDirections(String cacheKey, double distanceMeters, double durationSeconds, String polyline) {
+        this.cacheKey = cacheKey;
+        this.distanceMeters = distanceMeters;
+        this.durationSeconds = durationSeconds;
+        this.polyline = polyline;
+    }
+    
+    // Getters and Setters
+    public String getCacheKey() { return cacheKey; }
+    public void setCacheKey(String cacheKey) { this.cacheKey = cacheKey; }
+    
+    public double getDistanceMeters() { return distanceMeters; }
+    public void setDistanceMeters(double distanceMeters) { this.distanceMeters = distanceMeters; }
+    
+    public double getDurationSeconds() { return durationSeconds; }
+    public void setDurationSeconds(double durationSeconds) { this.durationSeconds = durationSeconds; }
+    
+    public String getPolyline() { return polyline; }
+    public void setPolyline(String polyline) { this.polyline = polyline; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -39,6 +39,8 @@ public class Place {
     
     private Integer estimatedWaitTime; // in minutes
     
+    private String provider; // google, yelp or overpass
+    
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
@@ -104,6 +106,9 @@ public class Place {
     public Integer getEstimatedWaitTime() { return estimatedWaitTime; }
     public void setEstimatedWaitTime(Integer estimatedWaitTime) { this.estimatedWaitTime = estimatedWaitTime; }
     
+    public String getProvider() { return provider; }
+    public void setProvider(String provider) { this.provider = provider; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
@@ -0,0 +1,50 @@
+package com.travelpath.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Provider id of a place that was merged into another (canonical) place
+ */
+@Entity
+@Table(name = "place_aliases", indexes = @Index(name = "idx_place_aliases_canonical", columnList = "canonical_id"))
+public class PlaceAlias {
+    
+    @Id
+    private String aliasId; // Provider id (Google id, Yelp id or osm_<id>)
+    
+    @Column(name = "canonical_id", nullable = false)
+    private String canonicalId;
+    
+    private String provider;
+    
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    public PlaceAlias() {}
+    
+    public PlaceAlias(String aliasId, String canonicalId, String provider) {
+        this.aliasId = aliasId;
+        this.canonicalId = canonicalId;
+        this.provider = provider;
+    }
+    
+    // Getters and Setters
+    public String getAliasId() { return aliasId; }
+    public void setAliasId(String aliasId) { this.aliasId = aliasId; }
+    
+    public String getCanonicalId() { return canonicalId; }
+    public void setCanonicalId(String canonicalId) { this.canonicalId = canonicalId; }
+    
+    public String getProvider() { return provider; }
+    public void setProvider(String provider) { this.provider = provider; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -52,10 +52,38 @@ public class Route {
     @Column(nullable = false)
     private Boolean isFavorite = false;
     
-    // Store steps as JSON string instead of separate entities to avoid session conflicts
+    // Steps are stored in the route row instead of separate entities to avoid session conflicts,
+    // in the compact binary form of RouteStepsCodec
+    @Column(name = "steps_data")
+    private byte[] stepsData;
+    
+    // Former JSON text of the steps: only rows saved before steps_data, converted at startup
     @Column(name = "steps_json", columnDefinition = "TEXT")
     private String stepsJson;
     
+    // Summary of the steps, so route lists are built without decoding them
+    @Column(name = "step_count")
+    private Integer stepCount;
+    
+    @Column(name = "first_place_id")
+    private String firstPlaceId;
+    
+    @Column(name = "first_place_name")
+    private String firstPlaceName;
+    
+    // Bounding box of the places of the steps
+    @Column(name = "min_latitude")
+    private Double minLatitude;
+    
+    @Column(name = "min_longitude")
+    private Double minLongitude;
+    
+    @Column(name = "max_latitude")
+    private Double maxLatitude;
+    
+    @Column(name = "max_longitude")
+    private Double maxLongitude;
+    
     @OneToMany(mappedBy = "route", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Step> steps;
     
@@ -101,9 +129,33 @@ public class Route {
     public Boolean getIsFavorite() { return isFavorite; }
     public void setIsFavorite(Boolean isFavorite) { this.isFavorite = isFavorite; }
     
+    public byte[] getStepsData() { return stepsData; }
+    public void setStepsData(byte[] stepsData) { this.stepsData = stepsData; }
+    
     public String getStepsJson() { return stepsJson; }
     public void setStepsJson(String stepsJson) { this.stepsJson = stepsJson; }
     
+    public Integer getStepCount() { return stepCount; }
+    public void setStepCount(Integer stepCount) { this.stepCount = stepCount; }
+    
+    public String getFirstPlaceId() { return firstPlaceId; }
+    public void setFirstPlaceId(String firstPlaceId) { this.firstPlaceId = firstPlaceId; }
+    
+    public String getFirstPlaceName() { return firstPlaceName; }
+    public void setFirstPlaceName(String firstPlaceName) { this.firstPlaceName = firstPlaceName; }
+    
+    public Double getMinLatitude() { return minLatitude; }
+    public void setMinLatitude(Double minLatitude) { this.minLatitude = minLatitude; }
+    
+    public Double getMinLongitude() { return minLongitude; }
+    public void setMinLongitude(Double minLongitude) { this.minLongitude = minLongitude; }
+    
+    public Double getMaxLatitude() { return maxLatitude; }
+    public void setMaxLatitude(Double maxLatitude) { this.maxLatitude = maxLatitude; }
+    
+    public Double getMaxLongitude() { return maxLongitude; }
+    public void setMaxLongitude(Double maxLongitude) { this.maxLongitude = maxLongitude; }
+    
     public List<Step> getSteps() { return steps; }
     public void setSteps(List<Step> steps) { this.steps = steps; }
     
@@ -0,0 +1,40 @@
+package com.travelpath.repository;
+
+import com.travelpath.model.CachedDirections;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface CachedDirectionsRepository extends JpaRepository<CachedDirections, String> {
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CachedDirections d WHERE d.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+    
+    /**
+     * Insert or replace one entry, in its own transaction: two requests storing the same leg
+     * at once cannot fail the transaction of the caller (e.g. a route generation)
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "INSERT INTO directions_cache (cache_key, distance_meters, duration_seconds, polyline, created_at) " +
+                   "VALUES (:key, :distance, :duration, :polyline, :createdAt) " +
+                   "ON CONFLICT (cache_key) DO UPDATE SET distance_meters = EXCLUDED.distance_meters, " +
+                   "duration_seconds = EXCLUDED.duration_seconds, polyline = EXCLUDED.polyline, created_at = EXCLUDED.created_at",
+           nativeQuery = true)
+    int upsert(
+        @Param("key") String key,
+        @Param("distance") double distanceMeters,
+        @Param("duration") double durationSeconds,
+        @Param("polyline") String polyline,
+        @Param("createdAt") LocalDateTime createdAt
+    );
+}
@@ -0,0 +1,13 @@
+package com.travelpath.repository;
+
+import com.travelpath.model.PlaceAlias;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PlaceAliasRepository extends JpaRepository<PlaceAlias, String> {
+    
+    List<PlaceAlias> findByCanonicalId(String canonicalId);
+}
@@ -10,7 +10,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface PlaceRepository extends JpaRepository<Place, String> {
+public interface PlaceRepository extends JpaRepository<Place, String>, PlaceRepositoryCustom {
     
     List<Place> findByCategory(PlaceCategory category);
     
@@ -36,5 +36,29 @@ public interface PlaceRepository extends JpaRepository<Place, String> {
         @Param("radius") double radiusKm,
         @Param("category") String category
     );
+    
+    /**
+     * Tiles (row, column on a grid of tileDegrees) and categories holding the most places,
+     * returned as [tileY, tileX, category, count]
+     */
+    @Query(value = "SELECT floor(latitude / :tile) AS tile_y, floor(longitude / :tile) AS tile_x, " +
+           "category, count(*) AS places FROM places " +
+           "GROUP BY tile_y, tile_x, category ORDER BY places DESC LIMIT :limit",
+           nativeQuery = true)
+    List<Object[]> findDensestTiles(
+        @Param("tile") double tileDegrees,
+        @Param("limit") int limit
+    );
+    
+    /**
+     * Lightweight rows for in-memory indexes: [id, name, category, latitude, longitude]
+     */
+    @Query("SELECT p.id, p.name, p.category, p.latitude, p.longitude FROM Place p")
+    List<Object[]> findAllMarkers();
+    
+    /**
+     * Rows for the autocomplete index: [id, name, address, category, latitude, longitude]
+     */
+    @Query("SELECT p.id, p.name, p.address, p.category, p.latitude, p.longitude FROM Place p")
+    List<Object[]> findAllForSearch();
 }
-
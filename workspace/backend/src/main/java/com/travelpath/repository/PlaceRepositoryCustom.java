@@ -0,0 +1,29 @@
+package com.travelpath.repository;
+
+import java.util.List;
+
+/**
+ * Place queries built at runtime (column projection), implemented in PlaceRepositoryCustomImpl
+ */
+public interface PlaceRepositoryCustom {
+    
+    /**
+     * One page of places of a category within the radius, ordered by distance then id (keyset pagination).
+     * Each row holds the distance in km, the id, then the requested columns in order.
+     *
+     * @param columns place columns to select (validated by the caller)
+     * @param afterDistanceKm distance of the last row of the previous page, null for the first page
+     * @param afterId id of the last row of the previous page, null for the first page
+     * @param limit maximum number of rows, null for no limit
+     */
+    List<Object[]> findPageByDistance(
+        double latitude,
+        double longitude,
+        double radiusKm,
+        String category,
+        List<String> columns,
+        Double afterDistanceKm,
+        String afterId,
+        Integer limit
+    );
+}
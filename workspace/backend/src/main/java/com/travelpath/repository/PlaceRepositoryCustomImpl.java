@@ -0,0 +1,59 @@
+package com.travelpath.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.List;
+
+public class PlaceRepositoryCustomImpl implements PlaceRepositoryCustom {
+    
+    // Same haversine formula as the @Query methods, clamped so rounding never pushes acos out of [-1, 1]
+    private static final String DISTANCE_KM =
+        "6371 * acos(least(1.0, greatest(-1.0, cos(radians(:lat)) * cos(radians(latitude)) * " +
+        "cos(radians(longitude) - radians(:lng)) + sin(radians(:lat)) * sin(radians(latitude)))))";
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findPageByDistance(
+        double latitude,
+        double longitude,
+        double radiusKm,
+        String category,
+        List<String> columns,
+        Double afterDistanceKm,
+        String afterId,
+        Integer limit
+    ) {
+        StringBuilder sql = new StringBuilder("SELECT distance_km, id");
+        for (String column : columns) {
+            sql.append(", ").append(column);
+        }
+        sql.append(" FROM (SELECT p.*, ").append(DISTANCE_KM).append(" AS distance_km FROM places p")
+            .append(" WHERE category = :category) ranked WHERE distance_km <= :radius");
+        if (afterDistanceKm != null && afterId != null) {
+            sql.append(" AND (distance_km > :afterDistance OR (distance_km = :afterDistance AND id > :afterId))");
+        }
+        sql.append(" ORDER BY distance_km, id");
+        if (limit != null) {
+            sql.append(" LIMIT :limit");
+        }
+        
+        Query query = entityManager.createNativeQuery(sql.toString())
+            .setParameter("lat", latitude)
+            .setParameter("lng", longitude)
+            .setParameter("radius", radiusKm)
+            .setParameter("category", category);
+        if (afterDistanceKm != null && afterId != null) {
+            query.setParameter("afterDistance", afterDistanceKm);
+            query.setParameter("afterId", afterId);
+        }
+        if (limit != null) {
+            query.setParameter("limit", limit);
+        }
+        return query.getResultList();
+    }
+}
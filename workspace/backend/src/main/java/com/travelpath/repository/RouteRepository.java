@@ -1,7 +1,10 @@
 package com.travelpath.repository;
 
+import com.travelpath.dto.RouteSummary;
 import com.travelpath.model.Route;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -33,5 +36,41 @@ public interface RouteRepository extends JpaRepository<Route, String> {
     List<Route> findSavedRoutesByUserIdStringIsNull();
     
     Optional<Route> findByIdAndUserId(String id, String userId);
+    
+    // Route lists from the summary columns only: the steps are not read
+    @Query("SELECT new com.travelpath.dto.RouteSummary(r.id, r.name, r.routeType, r.totalBudget, r.totalDuration, "
+        + "r.transportationMode, r.city, r.isFavorite, r.stepCount, r.firstPlaceId, r.firstPlaceName, "
+        + "r.minLatitude, r.minLongitude, r.maxLatitude, r.maxLongitude) "
+        + "FROM Route r WHERE (r.userIdString = :userId OR (r.user IS NOT NULL AND r.user.id = :userId)) "
+        + "AND r.isSaved = true ORDER BY r.createdAt DESC")
+    List<RouteSummary> findSavedRouteSummariesByUser(@Param("userId") String userId);
+    
+    @Query("SELECT new com.travelpath.dto.RouteSummary(r.id, r.name, r.routeType, r.totalBudget, r.totalDuration, "
+        + "r.transportationMode, r.city, r.isFavorite, r.stepCount, r.firstPlaceId, r.firstPlaceName, "
+        + "r.minLatitude, r.minLongitude, r.maxLatitude, r.maxLongitude) "
+        + "FROM Route r WHERE r.user IS NULL AND r.isSaved = true ORDER BY r.createdAt DESC")
+    List<RouteSummary> findSavedRouteSummariesWithoutUser();
+    
+    // [id, stepsJson] of the rows still holding their steps as JSON text (saved before steps_data), by id after afterId
+    @Query("SELECT r.id, r.stepsJson FROM Route r WHERE r.stepsData IS NULL AND r.stepsJson IS NOT NULL AND r.id > :afterId ORDER BY r.id")
+    List<Object[]> findJsonStepsAfter(@Param("afterId") String afterId, Pageable pageable);
+    
+    // Writes the converted steps and summary columns only, and only if the steps were not saved again meanwhile
+    @Modifying
+    @Query("UPDATE Route r SET r.stepsData = :stepsData, r.stepsJson = NULL, r.stepCount = :stepCount, "
+        + "r.firstPlaceId = :firstPlaceId, r.firstPlaceName = :firstPlaceName, "
+        + "r.minLatitude = :minLatitude, r.minLongitude = :minLongitude, r.maxLatitude = :maxLatitude, r.maxLongitude = :maxLongitude "
+        + "WHERE r.id = :id AND r.stepsData IS NULL")
+    int storeConvertedSteps(
+        @Param("id") String id,
+        @Param("stepsData") byte[] stepsData,
+        @Param("stepCount") Integer stepCount,
+        @Param("firstPlaceId") String firstPlaceId,
+        @Param("firstPlaceName") String firstPlaceName,
+        @Param("minLatitude") Double minLatitude,
+        @Param("minLongitude") Double minLongitude,
+        @Param("maxLatitude") Double maxLatitude,
+        @Param("maxLongitude") Double maxLongitude
+    );
 }
 
@@ -0,0 +1,544 @@
+package com.travelpath.routing;
+
+import java.util.Arrays;
+
+/**
+ * Contraction hierarchy of a RoadGraph for one profile, so queries only explore the few hundred
+ * nodes above each point instead of the whole city.
+ * Nodes are contracted one by one, least important first (edge difference, original edges
+ * covered by the shortcuts, contracted neighbours and hierarchy level; re-evaluated lazily when
+ * popped); the two edges through a contracted node are replaced by a shortcut unless a local
+ * witness search finds a path at least as fast without it. Queries only follow edges towards
+ * more important nodes, pruned by stall-on-demand; matrices use the bucket method (one backward
+ * search per target, one forward search per source).
+ */
+public class ContractionHierarchy {
+
+    /** Nodes settled by a witness search at most: a smaller limit only adds (harmless) shortcuts */
+    private static final int WITNESS_SETTLE_LIMIT = 300;
+
+    /** Same, when only counting the shortcuts of a node for its priority */
+    private static final int PRIORITY_SETTLE_LIMIT = 60;
+
+    /**
+     * Receives the fastest path found between a source and a target (their indexes in the query)
+     */
+    public interface PathConsumer {
+        void accept(int source, int target, double seconds, double meters);
+    }
+
+    private final int nodeCount;
+
+    // Edges towards a more important node, by tail: forward searches
+    private final int[] upFirst;
+    private final int[] upHead;
+    private final float[] upSeconds;
+    private final float[] upMeters;
+
+    // Edges from a more important node, by head (upTail is the more important tail): backward searches
+    private final int[] downFirst;
+    private final int[] downTail;
+    private final float[] downSeconds;
+    private final float[] downMeters;
+
+    private ContractionHierarchy(int nodeCount, int[] upFirst, int[] upHead, float[] upSeconds, float[] upMeters,
+                                 int[] downFirst, int[] downTail, float[] downSeconds, float[] downMeters) {
+        this.nodeCount = nodeCount;
+        this.upFirst = upFirst;
+        this.upHead = upHead;
+        this.upSeconds = upSeconds;
+        this.upMeters = upMeters;
+        this.downFirst = downFirst;
+        this.downTail = downTail;
+        this.downSeconds = downSeconds;
+        this.downMeters = downMeters;
+    }
+
+    /**
+     * Contract the edges of the graph usable by the profile
+     */
+    public static ContractionHierarchy build(RoadGraph graph, RoutingProfile profile) {
+        return new Builder(graph, profile).build();
+    }
+
+    /**
+     * Edges of the hierarchy, shortcuts included
+     */
+    public int edgeCount() {
+        return upHead.length + downTail.length;
+    }
+
+    /**
+     * Fastest paths from every source node to every target node (-1 for points with no node);
+     * pairs without a path are not reported
+     */
+    public void manyToMany(int[] sources, int[] targets, PathConsumer consumer) {
+        Search search = new Search(nodeCount);
+
+        // Buckets: for every node reached upwards from a target, the targets and their distances
+        int[] bucketHead = new int[nodeCount];
+        Arrays.fill(bucketHead, -1);
+        int[] entryTarget = new int[64];
+        double[] entrySeconds = new double[64];
+        double[] entryMeters = new double[64];
+        int[] entryNext = new int[64];
+        int entries = 0;
+        for (int j = 0; j < targets.length; j++) {
+            if (targets[j] < 0) {
+                continue;
+            }
+            int settled = search.run(targets[j], downFirst, downTail, downSeconds, downMeters, upFirst, upHead, upSeconds);
+            for (int k = 0; k < settled; k++) {
+                int node = search.settled[k];
+                if (entries == entryTarget.length) {
+                    entryTarget = Arrays.copyOf(entryTarget, entries * 2);
+                    entrySeconds = Arrays.copyOf(entrySeconds, entries * 2);
+                    entryMeters = Arrays.copyOf(entryMeters, entries * 2);
+                    entryNext = Arrays.copyOf(entryNext, entries * 2);
+                }
+                entryTarget[entries] = j;
+                entrySeconds[entries] = search.seconds[node];
+                entryMeters[entries] = search.meters[node];
+                entryNext[entries] = bucketHead[node];
+                bucketHead[node] = entries++;
+            }
+            search.reset();
+        }
+
+        double[] bestSeconds = new double[targets.length];
+        double[] bestMeters = new double[targets.length];
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i] < 0) {
+                continue;
+            }
+            Arrays.fill(bestSeconds, Double.POSITIVE_INFINITY);
+            int settled = search.run(sources[i], upFirst, upHead, upSeconds, upMeters, downFirst, downTail, downSeconds);
+            for (int k = 0; k < settled; k++) {
+                int node = search.settled[k];
+                for (int entry = bucketHead[node]; entry >= 0; entry = entryNext[entry]) {
+                    double seconds = search.seconds[node] + entrySeconds[entry];
+                    int j = entryTarget[entry];
+                    if (seconds < bestSeconds[j]) {
+                        bestSeconds[j] = seconds;
+                        bestMeters[j] = search.meters[node] + entryMeters[entry];
+                    }
+                }
+            }
+            search.reset();
+            for (int j = 0; j < targets.length; j++) {
+                if (bestSeconds[j] < Double.POSITIVE_INFINITY) {
+                    consumer.accept(i, j, bestSeconds[j], bestMeters[j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Upward Dijkstra over one direction of the hierarchy, with stall-on-demand: a node reached
+     * faster through a more important neighbour (edges of the other direction) is not expanded
+     */
+    private static class Search {
+        final double[] seconds;
+        final double[] meters;
+        final int[] settled;
+        private final int[] touched;
+        private int touchedCount;
+        private final NodeHeap heap = new NodeHeap();
+
+        Search(int nodeCount) {
+            seconds = new double[nodeCount];
+            meters = new double[nodeCount];
+            settled = new int[nodeCount];
+            touched = new int[nodeCount];
+            Arrays.fill(seconds, Double.POSITIVE_INFINITY);
+        }
+
+        /**
+         * @return number of nodes settled (and not stalled), listed in settled
+         */
+        int run(int source, int[] first, int[] head, float[] edgeSeconds, float[] edgeMeters,
+                int[] stallFirst, int[] stallHead, float[] stallSeconds) {
+            int settledCount = 0;
+            heap.clear();
+            touch(source, 0, 0);
+            heap.push(source, 0);
+            while (!heap.isEmpty()) {
+                double key = heap.peekKey();
+                int node = heap.pop();
+                if (key > seconds[node]) {
+                    continue;
+                }
+                if (isStalled(node, stallFirst, stallHead, stallSeconds)) {
+                    continue;
+                }
+                settled[settledCount++] = node;
+                for (int edge = first[node]; edge < first[node + 1]; edge++) {
+                    int next = head[edge];
+                    double arrival = key + edgeSeconds[edge];
+                    if (arrival < seconds[next]) {
+                        touch(next, arrival, meters[node] + edgeMeters[edge]);
+                        heap.push(next, arrival);
+                    }
+                }
+            }
+            return settledCount;
+        }
+
+        private boolean isStalled(int node, int[] stallFirst, int[] stallHead, float[] stallSeconds) {
+            for (int edge = stallFirst[node]; edge < stallFirst[node + 1]; edge++) {
+                if (seconds[stallHead[edge]] + stallSeconds[edge] < seconds[node]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void touch(int node, double time, double length) {
+            if (seconds[node] == Double.POSITIVE_INFINITY) {
+                touched[touchedCount++] = node;
+            }
+            seconds[node] = time;
+            meters[node] = length;
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                seconds[touched[i]] = Double.POSITIVE_INFINITY;
+            }
+            touchedCount = 0;
+        }
+    }
+
+    /**
+     * Contraction state: edges (original and shortcuts) in growing arrays, with per-node lists of
+     * the edges still between uncontracted nodes
+     */
+    private static class Builder {
+        private final int n;
+
+        private int[] edgeTail = new int[1024];
+        private int[] edgeHead = new int[1024];
+        private double[] edgeSeconds = new double[1024];
+        private double[] edgeMeters = new double[1024];
+        private int[] edgeHops = new int[1024];
+        private int edgeCount = 0;
+        private int shortcutHops;
+
+        private final int[][] outEdges;
+        private final int[] outCount;
+        private final int[][] inEdges;
+        private final int[] inCount;
+
+        private final boolean[] contracted;
+        private final int[] rank;
+        private final int[] contractedNeighbours;
+        private final int[] level;
+        private final double[] priority;
+
+        // Witness searches
+        private final double[] witnessSeconds;
+        private final int[] witnessTouched;
+        private int witnessTouchedCount;
+        private final NodeHeap witnessHeap = new NodeHeap();
+
+        Builder(RoadGraph graph, RoutingProfile profile) {
+            n = graph.nodeCount();
+            outEdges = new int[n][];
+            outCount = new int[n];
+            inEdges = new int[n][];
+            inCount = new int[n];
+            contracted = new boolean[n];
+            rank = new int[n];
+            contractedNeighbours = new int[n];
+            level = new int[n];
+            priority = new double[n];
+            witnessSeconds = new double[n];
+            witnessTouched = new int[n];
+            Arrays.fill(witnessSeconds, Double.POSITIVE_INFINITY);
+
+            for (int node = 0; node < n; node++) {
+                for (int edge = graph.firstEdge(node); edge < graph.endEdge(node); edge++) {
+                    int head = graph.target(edge);
+                    double seconds = graph.seconds(edge, profile);
+                    if (head != node && graph.allows(edge, profile) && Double.isFinite(seconds)) {
+                        addEdge(node, head, seconds, graph.meters(edge), 1);
+                    }
+                }
+            }
+        }
+
+        ContractionHierarchy build() {
+            NodeHeap queue = new NodeHeap();
+            for (int node = 0; node < n; node++) {
+                priority[node] = priority(node);
+                queue.push(node, priority[node]);
+            }
+            int order = 0;
+            while (!queue.isEmpty()) {
+                double key = queue.peekKey();
+                int node = queue.pop();
+                if (contracted[node] || key != priority[node]) {
+                    continue;
+                }
+                // Lazy update: contract only if still the least important node
+                double current = priority(node);
+                if (!queue.isEmpty() && current > queue.peekKey()) {
+                    priority[node] = current;
+                    queue.push(node, current);
+                    continue;
+                }
+                contract(node, false);
+                contracted[node] = true;
+                rank[node] = order++;
+                for (int neighbour : liveNeighbours(node)) {
+                    contractedNeighbours[neighbour]++;
+                    level[neighbour] = Math.max(level[neighbour], level[node] + 1);
+                    dropContracted(neighbour);
+                    // Cheap bump only: the exact priority is recomputed when the neighbour is popped
+                    priority[neighbour] += 1;
+                    queue.push(neighbour, priority[neighbour]);
+                }
+            }
+            return toHierarchy();
+        }
+
+        private double priority(int node) {
+            int removed = 0;
+            int removedHops = 0;
+            for (int i = 0; i < inCount[node]; i++) {
+                int e = inEdges[node][i];
+                if (!contracted[edgeTail[e]]) {
+                    removed++;
+                    removedHops += edgeHops[e];
+                }
+            }
+            for (int i = 0; i < outCount[node]; i++) {
+                int e = outEdges[node][i];
+                if (!contracted[edgeHead[e]]) {
+                    removed++;
+                    removedHops += edgeHops[e];
+                }
+            }
+            int shortcuts = contract(node, true);
+            return 2 * (shortcuts - removed) + (shortcutHops - removedHops) + contractedNeighbours[node] + level[node];
+        }
+
+        /**
+         * Shortcuts needed to contract the node, added unless simulating
+         * @return number of shortcuts
+         */
+        private int contract(int node, boolean simulate) {
+            int shortcuts = 0;
+            shortcutHops = 0;
+            for (int i = 0; i < inCount[node]; i++) {
+                int in = inEdges[node][i];
+                int tail = edgeTail[in];
+                if (contracted[tail]) {
+                    continue;
+                }
+                double maxSeconds = -1;
+                for (int k = 0; k < outCount[node]; k++) {
+                    int out = outEdges[node][k];
+                    if (!contracted[edgeHead[out]] && edgeHead[out] != tail) {
+                        maxSeconds = Math.max(maxSeconds, edgeSeconds[in] + edgeSeconds[out]);
+                    }
+                }
+                if (maxSeconds < 0) {
+                    continue;
+                }
+                witnessSearch(tail, node, maxSeconds, simulate ? PRIORITY_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT);
+                for (int k = 0; k < outCount[node]; k++) {
+                    int out = outEdges[node][k];
+                    int head = edgeHead[out];
+                    double via = edgeSeconds[in] + edgeSeconds[out];
+                    if (contracted[head] || head == tail || witnessSeconds[head] <= via) {
+                        continue;
+                    }
+                    shortcuts++;
+                    shortcutHops += edgeHops[in] + edgeHops[out];
+                    if (!simulate) {
+                        addShortcut(tail, head, via, edgeMeters[in] + edgeMeters[out], edgeHops[in] + edgeHops[out]);
+                    }
+                }
+                resetWitness();
+            }
+            return shortcuts;
+        }
+
+        /**
+         * Dijkstra from source over the uncontracted nodes other than skipped, up to maxSeconds
+         * or limit settled nodes; times are left in witnessSeconds
+         */
+        private void witnessSearch(int source, int skipped, double maxSeconds, int limit) {
+            witnessHeap.clear();
+            touchWitness(source, 0);
+            witnessHeap.push(source, 0);
+            int settled = 0;
+            while (!witnessHeap.isEmpty()) {
+                double key = witnessHeap.peekKey();
+                int node = witnessHeap.pop();
+                if (key > witnessSeconds[node]) {
+                    continue;
+                }
+                if (key > maxSeconds || ++settled > limit) {
+                    break;
+                }
+                for (int i = 0; i < outCount[node]; i++) {
+                    int edge = outEdges[node][i];
+                    int head = edgeHead[edge];
+                    double arrival = key + edgeSeconds[edge];
+                    if (head != skipped && !contracted[head] && arrival < witnessSeconds[head]) {
+                        touchWitness(head, arrival);
+                        witnessHeap.push(head, arrival);
+                    }
+                }
+            }
+        }
+
+        private void touchWitness(int node, double seconds) {
+            if (witnessSeconds[node] == Double.POSITIVE_INFINITY) {
+                witnessTouched[witnessTouchedCount++] = node;
+            }
+            witnessSeconds[node] = seconds;
+        }
+
+        private void resetWitness() {
+            for (int i = 0; i < witnessTouchedCount; i++) {
+                witnessSeconds[witnessTouched[i]] = Double.POSITIVE_INFINITY;
+            }
+            witnessTouchedCount = 0;
+        }
+
+        /**
+         * Shortcut tail -> head, or a faster time on an existing edge between them
+         */
+        private void addShortcut(int tail, int head, double seconds, double meters, int hops) {
+            for (int i = 0; i < outCount[tail]; i++) {
+                int edge = outEdges[tail][i];
+                if (edgeHead[edge] == head) {
+                    if (seconds < edgeSeconds[edge]) {
+                        edgeSeconds[edge] = seconds;
+                        edgeMeters[edge] = meters;
+                        edgeHops[edge] = hops;
+                    }
+                    return;
+                }
+            }
+            addEdge(tail, head, seconds, meters, hops);
+        }
+
+        private void addEdge(int tail, int head, double seconds, double meters, int hops) {
+            if (edgeCount == edgeTail.length) {
+                int capacity = edgeCount * 2;
+                edgeTail = Arrays.copyOf(edgeTail, capacity);
+                edgeHead = Arrays.copyOf(edgeHead, capacity);
+                edgeSeconds = Arrays.copyOf(edgeSeconds, capacity);
+                edgeMeters = Arrays.copyOf(edgeMeters, capacity);
+                edgeHops = Arrays.copyOf(edgeHops, capacity);
+            }
+            int edge = edgeCount++;
+            edgeTail[edge] = tail;
+            edgeHead[edge] = head;
+            edgeSeconds[edge] = seconds;
+            edgeMeters[edge] = meters;
+            edgeHops[edge] = hops;
+            outEdges[tail] = append(outEdges[tail], outCount[tail]++, edge);
+            inEdges[head] = append(inEdges[head], inCount[head]++, edge);
+        }
+
+        private static int[] append(int[] list, int size, int value) {
+            if (list == null) {
+                list = new int[4];
+            } else if (size == list.length) {
+                list = Arrays.copyOf(list, size * 2);
+            }
+            list[size] = value;
+            return list;
+        }
+
+        private int[] liveNeighbours(int node) {
+            int[] neighbours = new int[inCount[node] + outCount[node]];
+            int count = 0;
+            for (int i = 0; i < inCount[node]; i++) {
+                int tail = edgeTail[inEdges[node][i]];
+                if (!contracted[tail]) {
+                    neighbours[count++] = tail;
+                }
+            }
+            for (int i = 0; i < outCount[node]; i++) {
+                int head = edgeHead[outEdges[node][i]];
+                if (!contracted[head]) {
+                    neighbours[count++] = head;
+                }
+            }
+            return Arrays.stream(neighbours, 0, count).distinct().toArray();
+        }
+
+        /**
+         * Remove the edges to or from contracted nodes from the lists of a node
+         */
+        private void dropContracted(int node) {
+            int kept = 0;
+            for (int i = 0; i < outCount[node]; i++) {
+                int edge = outEdges[node][i];
+                if (!contracted[edgeHead[edge]]) {
+                    outEdges[node][kept++] = edge;
+                }
+            }
+            outCount[node] = kept;
+            kept = 0;
+            for (int i = 0; i < inCount[node]; i++) {
+                int edge = inEdges[node][i];
+                if (!contracted[edgeTail[edge]]) {
+                    inEdges[node][kept++] = edge;
+                }
+            }
+            inCount[node] = kept;
+        }
+
+        /**
+         * Every edge goes upwards from its less important end: forward from the tail if the
+         * head ranks higher, backward from the head otherwise
+         */
+        private ContractionHierarchy toHierarchy() {
+            int[] upFirst = new int[n + 1];
+            int[] downFirst = new int[n + 1];
+            for (int edge = 0; edge < edgeCount; edge++) {
+                if (rank[edgeTail[edge]] < rank[edgeHead[edge]]) {
+                    upFirst[edgeTail[edge] + 1]++;
+                } else {
+                    downFirst[edgeHead[edge] + 1]++;
+                }
+            }
+            for (int node = 0; node < n; node++) {
+                upFirst[node + 1] += upFirst[node];
+                downFirst[node + 1] += downFirst[node];
+            }
+            int[] upHead = new int[upFirst[n]];
+            float[] upSeconds = new float[upFirst[n]];
+            float[] upMeters = new float[upFirst[n]];
+            int[] downTail = new int[downFirst[n]];
+            float[] downSeconds = new float[downFirst[n]];
+            float[] downMeters = new float[downFirst[n]];
+            int[] upNext = Arrays.copyOf(upFirst, n);
+            int[] downNext = Arrays.copyOf(downFirst, n);
+            for (int edge = 0; edge < edgeCount; edge++) {
+                int tail = edgeTail[edge];
+                int head = edgeHead[edge];
+                if (rank[tail] < rank[head]) {
+                    int slot = upNext[tail]++;
+                    upHead[slot] = head;
+                    upSeconds[slot] = (float) edgeSeconds[edge];
+                    upMeters[slot] = (float) edgeMeters[edge];
+                } else {
+                    int slot = downNext[head]++;
+                    downTail[slot] = tail;
+                    downSeconds[slot] = (float) edgeSeconds[edge];
+                    downMeters[slot] = (float) edgeMeters[edge];
+                }
+            }
+            return new ContractionHierarchy(n, upFirst, upHead, upSeconds, upMeters,
+                downFirst, downTail, downSeconds, downMeters);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.travelpath.routing;
+
+import com.travelpath.geo.GeoUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Street distances (km) and durations (seconds) between sources (rows) and targets (columns),
+ * stored row-major in two flat arrays (one allocation each, no array per row).
+ * Pairs not known yet are NaN until set or estimated by fillMissing.
+ */
+public class DistanceMatrix {
+    
+    /** Walking pace used for estimated durations, as in the route duration fallback (12 min/km) */
+    private static final double ESTIMATE_SECONDS_PER_KM = 720.0;
+    
+    private final int rows;
+    private final int columns;
+    private final double[] distancesKm;
+    private final double[] durationsSeconds;
+    
+    public DistanceMatrix(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        this.distancesKm = new double[rows * columns];
+        this.durationsSeconds = new double[rows * columns];
+        Arrays.fill(distancesKm, Double.NaN);
+        Arrays.fill(durationsSeconds, Double.NaN);
+    }
+    
+    public int getRows() { return rows; }
+    
+    public int getColumns() { return columns; }
+    
+    public double distanceKm(int row, int column) {
+        return distancesKm[row * columns + column];
+    }
+    
+    public double durationSeconds(int row, int column) {
+        return durationsSeconds[row * columns + column];
+    }
+    
+    public void set(int row, int column, double distanceKm, double durationSeconds) {
+        distancesKm[row * columns + column] = distanceKm;
+        durationsSeconds[row * columns + column] = durationSeconds;
+    }
+    
+    public boolean isMissing(int row, int column) {
+        int i = row * columns + column;
+        return Double.isNaN(distancesKm[i]) || Double.isNaN(durationsSeconds[i]);
+    }
+    
+    /**
+     * Estimate every missing pair with the Haversine distance between the points
+     * ({latitude, longitude}) of its row and column
+     * @return number of pairs estimated
+     */
+    public int fillMissing(List<double[]> sources, List<double[]> targets) {
+        int filled = 0;
+        for (int row = 0; row < rows; row++) {
+            double[] from = sources.get(row);
+            for (int column = 0; column < columns; column++) {
+                if (isMissing(row, column)) {
+                    double[] to = targets.get(column);
+                    double km = GeoUtils.haversineKm(from[0], from[1], to[0], to[1]);
+                    set(row, column, km, km * ESTIMATE_SECONDS_PER_KM);
+                    filled++;
+                }
+            }
+        }
+        return filled;
+    }
+}
@@ -0,0 +1,246 @@
+package com.travelpath.routing;
+
+import com.travelpath.geo.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process routing on a road graph built from a local OSM extract (routing.local.osm-file),
+ * so distances and matrices need no network call and no ORS quota. Disabled by default; the
+ * graph is loaded in the background after startup, and ORS answers until it is ready.
+ * Once the graph is loaded, a contraction hierarchy is built per profile in the same background
+ * thread (routing.local.contraction); matrices then cost a few hundred settled nodes per point.
+ * Until then, and for profiles without one, queries run Dijkstra on travel time from each
+ * source, stopping once every target is settled. Points are snapped to the nearest road node;
+ * pairs that cannot be connected (or points too far from any road) are NaN in the matrix.
+ */
+@Component
+@Order(1)
+public class LocalRoutingEngine implements RoutingEngine {
+    
+    /** Walking speed between a point and its road node, in m/s */
+    private static final double ACCESS_SPEED = RoutingProfile.FOOT.getSpeedKmh() / 3.6;
+    
+    @Value("${routing.local.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${routing.local.osm-file:}")
+    private String osmFile;
+    
+    @Value("${routing.local.max-snap-meters:500}")
+    private double maxSnapMeters;
+    
+    @Value("${routing.local.contraction:true}")
+    private boolean contraction;
+    
+    private volatile RoadGraph graph;
+    private final Map<RoutingProfile, ContractionHierarchy> hierarchies = new ConcurrentHashMap<>();
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadGraph() {
+        if (!enabled || osmFile.isBlank()) {
+            return;
+        }
+        Thread loader = new Thread(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                RoadGraph loaded = new OsmGraphLoader().load(Path.of(osmFile));
+                graph = loaded;
+                System.out.println("[LocalRoutingEngine] Loaded " + osmFile + ": " + loaded.nodeCount() + " nodes, "
+                    + loaded.edgeCount() + " edges in " + (System.currentTimeMillis() - start) + "ms");
+                if (contraction) {
+                    for (RoutingProfile profile : RoutingProfile.values()) {
+                        start = System.currentTimeMillis();
+                        ContractionHierarchy hierarchy = ContractionHierarchy.build(loaded, profile);
+                        hierarchies.put(profile, hierarchy);
+                        System.out.println("[LocalRoutingEngine] Contracted " + profile + " graph: " + hierarchy.edgeCount()
+                            + " edges with shortcuts in " + (System.currentTimeMillis() - start) + "ms");
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("[LocalRoutingEngine] Cannot load " + osmFile + ", using OpenRouteService: " + e.getMessage());
+            }
+        }, "routing-graph-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+    
+    @Override
+    public String getName() {
+        return "local";
+    }
+    
+    @Override
+    public boolean isLocal() {
+        return true;
+    }
+    
+    @Override
+    public boolean isAvailable(String profile) {
+        if (graph == null) {
+            return false;
+        }
+        try {
+            RoutingProfile.fromOrsProfile(profile);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
+    @Override
+    public DistanceMatrix matrix(List<double[]> points, String profile) {
+        RoadGraph current = graph;
+        if (current == null) {
+            return null;
+        }
+        RoutingProfile routingProfile = RoutingProfile.fromOrsProfile(profile);
+        Snap[] snaps = snap(current, points, routingProfile);
+        DistanceMatrix matrix = new DistanceMatrix(points.size(), points.size());
+        ContractionHierarchy hierarchy = hierarchies.get(routingProfile);
+        if (hierarchy != null) {
+            search(hierarchy, snaps, snaps, matrix);
+            for (int i = 0; i < points.size(); i++) {
+                matrix.set(i, i, 0, 0);
+            }
+            return matrix;
+        }
+        for (int i = 0; i < points.size(); i++) {
+            search(current, snaps[i], snaps, routingProfile, matrix, i);
+            matrix.set(i, i, 0, 0);
+        }
+        return matrix;
+    }
+    
+    @Override
+    public DistanceMatrix oneToMany(double[] source, List<double[]> targets, String profile) {
+        RoadGraph current = graph;
+        if (current == null) {
+            return null;
+        }
+        RoutingProfile routingProfile = RoutingProfile.fromOrsProfile(profile);
+        Snap[] from = snap(current, List.of(source), routingProfile);
+        DistanceMatrix matrix = new DistanceMatrix(1, targets.size());
+        ContractionHierarchy hierarchy = hierarchies.get(routingProfile);
+        if (hierarchy != null) {
+            search(hierarchy, from, snap(current, targets, routingProfile), matrix);
+        } else {
+            search(current, from[0], snap(current, targets, routingProfile), routingProfile, matrix, 0);
+        }
+        return matrix;
+    }
+    
+    private Snap[] snap(RoadGraph current, List<double[]> points, RoutingProfile profile) {
+        Snap[] snaps = new Snap[points.size()];
+        for (int i = 0; i < snaps.length; i++) {
+            double[] point = points.get(i);
+            int node = current.nearestNode(point[0], point[1], profile);
+            double meters = node >= 0
+                ? GeoUtils.haversineMeters(point[0], point[1], current.latitude(node), current.longitude(node))
+                : Double.MAX_VALUE;
+            snaps[i] = meters <= maxSnapMeters ? new Snap(node, meters) : new Snap(-1, 0);
+        }
+        return snaps;
+    }
+    
+    /**
+     * Fastest paths between every source and target through the contraction hierarchy, set in
+     * the matrix with the walk between each point and its road node; pairs without a path are
+     * left missing
+     */
+    private static void search(ContractionHierarchy hierarchy, Snap[] sources, Snap[] targets, DistanceMatrix matrix) {
+        hierarchy.manyToMany(nodes(sources), nodes(targets), (i, j, seconds, meters) -> {
+            double accessMeters = sources[i].meters + targets[j].meters;
+            matrix.set(i, j, (meters + accessMeters) / 1000.0, seconds + accessMeters / ACCESS_SPEED);
+        });
+    }
+    
+    private static int[] nodes(Snap[] snaps) {
+        int[] nodes = new int[snaps.length];
+        for (int i = 0; i < snaps.length; i++) {
+            nodes[i] = snaps[i].node;
+        }
+        return nodes;
+    }
+    
+    /**
+     * Fastest paths from source to every target: distances in km and durations in seconds,
+     * including the walk between each point and its road node, set in the given matrix row;
+     * pairs without a path are left missing
+     */
+    private static void search(RoadGraph graph, Snap source, Snap[] targets, RoutingProfile profile,
+                               DistanceMatrix matrix, int row) {
+        if (source.node < 0) {
+            return;
+        }
+        
+        int n = graph.nodeCount();
+        double[] time = new double[n];
+        double[] meters = new double[n];
+        Arrays.fill(time, Double.POSITIVE_INFINITY);
+        boolean[] settled = new boolean[n];
+        boolean[] wanted = new boolean[n];
+        int remaining = 0;
+        for (Snap target : targets) {
+            if (target.node >= 0 && !wanted[target.node]) {
+                wanted[target.node] = true;
+                remaining++;
+            }
+        }
+        
+        NodeHeap heap = new NodeHeap();
+        time[source.node] = 0;
+        meters[source.node] = 0;
+        heap.push(source.node, 0);
+        while (remaining > 0 && !heap.isEmpty()) {
+            int node = heap.pop();
+            if (settled[node]) {
+                continue;
+            }
+            settled[node] = true;
+            if (wanted[node]) {
+                remaining--;
+            }
+            for (int edge = graph.firstEdge(node); edge < graph.endEdge(node); edge++) {
+                if (!graph.allows(edge, profile)) {
+                    continue;
+                }
+                int next = graph.target(edge);
+                double arrival = time[node] + graph.seconds(edge, profile);
+                if (arrival < time[next]) {
+                    time[next] = arrival;
+                    meters[next] = meters[node] + graph.meters(edge);
+                    heap.push(next, arrival);
+                }
+            }
+        }
+        
+        for (int j = 0; j < targets.length; j++) {
+            Snap target = targets[j];
+            if (target.node >= 0 && settled[target.node]) {
+                double accessMeters = source.meters + target.meters;
+                matrix.set(row, j, (meters[target.node] + accessMeters) / 1000.0,
+                    time[target.node] + accessMeters / ACCESS_SPEED);
+            }
+        }
+    }
+    
+    private static class Snap {
+        final int node;
+        final double meters;
+        
+        Snap(int node, double meters) {
+            this.node = node;
+            this.meters = meters;
+        }
+    }
+}
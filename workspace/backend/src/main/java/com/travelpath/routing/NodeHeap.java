@@ -0,0 +1,74 @@
+package com.travelpath.routing;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of nodes keyed by time (or any weight); a node is pushed again when its key
+ * improves and stale entries are skipped by the caller when popped
+ */
+class NodeHeap {
+    
+    private int[] nodes = new int[256];
+    private double[] keys = new double[256];
+    private int size = 0;
+    
+    boolean isEmpty() {
+        return size == 0;
+    }
+    
+    void clear() {
+        size = 0;
+    }
+    
+    /**
+     * Key of the node pop() would return
+     */
+    double peekKey() {
+        return keys[0];
+    }
+    
+    void push(int node, double key) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (keys[parent] <= key) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            keys[i] = keys[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+    }
+    
+    int pop() {
+        int top = nodes[0];
+        size--;
+        int lastNode = nodes[size];
+        double lastKey = keys[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (keys[child] >= lastKey) {
+                break;
+            }
+            nodes[i] = nodes[child];
+            keys[i] = keys[child];
+            i = child;
+        }
+        nodes[i] = lastNode;
+        keys[i] = lastKey;
+        return top;
+    }
+}
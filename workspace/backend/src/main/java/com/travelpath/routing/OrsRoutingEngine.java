@@ -0,0 +1,172 @@
+package com.travelpath.routing;
+
+import com.travelpath.external.OpenRouteServiceClient;
+import com.travelpath.util.TaskScope;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routing through the hosted OpenRouteService matrix API (quota-limited, see providers.quota.openrouteservice).
+ * Matrices above the ORS element limit are split into tiles of at most max-elements
+ * sources x destinations, requested by a few concurrent workers; every request still goes
+ * through the provider quota, so a refused or failed tile is left missing instead of waiting.
+ */
+@Component
+@Order(2)
+public class OrsRoutingEngine implements RoutingEngine {
+    
+    private final OpenRouteServiceClient openRouteServiceClient;
+    private final Executor executor;
+    
+    @Value("${openrouteservice.matrix.max-elements:3500}")
+    private int maxElements;
+    
+    @Value("${openrouteservice.matrix.max-concurrent-requests:4}")
+    private int maxConcurrentRequests;
+    
+    @Value("${openrouteservice.matrix.max-requests:12}")
+    private int maxRequests;
+    
+    @Value("${openrouteservice.matrix.timeout-ms:20000}")
+    private long timeoutMs;
+    
+    public OrsRoutingEngine(OpenRouteServiceClient openRouteServiceClient, @Qualifier("providerExecutor") Executor executor) {
+        this.openRouteServiceClient = openRouteServiceClient;
+        this.executor = executor;
+    }
+    
+    @Override
+    public String getName() {
+        return "openrouteservice";
+    }
+    
+    @Override
+    public boolean isAvailable(String profile) {
+        return openRouteServiceClient.isAvailable("matrix");
+    }
+    
+    @Override
+    public DistanceMatrix matrix(List<double[]> points, String profile) {
+        int n = points.size();
+        int side = Math.max(1, (int) Math.sqrt(maxElements));
+        if ((long) n * n <= maxElements) {
+            side = n;
+        }
+        List<Tile> tiles = new ArrayList<>();
+        for (int row = 0; row < n; row += side) {
+            for (int column = 0; column < n; column += side) {
+                tiles.add(new Tile(row, Math.min(n, row + side), column, Math.min(n, column + side)));
+            }
+        }
+        if (tiles.size() > maxRequests) {
+            System.out.println("[OrsRoutingEngine] Matrix of " + n + " points needs " + tiles.size()
+                + " requests, only the first " + maxRequests + " are sent");
+            tiles = tiles.subList(0, maxRequests);
+        }
+        
+        DistanceMatrix matrix = new DistanceMatrix(n, n);
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger answered = new AtomicInteger();
+        List<Tile> queue = tiles;
+        try (TaskScope scope = new TaskScope(executor)) {
+            int workers = Math.min(Math.max(1, maxConcurrentRequests), queue.size());
+            for (int w = 0; w < workers; w++) {
+                scope.fork(() -> {
+                    for (int t = next.getAndIncrement(); t < queue.size(); t = next.getAndIncrement()) {
+                        if (!openRouteServiceClient.isAvailable("matrix")) {
+                            break;
+                        }
+                        if (request(queue.get(t), points, profile, matrix)) {
+                            answered.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            scope.join(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        if (answered.get() == 0) {
+            return null;
+        }
+        if (tiles.size() > 1) {
+            System.out.println("[OrsRoutingEngine] Assembled " + n + "x" + n + " matrix from "
+                + answered.get() + "/" + tiles.size() + " requests");
+        }
+        return matrix;
+    }
+    
+    /**
+     * Request one tile and copy it into the matrix; false if ORS did not answer
+     */
+    private boolean request(Tile tile, List<double[]> points, String profile, DistanceMatrix matrix) {
+        boolean diagonal = tile.rowStart == tile.columnStart;
+        List<OpenRouteServiceClient.Location> locations = new ArrayList<>();
+        for (int i = tile.rowStart; i < tile.rowEnd; i++) {
+            locations.add(location(points.get(i)));
+        }
+        int[] sources = null;
+        int[] destinations = null;
+        if (!diagonal) {
+            // Sources first, then the destinations of the tile
+            sources = range(0, tile.rowEnd - tile.rowStart);
+            destinations = range(sources.length, sources.length + tile.columnEnd - tile.columnStart);
+            for (int j = tile.columnStart; j < tile.columnEnd; j++) {
+                locations.add(location(points.get(j)));
+            }
+        }
+        
+        OpenRouteServiceClient.DistanceMatrixResponse response =
+            openRouteServiceClient.getDistanceMatrix(locations, sources, destinations, profile);
+        if (response == null || response.distances == null || response.durations == null) {
+            return false;
+        }
+        for (int i = 0; i < tile.rowEnd - tile.rowStart && i < response.distances.length; i++) {
+            for (int j = 0; j < tile.columnEnd - tile.columnStart && j < response.distances[i].length; j++) {
+                // ORS answers null (read as 0) between points it cannot connect; only the diagonal is 0
+                double distance = response.distances[i][j];
+                boolean unreachable = distance == 0 && tile.rowStart + i != tile.columnStart + j;
+                if (!unreachable) {
+                    matrix.set(tile.rowStart + i, tile.columnStart + j, distance, response.durations[i][j]);
+                }
+            }
+        }
+        return true;
+    }
+    
+    private static OpenRouteServiceClient.Location location(double[] point) {
+        return new OpenRouteServiceClient.Location(point[0], point[1]);
+    }
+    
+    private static int[] range(int from, int to) {
+        int[] values = new int[to - from];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = from + i;
+        }
+        return values;
+    }
+    
+    private static class Tile {
+        final int rowStart;
+        final int rowEnd;
+        final int columnStart;
+        final int columnEnd;
+        
+        Tile(int rowStart, int rowEnd, int columnStart, int columnEnd) {
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+            this.columnStart = columnStart;
+            this.columnEnd = columnEnd;
+        }
+    }
+}
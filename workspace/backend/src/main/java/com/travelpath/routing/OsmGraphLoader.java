@@ -0,0 +1,410 @@
+package com.travelpath.routing;
+
+import com.travelpath.geo.GeoUtils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Builds a RoadGraph from an OSM XML extract (.osm or .osm.gz), streamed with StAX in two passes:
+ * the first keeps the highways and counts how many ways use each node, the second reads the
+ * coordinates of those nodes only. Junctions (nodes shared by several ways) and way ends become
+ * graph nodes; the shape points between them are folded into the edge lengths.
+ * Access per profile follows the highway class and the access, foot, bicycle, motor_vehicle
+ * and oneway tags, with the usual defaults (no walking or cycling on motorways and trunks).
+ */
+public class OsmGraphLoader {
+    
+    /** Node ids share a long with the cell key in RoadGraph */
+    private static final int MAX_NODES = 1 << 24;
+    
+    private static final Set<String> NOT_ROADS = Set.of("proposed", "construction", "abandoned", "platform",
+        "raceway", "bus_stop", "rest_area", "services");
+    private static final Set<String> NO_FOOT = Set.of("motorway", "motorway_link", "trunk", "trunk_link");
+    private static final Set<String> NO_BIKE = Set.of("motorway", "motorway_link", "trunk", "trunk_link",
+        "footway", "pedestrian", "steps", "bridleway");
+    private static final Map<String, Integer> CAR_KMH = Map.ofEntries(
+        Map.entry("motorway", 110), Map.entry("motorway_link", 60),
+        Map.entry("trunk", 90), Map.entry("trunk_link", 50),
+        Map.entry("primary", 60), Map.entry("primary_link", 45),
+        Map.entry("secondary", 50), Map.entry("secondary_link", 40),
+        Map.entry("tertiary", 40), Map.entry("tertiary_link", 35),
+        Map.entry("unclassified", 35), Map.entry("residential", 30),
+        Map.entry("living_street", 10), Map.entry("service", 15)
+    );
+    private static final Set<String> DENIED = Set.of("no", "private");
+    private static final Set<String> ALLOWED = Set.of("yes", "designated", "permissive");
+    
+    // Highways kept by the first pass: their node refs, one slice per way, and access per direction
+    private long[] wayNodes = new long[1 << 16];
+    private int wayNodeCount = 0;
+    private int[] wayStart = new int[1 << 12];
+    private byte[] wayForward = new byte[1 << 12];
+    private byte[] wayBackward = new byte[1 << 12];
+    private byte[] wayCarKmh = new byte[1 << 12];
+    private int wayCount = 0;
+    
+    // Dense index of every node used by a kept way, and how many ways use it
+    private final LongIntMap nodeIndex = new LongIntMap();
+    private int[] useCount = new int[1 << 16];
+    
+    /**
+     * @throws IllegalArgumentException for PBF extracts (convert them first, e.g. osmium cat x.pbf -o x.osm.gz)
+     */
+    public RoadGraph load(Path file) throws IOException {
+        if (file.getFileName().toString().endsWith(".pbf")) {
+            throw new IllegalArgumentException("PBF extracts are not supported, convert to .osm.gz: " + file);
+        }
+        try {
+            readWays(file);
+            int nodes = nodeIndex.size();
+            double[] latitudes = new double[nodes];
+            double[] longitudes = new double[nodes];
+            boolean[] located = new boolean[nodes];
+            readNodes(file, latitudes, longitudes, located);
+            return build(latitudes, longitudes, located);
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid OSM XML in " + file + ": " + e.getMessage(), e);
+        }
+    }
+    
+    private void readWays(Path file) throws IOException, XMLStreamException {
+        try (InputStream in = open(file)) {
+            XMLStreamReader reader = reader(in);
+            long[] refs = new long[64];
+            int refCount = 0;
+            Map<String, String> tags = new HashMap<>();
+            boolean inWay = false;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if (name.equals("way")) {
+                        inWay = true;
+                        refCount = 0;
+                        tags.clear();
+                    } else if (inWay && name.equals("nd")) {
+                        if (refCount == refs.length) {
+                            refs = Arrays.copyOf(refs, refCount * 2);
+                        }
+                        refs[refCount++] = Long.parseLong(reader.getAttributeValue(null, "ref"));
+                    } else if (inWay && name.equals("tag")) {
+                        tags.put(reader.getAttributeValue(null, "k"), reader.getAttributeValue(null, "v"));
+                    } else if (name.equals("relation")) {
+                        break;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && inWay && reader.getLocalName().equals("way")) {
+                    inWay = false;
+                    if (refCount >= 2) {
+                        addWay(refs, refCount, tags);
+                    }
+                }
+            }
+            reader.close();
+        }
+    }
+    
+    private void addWay(long[] refs, int refCount, Map<String, String> tags) {
+        String highway = tags.get("highway");
+        if (highway == null || NOT_ROADS.contains(highway)) {
+            return;
+        }
+        String access = tags.getOrDefault("access", "yes");
+        boolean foot = allowed(tags.get("foot"), access, !NO_FOOT.contains(highway));
+        boolean bike = allowed(tags.get("bicycle"), access, !NO_BIKE.contains(highway));
+        boolean car = allowed(tags.getOrDefault("motor_vehicle", tags.get("motorcar")), access, CAR_KMH.containsKey(highway));
+        if (!foot && !bike && !car) {
+            return;
+        }
+        
+        String oneway = tags.getOrDefault("oneway",
+            highway.startsWith("motorway") || "roundabout".equals(tags.get("junction")) ? "yes" : "no");
+        boolean forwardOnly = oneway.equals("yes") || oneway.equals("1") || oneway.equals("true");
+        boolean backwardOnly = oneway.equals("-1");
+        boolean bikeBothWays = "no".equals(tags.get("oneway:bicycle"))
+            || tags.getOrDefault("cycleway", "").startsWith("opposite");
+        int forward = (foot ? RoutingProfile.FOOT.flag() : 0)
+            | (bike && (!backwardOnly || bikeBothWays) ? RoutingProfile.BIKE.flag() : 0)
+            | (car && !backwardOnly ? RoutingProfile.CAR.flag() : 0);
+        int backward = (foot ? RoutingProfile.FOOT.flag() : 0)
+            | (bike && (!forwardOnly || bikeBothWays) ? RoutingProfile.BIKE.flag() : 0)
+            | (car && !forwardOnly ? RoutingProfile.CAR.flag() : 0);
+        
+        if (wayCount == wayStart.length) {
+            int capacity = wayCount * 2;
+            wayStart = Arrays.copyOf(wayStart, capacity);
+            wayForward = Arrays.copyOf(wayForward, capacity);
+            wayBackward = Arrays.copyOf(wayBackward, capacity);
+            wayCarKmh = Arrays.copyOf(wayCarKmh, capacity);
+        }
+        wayStart[wayCount] = wayNodeCount;
+        wayForward[wayCount] = (byte) forward;
+        wayBackward[wayCount] = (byte) backward;
+        wayCarKmh[wayCount] = (byte) carSpeed(highway, tags.get("maxspeed"));
+        wayCount++;
+        
+        if (wayNodeCount + refCount > wayNodes.length) {
+            wayNodes = Arrays.copyOf(wayNodes, Math.max(wayNodes.length * 2, wayNodeCount + refCount));
+        }
+        for (int i = 0; i < refCount; i++) {
+            wayNodes[wayNodeCount++] = refs[i];
+            int index = nodeIndex.getOrAdd(refs[i]);
+            if (index >= MAX_NODES) {
+                throw new IllegalArgumentException("Extract too large: more than " + MAX_NODES + " road nodes");
+            }
+            if (index == useCount.length) {
+                useCount = Arrays.copyOf(useCount, index * 2);
+            }
+            // Way ends are always graph nodes
+            useCount[index] += (i == 0 || i == refCount - 1) ? 2 : 1;
+        }
+    }
+    
+    private void readNodes(Path file, double[] latitudes, double[] longitudes, boolean[] located)
+            throws IOException, XMLStreamException {
+        try (InputStream in = open(file)) {
+            XMLStreamReader reader = reader(in);
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+                if (name.equals("node")) {
+                    int index = nodeIndex.get(Long.parseLong(reader.getAttributeValue(null, "id")));
+                    if (index >= 0) {
+                        latitudes[index] = Double.parseDouble(reader.getAttributeValue(null, "lat"));
+                        longitudes[index] = Double.parseDouble(reader.getAttributeValue(null, "lon"));
+                        located[index] = true;
+                    }
+                } else if (name.equals("way")) {
+                    // Nodes come first in OSM files
+                    break;
+                }
+            }
+            reader.close();
+        }
+    }
+    
+    private RoadGraph build(double[] latitudes, double[] longitudes, boolean[] located) {
+        int nodes = latitudes.length;
+        int[] graphNode = new int[nodes];
+        int graphNodes = 0;
+        for (int i = 0; i < nodes; i++) {
+            graphNode[i] = located[i] && useCount[i] >= 2 ? graphNodes++ : -1;
+        }
+        
+        // Edges between consecutive graph nodes of each way, shape points folded into the length
+        EdgeList edges = new EdgeList();
+        for (int way = 0; way < wayCount; way++) {
+            int end = way + 1 < wayCount ? wayStart[way + 1] : wayNodeCount;
+            int from = -1;
+            double meters = 0;
+            int previous = -1;
+            for (int k = wayStart[way]; k < end; k++) {
+                int index = nodeIndex.get(wayNodes[k]);
+                if (!located[index]) {
+                    // Node outside the extract: the way is cut here
+                    from = -1;
+                    previous = -1;
+                    continue;
+                }
+                if (previous >= 0) {
+                    meters += GeoUtils.haversineMeters(latitudes[previous], longitudes[previous], latitudes[index], longitudes[index]);
+                }
+                previous = index;
+                if (graphNode[index] < 0) {
+                    continue;
+                }
+                int to = graphNode[index];
+                if (from >= 0 && from != to) {
+                    if (wayForward[way] != 0) {
+                        edges.add(from, to, meters, wayForward[way], wayCarKmh[way]);
+                    }
+                    if (wayBackward[way] != 0) {
+                        edges.add(to, from, meters, wayBackward[way], wayCarKmh[way]);
+                    }
+                }
+                from = to;
+                meters = 0;
+            }
+        }
+        
+        double[] nodeLatitudes = new double[graphNodes];
+        double[] nodeLongitudes = new double[graphNodes];
+        for (int i = 0; i < nodes; i++) {
+            if (graphNode[i] >= 0) {
+                nodeLatitudes[graphNode[i]] = latitudes[i];
+                nodeLongitudes[graphNode[i]] = longitudes[i];
+            }
+        }
+        
+        // Counting sort of the edges by source node
+        int[] firstEdge = new int[graphNodes + 1];
+        for (int e = 0; e < edges.size; e++) {
+            firstEdge[edges.source[e] + 1]++;
+        }
+        for (int i = 0; i < graphNodes; i++) {
+            firstEdge[i + 1] += firstEdge[i];
+        }
+        int[] next = Arrays.copyOf(firstEdge, graphNodes);
+        int[] target = new int[edges.size];
+        float[] length = new float[edges.size];
+        byte[] access = new byte[edges.size];
+        byte[] carKmh = new byte[edges.size];
+        for (int e = 0; e < edges.size; e++) {
+            int slot = next[edges.source[e]]++;
+            target[slot] = edges.target[e];
+            length[slot] = edges.meters[e];
+            access[slot] = edges.access[e];
+            carKmh[slot] = edges.carKmh[e];
+        }
+        return new RoadGraph(nodeLatitudes, nodeLongitudes, firstEdge, target, length, access, carKmh);
+    }
+    
+    private static boolean allowed(String modeTag, String access, boolean byDefault) {
+        if (modeTag != null) {
+            if (ALLOWED.contains(modeTag)) {
+                return true;
+            }
+            if (DENIED.contains(modeTag)) {
+                return false;
+            }
+        }
+        return byDefault && !DENIED.contains(access);
+    }
+    
+    private static int carSpeed(String highway, String maxspeed) {
+        int speed = CAR_KMH.getOrDefault(highway, 30);
+        if (maxspeed != null) {
+            try {
+                speed = Integer.parseInt(maxspeed.trim());
+            } catch (NumberFormatException e) {
+                // "FR:urban", "walk", "50 mph"...: keep the default of the road class
+            }
+        }
+        return Math.max(5, Math.min(127, speed));
+    }
+    
+    private static InputStream open(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+        return file.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(in, 1 << 16) : in;
+    }
+    
+    private static XMLStreamReader reader(InputStream in) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory.createXMLStreamReader(in);
+    }
+    
+    /**
+     * Growable edge list in parallel arrays
+     */
+    private static class EdgeList {
+        int[] source = new int[1 << 12];
+        int[] target = new int[1 << 12];
+        float[] meters = new float[1 << 12];
+        byte[] access = new byte[1 << 12];
+        byte[] carKmh = new byte[1 << 12];
+        int size = 0;
+        
+        void add(int from, int to, double length, byte accessFlags, byte speed) {
+            if (size == source.length) {
+                int capacity = size * 2;
+                source = Arrays.copyOf(source, capacity);
+                target = Arrays.copyOf(target, capacity);
+                meters = Arrays.copyOf(meters, capacity);
+                access = Arrays.copyOf(access, capacity);
+                carKmh = Arrays.copyOf(carKmh, capacity);
+            }
+            source[size] = from;
+            target[size] = to;
+            meters[size] = (float) length;
+            access[size] = accessFlags;
+            carKmh[size] = speed;
+            size++;
+        }
+    }
+    
+    /**
+     * Open-addressing map from OSM node id to dense index (boxed maps take ~5x the memory)
+     */
+    private static class LongIntMap {
+        private long[] keys = new long[1 << 16];
+        private int[] values = new int[1 << 16];
+        private boolean[] used = new boolean[1 << 16];
+        private int size = 0;
+        
+        int size() {
+            return size;
+        }
+        
+        int get(long key) {
+            int slot = slot(key, keys.length);
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            return -1;
+        }
+        
+        /**
+         * Index of the key, assigning the next index if it is new
+         */
+        int getOrAdd(long key) {
+            if (size * 2 >= keys.length) {
+                grow();
+            }
+            int slot = slot(key, keys.length);
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = size;
+            return size++;
+        }
+        
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    int slot = slot(oldKeys[i], keys.length);
+                    while (used[slot]) {
+                        slot = (slot + 1) & (keys.length - 1);
+                    }
+                    used[slot] = true;
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+        
+        private static int slot(long key, int capacity) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 32) & (capacity - 1);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.travelpath.routing;
+
+import com.travelpath.geo.GeoUtils;
+
+import java.util.Arrays;
+
+/**
+ * Road graph in compressed sparse row form: the outgoing edges of node i are
+ * firstEdge[i] .. firstEdge[i + 1] - 1 in the edge arrays. Nodes are the junctions and dead
+ * ends of the road network only; the shape points between them are folded into edge lengths
+ * (degree-2 contraction), which typically leaves a fifth of the OSM nodes.
+ * Everything is held in primitive arrays: a city extract takes a few tens of MB.
+ */
+public class RoadGraph {
+    
+    /** Size of the cells of the nearest-node index, in degrees (about 500 m) */
+    private static final double CELL_DEGREES = 0.005;
+    
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] firstEdge;
+    private final int[] edgeTarget;
+    private final float[] edgeMeters;
+    private final byte[] edgeAccess;
+    private final byte[] edgeCarKmh;
+    
+    // Nearest-node index: node ids sorted by cell, and the sorted cell keys with their offsets
+    private final int[] nodesByCell;
+    private final long[] cellKeys;
+    private final int[] cellStart;
+    
+    RoadGraph(double[] latitudes, double[] longitudes, int[] firstEdge, int[] edgeTarget,
+              float[] edgeMeters, byte[] edgeAccess, byte[] edgeCarKmh) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.firstEdge = firstEdge;
+        this.edgeTarget = edgeTarget;
+        this.edgeMeters = edgeMeters;
+        this.edgeAccess = edgeAccess;
+        this.edgeCarKmh = edgeCarKmh;
+        
+        int n = latitudes.length;
+        long[] keyed = new long[n];
+        for (int i = 0; i < n; i++) {
+            keyed[i] = cellKey(latitudes[i], longitudes[i]) << 24 | i;
+        }
+        Arrays.sort(keyed);
+        nodesByCell = new int[n];
+        long[] keys = new long[n];
+        int[] starts = new int[n + 1];
+        int cells = 0;
+        for (int i = 0; i < n; i++) {
+            long key = keyed[i] >>> 24;
+            nodesByCell[i] = (int) (keyed[i] & 0xFFFFFF);
+            if (cells == 0 || keys[cells - 1] != key) {
+                keys[cells] = key;
+                starts[cells] = i;
+                cells++;
+            }
+        }
+        starts[cells] = n;
+        cellKeys = Arrays.copyOf(keys, cells);
+        cellStart = Arrays.copyOf(starts, cells + 1);
+    }
+    
+    public int nodeCount() {
+        return latitudes.length;
+    }
+    
+    public int edgeCount() {
+        return edgeTarget.length;
+    }
+    
+    double latitude(int node) { return latitudes[node]; }
+    
+    double longitude(int node) { return longitudes[node]; }
+    
+    int firstEdge(int node) { return firstEdge[node]; }
+    
+    int endEdge(int node) { return firstEdge[node + 1]; }
+    
+    int target(int edge) { return edgeTarget[edge]; }
+    
+    double meters(int edge) { return edgeMeters[edge]; }
+    
+    boolean allows(int edge, RoutingProfile profile) {
+        return (edgeAccess[edge] & profile.flag()) != 0;
+    }
+    
+    /**
+     * Travel time of an edge in seconds for the profile
+     */
+    double seconds(int edge, RoutingProfile profile) {
+        double kmh = profile == RoutingProfile.CAR ? edgeCarKmh[edge] : profile.getSpeedKmh();
+        return edgeMeters[edge] / (kmh / 3.6);
+    }
+    
+    /**
+     * Nearest node with an outgoing edge usable by the profile, within about 1.5 km, or -1
+     */
+    public int nearestNode(double lat, double lon, RoutingProfile profile) {
+        long row = (long) Math.floor(lat / CELL_DEGREES);
+        long column = (long) Math.floor(lon / CELL_DEGREES);
+        int nearest = -1;
+        double nearestMeters = Double.MAX_VALUE;
+        for (int ring = 0; ring <= 3; ring++) {
+            for (long r = row - ring; r <= row + ring; r++) {
+                for (long c = column - ring; c <= column + ring; c++) {
+                    if (Math.max(Math.abs(r - row), Math.abs(c - column)) != ring) {
+                        continue;
+                    }
+                    int cell = Arrays.binarySearch(cellKeys, cellKey(r, c));
+                    if (cell < 0) {
+                        continue;
+                    }
+                    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                        int node = nodesByCell[i];
+                        double meters = GeoUtils.haversineMeters(lat, lon, latitudes[node], longitudes[node]);
+                        if (meters < nearestMeters && hasAccess(node, profile)) {
+                            nearest = node;
+                            nearestMeters = meters;
+                        }
+                    }
+                }
+            }
+            // Cells outside this ring are at least ring cells away from the point
+            if (nearest >= 0 && nearestMeters <= ring * CELL_DEGREES * GeoUtils.metersPerDegreeLon(lat)) {
+                break;
+            }
+        }
+        return nearest;
+    }
+    
+    private boolean hasAccess(int node, RoutingProfile profile) {
+        for (int edge = firstEdge[node]; edge < firstEdge[node + 1]; edge++) {
+            if (allows(edge, profile)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static long cellKey(double lat, double lon) {
+        return cellKey((long) Math.floor(lat / CELL_DEGREES), (long) Math.floor(lon / CELL_DEGREES));
+    }
+    
+    /**
+     * Row and column packed in 38 bits (19 each, offset to be positive), leaving 24 bits for node ids
+     */
+    private static long cellKey(long row, long column) {
+        return (row + (1 << 18)) << 19 | (column + (1 << 18));
+    }
+}
@@ -0,0 +1,50 @@
+package com.travelpath.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Source of street distances and travel times between points, as used by route generation.
+ * Profiles use the OpenRouteService names (foot-walking, cycling-regular, driving-car).
+ * Engines are tried in their @Order; the first available one answers.
+ */
+public interface RoutingEngine {
+    
+    String getName();
+    
+    /**
+     * True if queries are answered in-process, with no network call or quota
+     */
+    default boolean isLocal() {
+        return false;
+    }
+    
+    /**
+     * True if the engine can answer queries for the profile now
+     */
+    boolean isAvailable(String profile);
+    
+    /**
+     * Distances and durations between every pair of points ({latitude, longitude}),
+     * or null if the engine cannot answer; pairs it could not compute are missing (NaN)
+     */
+    DistanceMatrix matrix(List<double[]> points, String profile);
+    
+    /**
+     * Distances and durations from one point to each target, or null if the engine cannot answer
+     */
+    default DistanceMatrix oneToMany(double[] source, List<double[]> targets, String profile) {
+        List<double[]> points = new ArrayList<>(targets.size() + 1);
+        points.add(source);
+        points.addAll(targets);
+        DistanceMatrix matrix = matrix(points, profile);
+        if (matrix == null) {
+            return null;
+        }
+        DistanceMatrix row = new DistanceMatrix(1, targets.size());
+        for (int j = 0; j < targets.size(); j++) {
+            row.set(0, j, matrix.distanceKm(0, j + 1), matrix.durationSeconds(0, j + 1));
+        }
+        return row;
+    }
+}
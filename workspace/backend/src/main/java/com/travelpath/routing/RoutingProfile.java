@@ -0,0 +1,42 @@
+package com.travelpath.routing;
+
+/**
+ * Travel modes of the local routing engine, with the OpenRouteService profiles they answer
+ */
+public enum RoutingProfile {
+    FOOT(5.0),
+    BIKE(15.0),
+    CAR(0.0); // Speed per road class, see OsmGraphLoader
+    
+    private final double speedKmh;
+    
+    RoutingProfile(double speedKmh) {
+        this.speedKmh = speedKmh;
+    }
+    
+    public double getSpeedKmh() {
+        return speedKmh;
+    }
+    
+    /** Bit of the profile in the edge access flags */
+    public int flag() {
+        return 1 << ordinal();
+    }
+    
+    /**
+     * Profile of an ORS profile name (foot-walking, cycling-regular, driving-car, ...)
+     * @throws IllegalArgumentException for unknown profiles
+     */
+    public static RoutingProfile fromOrsProfile(String profile) {
+        if (profile.startsWith("foot")) {
+            return FOOT;
+        }
+        if (profile.startsWith("cycling")) {
+            return BIKE;
+        }
+        if (profile.startsWith("driving")) {
+            return CAR;
+        }
+        throw new IllegalArgumentException("Unknown routing profile: " + profile);
+    }
+}
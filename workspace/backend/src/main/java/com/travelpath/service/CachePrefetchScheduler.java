@@ -0,0 +1,163 @@
+package com.travelpath.service;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import com.travelpath.model.PlaceCategory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Keeps the caches warm for the tiles users actually ask for.
+ * On startup the place cache is filled from the places table; then, periodically,
+ * the hottest tiles (see TileDemandTracker) whose entries are missing or about to
+ * expire are reloaded, within a per-run budget of provider calls.
+ */
+@Component
+public class CachePrefetchScheduler {
+    
+    @Autowired
+    private TileDemandTracker tileDemandTracker;
+    
+    @Autowired
+    private PlacesService placesService;
+    
+    @Autowired
+    private WeatherService weatherService;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${places.warmup.enabled:true}")
+    private boolean warmUpEnabled;
+    
+    @Value("${places.warmup.max-entries:300}")
+    private int warmUpMaxEntries;
+    
+    @Value("${places.warmup.radius-meters:2000}")
+    private int warmUpRadiusMeters;
+    
+    @Value("${prefetch.enabled:true}")
+    private boolean prefetchEnabled;
+    
+    @Value("${prefetch.max-calls-per-run:20}")
+    private int maxCallsPerRun;
+    
+    @Value("${prefetch.min-hits:3}")
+    private int minHits;
+    
+    @Value("${prefetch.refresh-ahead-fraction:0.2}")
+    private double refreshAheadFraction;
+    
+    /**
+     * Fill the place cache from the database once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmUpEnabled) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            int loaded = placesService.warmUpFromDatabase(warmUpMaxEntries, warmUpRadiusMeters);
+            System.out.println("[CachePrefetchScheduler] Warmed place cache with " + loaded + " tile entries in "
+                + (System.currentTimeMillis() - start) + "ms");
+        } catch (Exception e) {
+            System.err.println("[CachePrefetchScheduler] Cache warm-up failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Reload the hottest entries that are missing or close to expiry, then age the demand counts
+     */
+    @Scheduled(
+        initialDelayString = "${prefetch.interval-ms:300000}",
+        fixedDelayString = "${prefetch.interval-ms:300000}"
+    )
+    public void prefetchHotTiles() {
+        if (!prefetchEnabled) {
+            return;
+        }
+        try {
+            List<TileDemandTracker.Target> hottest = tileDemandTracker.hottest(maxCallsPerRun * 4, minHits);
+            
+            // Place categories of the same tile are reloaded together (one combined provider query)
+            Map<String, Set<PlaceCategory>> placeTiles = new LinkedHashMap<>();
+            Map<String, TileDemandTracker.Target> tileTargets = new LinkedHashMap<>();
+            int budget = maxCallsPerRun;
+            int weatherCalls = 0;
+            
+            for (TileDemandTracker.Target target : hottest) {
+                if (budget <= 0) {
+                    break;
+                }
+                if (target.getKind() == TileDemandTracker.Kind.WEATHER) {
+                    if (needsRefresh("weather", target.getCacheKey())) {
+                        weatherService.prefetchCurrentWeather(target.getLatitude(), target.getLongitude());
+                        weatherCalls++;
+                        budget--;
+                    }
+                } else if (placesService.needsPrefetch(target.getLatitude(), target.getLongitude(), target.getRadiusMeters(), target.getCategory())) {
+                    String tile = target.getLatitude() + "_" + target.getLongitude() + "_" + target.getRadiusMeters();
+                    if (!placeTiles.containsKey(tile)) {
+                        tileTargets.put(tile, target);
+                        budget--;
+                    }
+                    placeTiles.computeIfAbsent(tile, k -> EnumSet.noneOf(PlaceCategory.class)).add(target.getCategory());
+                }
+            }
+            
+            placeTiles.forEach((tile, categories) -> {
+                TileDemandTracker.Target target = tileTargets.get(tile);
+                placesService.prefetchTile(target.getLatitude(), target.getLongitude(), target.getRadiusMeters(), categories);
+            });
+            
+            if (weatherCalls > 0 || !placeTiles.isEmpty()) {
+                Counter.builder("cache.prefetch.calls").tag("kind", "weather").register(meterRegistry).increment(weatherCalls);
+                Counter.builder("cache.prefetch.calls").tag("kind", "places").register(meterRegistry).increment(placeTiles.size());
+                System.out.println("[CachePrefetchScheduler] Prefetched " + placeTiles.size() + " place tiles and "
+                    + weatherCalls + " weather tiles (" + tileDemandTracker.getTrackedTiles() + " tiles tracked)");
+            }
+        } catch (Exception e) {
+            System.err.println("[CachePrefetchScheduler] Prefetch failed: " + e.getMessage());
+        } finally {
+            tileDemandTracker.decay();
+        }
+    }
+    
+    /**
+     * True if the entry is missing or has lived past (1 - refreshAheadFraction) of its time-to-live
+     */
+    private boolean needsRefresh(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (!(cache instanceof CaffeineCache caffeineCache)) {
+            return cache != null && cache.get(key) == null;
+        }
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = caffeineCache.getNativeCache();
+        Optional<Policy.FixedExpiration<Object, Object>> expiration = nativeCache.policy().expireAfterWrite();
+        Optional<Duration> age = expiration.flatMap(policy -> policy.ageOf(key));
+        if (age.isEmpty()) {
+            return nativeCache.getIfPresent(key) == null;
+        }
+        Duration ttl = expiration.get().getExpiresAfter();
+        return age.get().toMillis() >= ttl.toMillis() * (1.0 - refreshAheadFraction);
+    }
+}
@@ -0,0 +1,320 @@
+package com.travelpath.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.travelpath.dto.DirectionsResult;
+import com.travelpath.dto.RouteGeometry;
+import com.travelpath.dto.RouteLeg;
+import com.travelpath.external.OpenRouteServiceClient;
+import com.travelpath.geo.GeometryDetail;
+import com.travelpath.geo.PolylineCodec;
+import com.travelpath.geo.PolylineSimplifier;
+import com.travelpath.model.CachedDirections;
+import com.travelpath.repository.CachedDirectionsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Directions between two points, cached across requests.
+ * Endpoints are snapped to a grid of directions.cache.grid-degrees (about 20 m by default), so
+ * the navigation screens asking again for the same leg share one entry per profile.
+ * Geometries are kept as encoded polylines, simplified from the full line once per detail level
+ * when the entry is created; the in-memory tier is bounded by their total size (size-weighted eviction), and an
+ * optional database tier keeps them across restarts (full resolution only).
+ * Whole itineraries are requested in one multi-waypoint call (see getItinerary), whose legs
+ * also fill the cache for the per-leg requests of the navigation screens; the itineraries
+ * themselves are cached by their waypoints, so finer levels can be asked for later.
+ */
+@Service
+public class DirectionsService {
+    
+    /** Fixed per-entry overhead counted by the weigher, in bytes */
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+    
+    @Autowired
+    private OpenRouteServiceClient openRouteServiceClient;
+    
+    @Autowired
+    private CachedDirectionsRepository cachedDirectionsRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${directions.cache.grid-degrees:0.0002}")
+    private double gridDegrees;
+    
+    @Value("${directions.cache.max-weight-bytes:16777216}")
+    private long maxWeightBytes;
+    
+    @Value("${directions.cache.ttl-hours:168}")
+    private long ttlHours;
+    
+    @Value("${directions.itinerary.max-waypoints:50}")
+    private int maxWaypoints;
+    
+    @Value("${directions.itinerary.cache.max-weight-bytes:8388608}")
+    private long itineraryMaxWeightBytes;
+    
+    @Value("${directions.cache.persistent.enabled:false}")
+    private boolean persistentEnabled;
+    
+    @Value("${directions.cache.persistent.ttl-days:30}")
+    private long persistentTtlDays;
+    
+    private Cache<String, DirectionsResult> cache;
+    private Cache<String, RouteGeometry> itineraries;
+    
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+            .maximumWeight(maxWeightBytes)
+            .weigher((String key, DirectionsResult value) -> weigh(key, value.getPolylines()))
+            .expireAfterWrite(Duration.ofHours(ttlHours))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "directions");
+        itineraries = Caffeine.newBuilder()
+            .maximumWeight(itineraryMaxWeightBytes)
+            .weigher((String key, RouteGeometry value) -> weigh(key, value.getPolylines()))
+            .expireAfterWrite(Duration.ofHours(ttlHours))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, itineraries, "directions.itineraries");
+    }
+    
+    /**
+     * Directions for the profile (e.g. foot-walking), or null if none can be had:
+     * no API key, ORS failing or its circuit open, or no route between the points
+     */
+    public DirectionsResult getDirections(double fromLat, double fromLon, double toLat, double toLon, String profile) {
+        String key = cacheKey(fromLat, fromLon, toLat, toLon, profile);
+        DirectionsResult cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        
+        DirectionsResult stored = loadPersistent(key);
+        if (stored != null) {
+            cache.put(key, stored);
+            return stored;
+        }
+        
+        if (!openRouteServiceClient.isAvailable("directions")) {
+            return null;
+        }
+        OpenRouteServiceClient.DirectionsResponse response = openRouteServiceClient.getDirections(
+            fromLat, fromLon, toLat, toLon, profile
+        );
+        OpenRouteServiceClient.Feature route = response != null ? response.first() : null;
+        if (route == null || route.properties == null || route.properties.summary == null
+                || route.geometry == null || route.geometry.coordinates == null) {
+            return null;
+        }
+        
+        return store(key, route.properties.summary.distance, route.properties.summary.duration, route.geometry.coordinates);
+    }
+    
+    /**
+     * Geometry (every detail level) and legs of a route through the waypoints ({latitude, longitude},
+     * in order), or null if ORS cannot give it; callers then fall back to getDirections per leg.
+     * One directions call covers up to max-waypoints waypoints; longer itineraries are split
+     * into chunks sharing their end waypoint
+     */
+    public RouteGeometry getItinerary(List<double[]> waypoints, String profile) {
+        if (waypoints.size() < 2) {
+            return null;
+        }
+        String itineraryKey = itineraryKey(waypoints, profile);
+        RouteGeometry cached = itineraries.getIfPresent(itineraryKey);
+        if (cached != null) {
+            return cached;
+        }
+        if (!openRouteServiceClient.isAvailable("directions")) {
+            return null;
+        }
+        
+        List<double[]> coordinates = new ArrayList<>();
+        List<RouteLeg> legs = new ArrayList<>();
+        double distance = 0;
+        double duration = 0;
+        int chunkSize = Math.max(2, maxWaypoints);
+        for (int first = 0; first < waypoints.size() - 1; first += chunkSize - 1) {
+            List<double[]> chunk = waypoints.subList(first, Math.min(waypoints.size(), first + chunkSize));
+            List<OpenRouteServiceClient.Location> locations = new ArrayList<>();
+            for (double[] waypoint : chunk) {
+                locations.add(new OpenRouteServiceClient.Location(waypoint[0], waypoint[1]));
+            }
+            OpenRouteServiceClient.DirectionsResponse response = openRouteServiceClient.getRouteWithWaypoints(locations, profile);
+            OpenRouteServiceClient.Feature route = response != null ? response.first() : null;
+            if (!isCompleteItinerary(route, chunk.size())) {
+                return null;
+            }
+            
+            double[][] geometry = route.geometry.coordinates;
+            int[] wayPoints = route.properties.way_points;
+            for (int leg = 0; leg < chunk.size() - 1; leg++) {
+                OpenRouteServiceClient.Summary segment = route.properties.segments.get(leg);
+                legs.add(new RouteLeg(segment.distance, segment.duration));
+                distance += segment.distance;
+                duration += segment.duration;
+                double[] from = chunk.get(leg);
+                double[] to = chunk.get(leg + 1);
+                store(cacheKey(from[0], from[1], to[0], to[1], profile), segment.distance, segment.duration,
+                    Arrays.copyOfRange(geometry, wayPoints[leg], wayPoints[leg + 1] + 1));
+            }
+            // The first point of a chunk is the last point of the previous one
+            coordinates.addAll(Arrays.asList(geometry).subList(coordinates.isEmpty() ? 0 : 1, geometry.length));
+        }
+        
+        RouteGeometry geometry = new RouteGeometry(distance, duration, encodeLevels(coordinates.toArray(new double[0][])), legs);
+        itineraries.put(itineraryKey, geometry);
+        return geometry;
+    }
+    
+    /**
+     * Encoded polyline of a [longitude, latitude] line at every detail level; levels whose
+     * simplification keeps the same points as the finer level share its string
+     */
+    public Map<GeometryDetail, String> encodeLevels(double[][] coordinates) {
+        Map<GeometryDetail, String> polylines = new EnumMap<>(GeometryDetail.class);
+        String full = PolylineCodec.encodeLonLat(coordinates);
+        polylines.put(GeometryDetail.FULL, full);
+        int previousPoints = coordinates.length;
+        String previousEncoded = full;
+        // Every level is simplified from the full line, so its error stays within its own
+        // tolerance; a coarser tolerance keeps a subset of the points of a finer one, so the
+        // same point count means the same line
+        GeometryDetail[] levels = GeometryDetail.values();
+        for (int i = levels.length - 2; i >= 0; i--) {
+            double[][] simplified = PolylineSimplifier.simplify(coordinates, levels[i].getToleranceMeters());
+            if (simplified.length != previousPoints) {
+                previousEncoded = PolylineCodec.encodeLonLat(simplified);
+                previousPoints = simplified.length;
+            }
+            polylines.put(levels[i], previousEncoded);
+        }
+        return polylines;
+    }
+    
+    /**
+     * Drop expired rows of the persistent tier, once a day
+     */
+    @Scheduled(initialDelay = 600000, fixedDelay = 86400000)
+    public void purgeExpired() {
+        if (!persistentEnabled) {
+            return;
+        }
+        try {
+            int deleted = cachedDirectionsRepository.deleteCreatedBefore(LocalDateTime.now().minusDays(persistentTtlDays));
+            if (deleted > 0) {
+                System.out.println("[DirectionsService] Purged " + deleted + " expired directions");
+            }
+        } catch (Exception e) {
+            System.err.println("[DirectionsService] Error purging directions cache: " + e.getMessage());
+        }
+    }
+    
+    private DirectionsResult loadPersistent(String key) {
+        if (!persistentEnabled) {
+            return null;
+        }
+        try {
+            Optional<CachedDirections> row = cachedDirectionsRepository.findById(key);
+            if (row.isEmpty() || row.get().getCreatedAt().isBefore(LocalDateTime.now().minusDays(persistentTtlDays))) {
+                return null;
+            }
+            CachedDirections directions = row.get();
+            return new DirectionsResult(
+                directions.getDistanceMeters(),
+                directions.getDurationSeconds(),
+                encodeLevels(PolylineCodec.decodeLonLat(directions.getPolyline()))
+            );
+        } catch (Exception e) {
+            System.err.println("[DirectionsService] Error reading directions cache: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private void savePersistent(String key, DirectionsResult result) {
+        if (!persistentEnabled) {
+            return;
+        }
+        try {
+            cachedDirectionsRepository.upsert(
+                key, result.getDistanceMeters(), result.getDurationSeconds(), result.getPolyline(), LocalDateTime.now()
+            );
+        } catch (Exception e) {
+            System.err.println("[DirectionsService] Error saving directions cache: " + e.getMessage());
+        }
+    }
+    
+    private DirectionsResult store(String key, double distanceMeters, double durationSeconds, double[][] coordinates) {
+        DirectionsResult result = new DirectionsResult(distanceMeters, durationSeconds, encodeLevels(coordinates));
+        cache.put(key, result);
+        savePersistent(key, result);
+        return result;
+    }
+    
+    /**
+     * True if the route has one segment per leg and the index of every waypoint in its geometry
+     */
+    private static boolean isCompleteItinerary(OpenRouteServiceClient.Feature route, int waypoints) {
+        if (route == null || route.properties == null || route.properties.summary == null
+                || route.geometry == null || route.geometry.coordinates == null) {
+            return false;
+        }
+        int[] wayPoints = route.properties.way_points;
+        if (route.properties.segments == null || route.properties.segments.size() != waypoints - 1
+                || wayPoints == null || wayPoints.length != waypoints) {
+            return false;
+        }
+        for (int i = 1; i < wayPoints.length; i++) {
+            if (wayPoints[i] < wayPoints[i - 1] || wayPoints[i] >= route.geometry.coordinates.length) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static int weigh(String key, Map<GeometryDetail, String> polylines) {
+        int chars = key.length();
+        Map<String, Boolean> distinct = new IdentityHashMap<>();
+        for (String polyline : polylines.values()) {
+            if (distinct.put(polyline, Boolean.TRUE) == null) {
+                chars += polyline.length();
+            }
+        }
+        return ENTRY_OVERHEAD_BYTES + 2 * chars;
+    }
+    
+    private String cacheKey(double fromLat, double fromLon, double toLat, double toLon, String profile) {
+        return profile + ":" + cell(fromLat) + "," + cell(fromLon) + ";" + cell(toLat) + "," + cell(toLon);
+    }
+    
+    private String itineraryKey(List<double[]> waypoints, String profile) {
+        StringBuilder key = new StringBuilder(profile);
+        for (double[] waypoint : waypoints) {
+            key.append(key.length() == profile.length() ? ':' : ';').append(cell(waypoint[0])).append(',').append(cell(waypoint[1]));
+        }
+        return key.toString();
+    }
+    
+    private long cell(double value) {
+        return Math.round(value / gridDegrees);
+    }
+}
@@ -0,0 +1,269 @@
+package com.travelpath.service;
+
+import com.travelpath.dto.PlaceSuggestion;
+import com.travelpath.geo.GeoUtils;
+import com.travelpath.model.Place;
+import com.travelpath.model.PlaceCategory;
+import com.travelpath.repository.PlaceRepository;
+import com.travelpath.util.TextNormalizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Place name autocomplete served from memory.
+ * Every word of a place name (and, with a lower weight, of its address) is kept in a sorted
+ * word index, so all words starting with a prefix are one contiguous range. The index is
+ * built from the places table at startup and updated when providers add places.
+ */
+@Service
+public class PlaceAutocompleteService {
+    
+    private static final int MAX_LIMIT = 50;
+    
+    @Autowired
+    private PlaceRepository placeRepository;
+    
+    /** Distance (km) at which the geographic bias halves the score */
+    @Value("${places.autocomplete.bias-distance-km:5}")
+    private double biasDistanceKm;
+    
+    private final NavigableMap<String, Set<String>> nameIndex = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, Set<String>> addressIndex = new ConcurrentSkipListMap<>();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    /** Held by every index update: events come from several provider threads, queries never take it */
+    private final Object indexLock = new Object();
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromDatabase() {
+        try {
+            long start = System.currentTimeMillis();
+            for (Object[] row : placeRepository.findAllForSearch()) {
+                add(new Entry((String) row[0], (String) row[1], (String) row[2], (PlaceCategory) row[3], (Double) row[4], (Double) row[5]));
+            }
+            System.out.println("[PlaceAutocompleteService] Indexed " + entries.size() + " place names in "
+                + (System.currentTimeMillis() - start) + "ms");
+        } catch (Exception e) {
+            System.err.println("[PlaceAutocompleteService] Error loading places: " + e.getMessage());
+        }
+    }
+    
+    @EventListener
+    public void onPlacesStored(PlacesStoredEvent event) {
+        for (Place place : event.getPlaces()) {
+            if (place.getId() != null && place.getName() != null) {
+                add(new Entry(place.getId(), place.getName(), place.getAddress(), place.getCategory(), place.getLatitude(), place.getLongitude()));
+            }
+        }
+    }
+    
+    /**
+     * Places whose name (or address) words start with the words of the query, best first.
+     * Every query word must match; the last one may be incomplete.
+     *
+     * @param latitude optional position to favour nearby places
+     * @param longitude optional position to favour nearby places
+     */
+    public List<PlaceSuggestion> suggest(String query, Double latitude, Double longitude, PlaceCategory category, int limit) {
+        List<String> words = TextNormalizer.tokens(query);
+        if (words.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        // Candidates come from the most selective word (fewest index matches), every other
+        // word is then checked against the words of each candidate
+        Map<String, Double> candidates = null;
+        String candidateWord = null;
+        for (String word : words) {
+            Map<String, Double> matches = match(word, category);
+            if (candidates == null || matches.size() < candidates.size()) {
+                candidates = matches;
+                candidateWord = word;
+            }
+            if (candidates.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+        
+        Map<String, Double> scores = new HashMap<>();
+        for (Map.Entry<String, Double> candidate : candidates.entrySet()) {
+            Entry entry = entries.get(candidate.getKey());
+            if (entry == null) {
+                continue;
+            }
+            double score = candidate.getValue();
+            for (String word : words) {
+                if (word.equals(candidateWord)) {
+                    continue;
+                }
+                double wordScore = entry.score(word);
+                if (wordScore == 0) {
+                    score = 0;
+                    break;
+                }
+                score += wordScore;
+            }
+            if (score > 0) {
+                scores.put(entry.id, score);
+            }
+        }
+        
+        // Every match is ranked; only the best `count` are kept (lowest score at the head)
+        int count = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        boolean biased = latitude != null && longitude != null;
+        String normalizedQuery = String.join(" ", words);
+        PriorityQueue<Map.Entry<Entry, Double>> best = new PriorityQueue<>(count + 1, Map.Entry.comparingByValue());
+        for (Map.Entry<String, Double> score : scores.entrySet()) {
+            Entry entry = entries.get(score.getKey());
+            if (entry == null) {
+                continue;
+            }
+            double value = score.getValue();
+            if (entry.normalizedName.startsWith(normalizedQuery)) {
+                value += 2.0; // The name itself starts with the query
+            }
+            // Shorter names first among equals, never below 0 so the bias keeps near before far
+            value = Math.max(0, value - entry.normalizedName.length() * 0.01);
+            if (biased && entry.latitude != null && entry.longitude != null) {
+                double distanceKm = GeoUtils.haversineKm(latitude, longitude, entry.latitude, entry.longitude);
+                value *= 1.0 / (1.0 + distanceKm / biasDistanceKm);
+            }
+            best.add(Map.entry(entry, value));
+            if (best.size() > count) {
+                best.poll();
+            }
+        }
+        
+        List<PlaceSuggestion> suggestions = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            suggestions.add(best.poll().getKey().toSuggestion());
+        }
+        Collections.reverse(suggestions);
+        return suggestions;
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    /**
+     * Ids of the places (of the category, if any) with a word starting with the prefix: 2 points
+     * for a full word in the name, 1 for a prefix of a word in the name, 0.5 for the address
+     * (same scores as Entry.score)
+     */
+    private Map<String, Double> match(String prefix, PlaceCategory category) {
+        Map<String, Double> scores = new HashMap<>();
+        collect(nameIndex, prefix, 2.0, 1.0, category, scores);
+        collect(addressIndex, prefix, 0.5, 0.5, category, scores);
+        return scores;
+    }
+    
+    private void collect(NavigableMap<String, Set<String>> index, String prefix, double exactScore, double prefixScore,
+                         PlaceCategory category, Map<String, Double> scores) {
+        for (Map.Entry<String, Set<String>> word : index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+            double score = word.getKey().length() == prefix.length() ? exactScore : prefixScore;
+            for (String id : word.getValue()) {
+                if (category != null) {
+                    Entry entry = entries.get(id);
+                    if (entry == null || entry.category != category) {
+                        continue;
+                    }
+                }
+                scores.merge(id, score, Math::max);
+            }
+        }
+    }
+    
+    /**
+     * Updates are serialized: ConcurrentSkipListMap.compute* is not atomic, so a concurrent
+     * unindex could drop a word set another thread has just added an id to
+     */
+    private void add(Entry entry) {
+        synchronized (indexLock) {
+            Entry previous = entries.put(entry.id, entry);
+            if (previous != null) {
+                unindex(nameIndex, previous.nameWords, previous.id);
+                unindex(addressIndex, previous.addressWords, previous.id);
+            }
+            index(nameIndex, entry.nameWords, entry.id);
+            index(addressIndex, entry.addressWords, entry.id);
+        }
+    }
+    
+    private static void index(NavigableMap<String, Set<String>> index, Set<String> words, String id) {
+        for (String word : words) {
+            index.computeIfAbsent(word, w -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+    
+    private static void unindex(NavigableMap<String, Set<String>> index, Set<String> words, String id) {
+        for (String word : words) {
+            index.computeIfPresent(word, (w, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+    
+    private static class Entry {
+        final String id;
+        final String name;
+        final String address;
+        final PlaceCategory category;
+        final Double latitude;
+        final Double longitude;
+        final String normalizedName;
+        final Set<String> nameWords;
+        final Set<String> addressWords;
+        
+        Entry(String id, String name, String address, PlaceCategory category, Double latitude, Double longitude) {
+            this.id = id;
+            this.name = name;
+            this.address = address;
+            this.category = category;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.normalizedName = TextNormalizer.normalize(name);
+            this.nameWords = new HashSet<>(TextNormalizer.tokens(name));
+            this.addressWords = new HashSet<>(TextNormalizer.tokens(address));
+        }
+        
+        /**
+         * Score of one query word against this place, 0 if no word of the place starts with it
+         */
+        double score(String prefix) {
+            double best = 0;
+            for (String word : nameWords) {
+                if (word.startsWith(prefix)) {
+                    best = Math.max(best, word.length() == prefix.length() ? 2.0 : 1.0);
+                }
+            }
+            if (best == 0) {
+                for (String word : addressWords) {
+                    if (word.startsWith(prefix)) {
+                        return 0.5;
+                    }
+                }
+            }
+            return best;
+        }
+        
+        PlaceSuggestion toSuggestion() {
+            return new PlaceSuggestion(id, name, category, latitude, longitude, address);
+        }
+    }
+}
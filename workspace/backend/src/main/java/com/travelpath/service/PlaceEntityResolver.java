@@ -0,0 +1,282 @@
+package com.travelpath.service;
+
+import com.travelpath.geo.GeoUtils;
+import com.travelpath.model.Place;
+import com.travelpath.model.PlaceAlias;
+import com.travelpath.util.TextNormalizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Entity resolution for places coming from several providers.
+ * The same venue arrives as osm_<id> from Overpass, as a Google id and as a Yelp id;
+ * duplicates are found with a spatial hash (only nearby places are compared) and a
+ * name similarity check (normalised tokens and trigrams). One canonical place is kept,
+ * the other provider ids are recorded as aliases.
+ */
+@Component
+public class PlaceEntityResolver {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "le", "la", "les", "l", "de", "du", "des", "d", "et", "au", "aux",
+        "the", "of", "and", "a", "an"
+    );
+
+    @Value("${places.dedup.max-distance-meters:80}")
+    private double maxDistanceMeters = 80;
+
+    @Value("${places.dedup.min-name-similarity:0.6}")
+    private double minNameSimilarity = 0.6;
+
+    /**
+     * Resolve incoming places against already known (stored) places
+     */
+    public Resolution resolve(List<Place> incoming, Collection<Place> known) {
+        SpatialHash index = new SpatialHash(maxDistanceMeters);
+        Set<String> knownIds = new HashSet<>();
+        for (Place place : known) {
+            if (isLocated(place)) {
+                index.add(place);
+                knownIds.add(place.getId());
+            }
+        }
+
+        Map<String, Place> canonicalById = new LinkedHashMap<>();
+        Map<String, String> aliasToCanonical = new HashMap<>();
+        Map<String, String> aliasProvider = new HashMap<>();
+
+        for (Place place : incoming) {
+            if (place == null || place.getId() == null) {
+                continue;
+            }
+            String existingCanonical = aliasToCanonical.get(place.getId());
+            if (canonicalById.containsKey(place.getId()) || existingCanonical != null) {
+                continue; // Same provider id twice
+            }
+            if (!isLocated(place)) {
+                canonicalById.put(place.getId(), place);
+                continue;
+            }
+
+            Place match = index.findMatch(place);
+            if (match == null || match.getId().equals(place.getId())) {
+                if (match == null) {
+                    index.add(place);
+                }
+                canonicalById.put(place.getId(), place);
+                continue;
+            }
+
+            // Known (stored) places stay canonical; among new places the richer provider wins
+            Place canonical = match;
+            Place duplicate = place;
+            if (!knownIds.contains(match.getId()) && providerRank(place) > providerRank(match)) {
+                canonical = place;
+                duplicate = match;
+                index.replace(match, place);
+                canonicalById.remove(match.getId());
+                for (Map.Entry<String, String> entry : aliasToCanonical.entrySet()) {
+                    if (entry.getValue().equals(match.getId())) {
+                        entry.setValue(place.getId());
+                    }
+                }
+            }
+
+            fillMissingFields(canonical, duplicate);
+            canonicalById.put(canonical.getId(), canonical);
+            aliasToCanonical.put(duplicate.getId(), canonical.getId());
+            aliasProvider.put(duplicate.getId(), providerOf(duplicate));
+        }
+
+        List<PlaceAlias> aliases = new ArrayList<>();
+        aliasToCanonical.forEach((aliasId, canonicalId) ->
+            aliases.add(new PlaceAlias(aliasId, canonicalId, aliasProvider.get(aliasId)))
+        );
+
+        return new Resolution(new ArrayList<>(canonicalById.values()), aliases);
+    }
+
+    /**
+     * Remove duplicates from a candidate list (no stored places involved)
+     */
+    public List<Place> deduplicate(List<Place> places) {
+        return resolve(places, Collections.emptyList()).getPlaces();
+    }
+
+    /**
+     * Similarity of two place names in [0, 1]: the best of token containment and trigram Jaccard
+     */
+    public double nameSimilarity(String first, String second) {
+        List<String> firstTokens = tokens(first);
+        List<String> secondTokens = tokens(second);
+        if (firstTokens.isEmpty() || secondTokens.isEmpty()) {
+            return 0.0;
+        }
+
+        Set<String> firstSet = new HashSet<>(firstTokens);
+        Set<String> secondSet = new HashSet<>(secondTokens);
+        int shared = 0;
+        int sharedChars = 0;
+        for (String token : firstSet) {
+            if (secondSet.contains(token)) {
+                shared++;
+                sharedChars += token.length();
+            }
+        }
+        // "Louvre" vs "Musée du Louvre": all tokens of the shorter name are contained in the other
+        double containment = sharedChars >= 4
+            ? (double) shared / Math.min(firstSet.size(), secondSet.size())
+            : 0.0;
+
+        Set<String> firstTrigrams = trigrams(String.join(" ", firstTokens));
+        Set<String> secondTrigrams = trigrams(String.join(" ", secondTokens));
+        int intersection = 0;
+        for (String trigram : firstTrigrams) {
+            if (secondTrigrams.contains(trigram)) {
+                intersection++;
+            }
+        }
+        int union = firstTrigrams.size() + secondTrigrams.size() - intersection;
+        double jaccard = union == 0 ? 0.0 : (double) intersection / union;
+
+        return Math.max(containment, jaccard);
+    }
+
+    public String providerOf(Place place) {
+        if (place.getProvider() != null) {
+            return place.getProvider();
+        }
+        return place.getId() != null && place.getId().startsWith("osm_") ? "overpass" : "unknown";
+    }
+
+    private int providerRank(Place place) {
+        return switch (providerOf(place)) {
+            case "google" -> 3;
+            case "yelp" -> 2;
+            case "overpass" -> 1;
+            default -> 0;
+        };
+    }
+
+    private boolean isMatch(Place first, Place second) {
+        double distance = GeoUtils.haversineMeters(
+            first.getLatitude(), first.getLongitude(),
+            second.getLatitude(), second.getLongitude()
+        );
+        return distance <= maxDistanceMeters && nameSimilarity(first.getName(), second.getName()) >= minNameSimilarity;
+    }
+
+    private void fillMissingFields(Place canonical, Place duplicate) {
+        if (canonical.getAddress() == null) canonical.setAddress(duplicate.getAddress());
+        if (canonical.getDescription() == null) canonical.setDescription(duplicate.getDescription());
+        if (canonical.getAverageCost() == null) canonical.setAverageCost(duplicate.getAverageCost());
+        if (canonical.getEstimatedWaitTime() == null) canonical.setEstimatedWaitTime(duplicate.getEstimatedWaitTime());
+    }
+
+    private static boolean isLocated(Place place) {
+        return place.getLatitude() != null && place.getLongitude() != null
+            && !(place.getLatitude() == 0.0 && place.getLongitude() == 0.0);
+    }
+
+    private static List<String> tokens(String name) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : TextNormalizer.tokens(name)) {
+            if (!STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static Set<String> trigrams(String text) {
+        String padded = "  " + text + " ";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Grid of cells roughly the size of the match distance, so a lookup only
+     * compares a place with the places of its neighbouring cells
+     */
+    private class SpatialHash {
+        private final double cellDegreesLat;
+        private final Map<Long, List<Place>> cells = new HashMap<>();
+
+        SpatialHash(double cellMeters) {
+            this.cellDegreesLat = cellMeters / GeoUtils.METERS_PER_DEGREE_LAT;
+        }
+
+        void add(Place place) {
+            cells.computeIfAbsent(cellKey(cellY(place.getLatitude()), cellX(place.getLatitude(), place.getLongitude())),
+                k -> new ArrayList<>()).add(place);
+        }
+
+        void replace(Place oldPlace, Place newPlace) {
+            List<Place> cell = cells.get(cellKey(cellY(oldPlace.getLatitude()), cellX(oldPlace.getLatitude(), oldPlace.getLongitude())));
+            if (cell != null) {
+                cell.remove(oldPlace);
+            }
+            add(newPlace);
+        }
+
+        Place findMatch(Place place) {
+            long y = cellY(place.getLatitude());
+            long x = cellX(place.getLatitude(), place.getLongitude());
+            Place best = null;
+            double bestSimilarity = 0.0;
+            for (long dy = -1; dy <= 1; dy++) {
+                for (long dx = -1; dx <= 1; dx++) {
+                    List<Place> cell = cells.get(cellKey(y + dy, x + dx));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (Place candidate : cell) {
+                        if (isMatch(place, candidate)) {
+                            double similarity = nameSimilarity(place.getName(), candidate.getName());
+                            if (similarity > bestSimilarity) {
+                                bestSimilarity = similarity;
+                                best = candidate;
+                            }
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+
+        private long cellY(double latitude) {
+            return (long) Math.floor(latitude / cellDegreesLat);
+        }
+
+        private long cellX(double latitude, double longitude) {
+            // Cells keep the same width in meters, so the 3x3 neighbourhood covers the match distance at any latitude
+            double cellDegreesLon = maxDistanceMeters / GeoUtils.metersPerDegreeLon(latitude);
+            return (long) Math.floor(longitude / cellDegreesLon);
+        }
+
+        private long cellKey(long y, long x) {
+            return (y << 32) ^ (x & 0xffffffffL);
+        }
+    }
+
+    public static class Resolution {
+        private final List<Place> places;
+        private final List<PlaceAlias> aliases;
+
+        public Resolution(List<Place> places, List<PlaceAlias> aliases) {
+            this.places = places;
+            this.aliases = aliases;
+        }
+
+        /** Canonical places, in input order */
+        public List<Place> getPlaces() { return places; }
+
+        /** Provider ids that were merged into a canonical place */
+        public List<PlaceAlias> getAliases() { return aliases; }
+    }
+}
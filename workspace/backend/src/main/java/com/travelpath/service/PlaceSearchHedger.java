@@ -0,0 +1,255 @@
+package com.travelpath.service;
+
+import com.travelpath.util.LatencyTracker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Hedged provider calls for place searches.
+ * The primary provider is started first; if it has not answered after the hedge delay
+ * (configured, or the primary's observed p95) the fallback provider is started in parallel
+ * and the first useful result wins. The slower useful result is handed to a late-result
+ * callback so it can still be merged into the cache.
+ */
+@Component
+public class PlaceSearchHedger {
+
+    @Value("${places.hedge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${places.hedge.delay-ms:800}")
+    private long hedgeDelayMs;
+
+    @Value("${places.hedge.use-p95:true}")
+    private boolean useObservedP95;
+
+    @Value("${places.hedge.min-delay-ms:100}")
+    private long minHedgeDelayMs;
+
+    @Value("${places.hedge.min-samples:20}")
+    private int minSamples;
+
+    @Value("${places.hedge.max-wait-ms:20000}")
+    private long maxWaitMs;
+
+    private final Executor executor;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> wins = new ConcurrentHashMap<>();
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final Counter searchCounter;
+    private final Counter hedgeCounter;
+
+    public PlaceSearchHedger(@Qualifier("providerExecutor") Executor executor, MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.searchCounter = Counter.builder("places.search.requests")
+            .description("Place searches that reached the external providers")
+            .register(meterRegistry);
+        this.hedgeCounter = Counter.builder("places.search.hedged")
+            .description("Place searches where the fallback provider was launched in parallel")
+            .register(meterRegistry);
+        Gauge.builder("places.search.hedge.rate", this, h -> ratio(h.hedges.get(), h.searches.get()))
+            .description("Share of place searches that were hedged")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Run a hedged search and return the first useful result.
+     * If neither provider returns something useful, both results are merged.
+     */
+    public <T> T search(
+        String primaryName,
+        Supplier<T> primary,
+        String fallbackName,
+        Supplier<T> fallback,
+        Predicate<T> useful,
+        BinaryOperator<T> merge,
+        Consumer<T> lateResult
+    ) {
+        searches.incrementAndGet();
+        searchCounter.increment();
+
+        if (primary == null) {
+            T result = timedCall(fallbackName, fallback);
+            recordWinIfUseful(fallbackName, result, useful);
+            return result;
+        }
+
+        if (!enabled) {
+            T primaryResult = timedCall(primaryName, primary);
+            if (isUseful(useful, primaryResult)) {
+                recordWin(primaryName);
+                return primaryResult;
+            }
+            T fallbackResult = timedCall(fallbackName, fallback);
+            recordWinIfUseful(fallbackName, fallbackResult, useful);
+            return isUseful(useful, fallbackResult) ? fallbackResult : merge.apply(primaryResult, fallbackResult);
+        }
+
+        CompletableFuture<T> primaryFuture = CompletableFuture.supplyAsync(() -> timedCall(primaryName, primary), executor);
+        long delay = currentHedgeDelay(primaryName);
+
+        try {
+            T primaryResult = primaryFuture.get(delay, TimeUnit.MILLISECONDS);
+            if (isUseful(useful, primaryResult)) {
+                recordWin(primaryName);
+                return primaryResult;
+            }
+            // Primary answered before the hedge delay but with nothing useful: plain fallback
+            T fallbackResult = timedCall(fallbackName, fallback);
+            recordWinIfUseful(fallbackName, fallbackResult, useful);
+            return isUseful(useful, fallbackResult) ? fallbackResult : merge.apply(primaryResult, fallbackResult);
+        } catch (TimeoutException e) {
+            // Primary is slow, hedge below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            primaryFuture.cancel(true);
+            return merge.apply(null, null);
+        } catch (ExecutionException e) {
+            // timedCall never throws, kept for completeness
+            return timedCall(fallbackName, fallback);
+        }
+
+        hedges.incrementAndGet();
+        hedgeCounter.increment();
+        System.out.println("[PlaceSearchHedger] " + primaryName + " slower than " + delay + "ms, hedging with " + fallbackName);
+
+        CompletableFuture<T> fallbackFuture = CompletableFuture.supplyAsync(() -> timedCall(fallbackName, fallback), executor);
+        CompletableFuture<Outcome<T>> winner = new CompletableFuture<>();
+
+        primaryFuture.thenAccept(result -> {
+            if (isUseful(useful, result)) {
+                winner.complete(new Outcome<>(primaryName, result));
+            }
+        });
+        fallbackFuture.thenAccept(result -> {
+            if (isUseful(useful, result)) {
+                winner.complete(new Outcome<>(fallbackName, result));
+            }
+        });
+        CompletableFuture.allOf(primaryFuture, fallbackFuture).thenRun(() ->
+            winner.complete(new Outcome<>(null, merge.apply(primaryFuture.join(), fallbackFuture.join())))
+        );
+
+        Outcome<T> outcome;
+        try {
+            outcome = winner.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            System.err.println("[PlaceSearchHedger] No provider answered within " + maxWaitMs + "ms");
+            outcome = new Outcome<>(null, merge.apply(primaryFuture.getNow(null), fallbackFuture.getNow(null)));
+            winner.complete(outcome);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = new Outcome<>(null, merge.apply(null, null));
+            winner.complete(outcome);
+        } catch (ExecutionException e) {
+            outcome = new Outcome<>(null, merge.apply(null, null));
+        }
+
+        if (outcome.provider != null) {
+            recordWin(outcome.provider);
+        }
+
+        // Hand the slower useful result over so it can be merged into the cache
+        String winnerName = outcome.provider;
+        if (lateResult != null) {
+            if (!primaryName.equals(winnerName)) {
+                forwardLateResult(primaryName, primaryFuture, useful, lateResult);
+            }
+            if (!fallbackName.equals(winnerName)) {
+                forwardLateResult(fallbackName, fallbackFuture, useful, lateResult);
+            }
+        }
+
+        return outcome.value;
+    }
+
+    private <T> void forwardLateResult(String provider, CompletableFuture<T> future, Predicate<T> useful, Consumer<T> lateResult) {
+        future.thenAcceptAsync(result -> {
+            if (isUseful(useful, result)) {
+                System.out.println("[PlaceSearchHedger] Merging late result from " + provider);
+                try {
+                    lateResult.accept(result);
+                } catch (Exception e) {
+                    System.err.println("[PlaceSearchHedger] Error merging late result from " + provider + ": " + e.getMessage());
+                }
+            }
+        }, executor);
+    }
+
+    private long currentHedgeDelay(String primaryName) {
+        LatencyTracker tracker = latencies.get(primaryName);
+        if (useObservedP95 && tracker != null && tracker.size() >= minSamples) {
+            return Math.max(minHedgeDelayMs, tracker.percentile(0.95));
+        }
+        return hedgeDelayMs;
+    }
+
+    private <T> T timedCall(String provider, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            latencies.computeIfAbsent(provider, p -> new LatencyTracker(200))
+                .record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return result;
+        } catch (Exception e) {
+            System.err.println("[PlaceSearchHedger] Provider " + provider + " failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private <T> boolean isUseful(Predicate<T> useful, T result) {
+        return result != null && useful.test(result);
+    }
+
+    private <T> void recordWinIfUseful(String provider, T result, Predicate<T> useful) {
+        if (isUseful(useful, result)) {
+            recordWin(provider);
+        }
+    }
+
+    private void recordWin(String provider) {
+        wins.computeIfAbsent(provider, p -> {
+            AtomicLong count = new AtomicLong();
+            Gauge.builder("places.search.win.rate", count, c -> ratio(c.get(), searches.get()))
+                .description("Share of place searches won by this provider")
+                .tag("provider", p)
+                .register(meterRegistry);
+            return count;
+        }).incrementAndGet();
+        meterRegistry.counter("places.search.wins", "provider", provider).increment();
+    }
+
+    private static double ratio(long part, long total) {
+        return total == 0 ? 0.0 : (double) part / total;
+    }
+
+    private static class Outcome<T> {
+        final String provider;
+        final T value;
+
+        Outcome(String provider, T value) {
+            this.provider = provider;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.travelpath.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.travelpath.dto.MapMarker;
+import com.travelpath.geo.WebMercator;
+import com.travelpath.model.Place;
+import com.travelpath.model.PlaceCategory;
+import com.travelpath.repository.PlaceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Map markers for a viewport (bbox + zoom), clustered on the server.
+ * All places are kept in memory in a fixed grid of small cells; a viewport is split into
+ * map tiles and each tile is clustered on a grid of cells (about 32 px at 256 px tiles),
+ * so a tile returns at most cellsPerTile^2 markers whatever the density.
+ * Clustered tiles are cached per zoom and invalidated when places are added.
+ */
+@Service
+public class PlaceViewportService {
+    
+    /** Size of the in-memory grid cells in degrees */
+    private static final double GRID_DEGREES = 0.01;
+    
+    private static final int MAX_ZOOM = 22;
+    
+    @Autowired
+    private PlaceRepository placeRepository;
+    
+    @Value("${places.viewport.cells-per-tile:8}")
+    private int cellsPerTile;
+    
+    @Value("${places.viewport.max-cluster-zoom:17}")
+    private int maxClusterZoom;
+    
+    @Value("${places.viewport.max-tiles:64}")
+    private int maxTiles;
+    
+    private final Map<Long, List<PlacePoint>> grid = new ConcurrentHashMap<>();
+    private final Map<String, PlacePoint> pointsById = new ConcurrentHashMap<>();
+    private final Cache<String, List<MapMarker>> tileCache;
+    
+    public PlaceViewportService(
+        @Value("${places.viewport.cache.max-size:5000}") long cacheMaxSize,
+        @Value("${places.viewport.cache.ttl-minutes:60}") long cacheTtlMinutes
+    ) {
+        this.tileCache = Caffeine.newBuilder()
+            .maximumSize(cacheMaxSize)
+            .expireAfterWrite(Duration.ofMinutes(cacheTtlMinutes))
+            .build();
+    }
+    
+    /**
+     * Load every stored place into the grid
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromDatabase() {
+        try {
+            long start = System.currentTimeMillis();
+            for (Object[] row : placeRepository.findAllMarkers()) {
+                add(new PlacePoint((String) row[0], (String) row[1], (PlaceCategory) row[2], (Double) row[3], (Double) row[4]));
+            }
+            System.out.println("[PlaceViewportService] Indexed " + pointsById.size() + " places in "
+                + (System.currentTimeMillis() - start) + "ms");
+        } catch (Exception e) {
+            System.err.println("[PlaceViewportService] Error loading places: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Add newly stored places and drop the cached tiles that contain them
+     */
+    @EventListener
+    public void onPlacesStored(PlacesStoredEvent event) {
+        for (Place place : event.getPlaces()) {
+            if (place.getId() == null || place.getLatitude() == null || place.getLongitude() == null) {
+                continue;
+            }
+            add(new PlacePoint(place.getId(), place.getName(), place.getCategory(), place.getLatitude(), place.getLongitude()));
+            for (int zoom = 0; zoom <= MAX_ZOOM; zoom++) {
+                int x = WebMercator.clampTile(WebMercator.tileX(place.getLongitude(), zoom), zoom);
+                int y = WebMercator.clampTile(WebMercator.tileY(place.getLatitude(), zoom), zoom);
+                String prefix = zoom + "/" + x + "/" + y + "/";
+                tileCache.invalidate(prefix + "ALL");
+                tileCache.invalidate(prefix + place.getCategory());
+            }
+        }
+    }
+    
+    /**
+     * Markers of every tile covering the bbox
+     * @throws IllegalArgumentException if the bbox covers more than max-tiles tiles at this zoom
+     */
+    public List<MapMarker> getMarkers(double minLat, double minLng, double maxLat, double maxLng, int zoom, PlaceCategory category) {
+        int z = Math.max(0, Math.min(zoom, MAX_ZOOM));
+        int minX = WebMercator.clampTile(WebMercator.tileX(minLng, z), z);
+        int maxX = WebMercator.clampTile(WebMercator.tileX(maxLng, z), z);
+        int minY = WebMercator.clampTile(WebMercator.tileY(maxLat, z), z);
+        int maxY = WebMercator.clampTile(WebMercator.tileY(minLat, z), z);
+        
+        long tiles = (long) (maxX - minX + 1) * (maxY - minY + 1);
+        if (maxX < minX || maxY < minY || tiles > maxTiles) {
+            throw new IllegalArgumentException("Viewport covers " + tiles + " tiles at zoom " + z + " (max " + maxTiles + ")");
+        }
+        
+        List<MapMarker> markers = new ArrayList<>();
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                int tileX = x;
+                int tileY = y;
+                String key = z + "/" + x + "/" + y + "/" + (category != null ? category : "ALL");
+                markers.addAll(tileCache.get(key, k -> clusterTile(z, tileX, tileY, category)));
+            }
+        }
+        return markers;
+    }
+    
+    private List<MapMarker> clusterTile(int zoom, int x, int y, PlaceCategory category) {
+        double west = WebMercator.tileLongitude(x, zoom);
+        double east = WebMercator.tileLongitude(x + 1, zoom);
+        double north = WebMercator.tileLatitude(y, zoom);
+        double south = WebMercator.tileLatitude(y + 1, zoom);
+        
+        List<PlacePoint> points = pointsIn(south, west, north, east);
+        List<MapMarker> markers = new ArrayList<>();
+        
+        if (zoom > maxClusterZoom) {
+            for (PlacePoint point : points) {
+                if (category == null || point.category == category) {
+                    markers.add(point.toMarker());
+                }
+            }
+            return markers;
+        }
+        
+        Map<Integer, Cluster> clusters = new HashMap<>();
+        for (PlacePoint point : points) {
+            if (category != null && point.category != category) {
+                continue;
+            }
+            int cellX = (int) Math.min(cellsPerTile - 1, (WebMercator.tileX(point.longitude, zoom) - x) * cellsPerTile);
+            int cellY = (int) Math.min(cellsPerTile - 1, (WebMercator.tileY(point.latitude, zoom) - y) * cellsPerTile);
+            clusters.computeIfAbsent(cellY * cellsPerTile + cellX, c -> new Cluster()).add(point);
+        }
+        for (Cluster cluster : clusters.values()) {
+            markers.add(cluster.toMarker());
+        }
+        return markers;
+    }
+    
+    /**
+     * Places inside the bounds, visiting only the grid cells that can hold them
+     */
+    private List<PlacePoint> pointsIn(double south, double west, double north, double east) {
+        long minRow = (long) Math.floor(south / GRID_DEGREES);
+        long maxRow = (long) Math.floor(north / GRID_DEGREES);
+        long minCol = (long) Math.floor(west / GRID_DEGREES);
+        long maxCol = (long) Math.floor(east / GRID_DEGREES);
+        
+        List<PlacePoint> result = new ArrayList<>();
+        long cellsInBounds = (maxRow - minRow + 1) * (maxCol - minCol + 1);
+        if (cellsInBounds > grid.size()) {
+            // Zoomed out: scanning the populated cells is cheaper than walking the bounds
+            for (List<PlacePoint> cell : grid.values()) {
+                addInside(cell, south, west, north, east, result);
+            }
+        } else {
+            for (long row = minRow; row <= maxRow; row++) {
+                for (long col = minCol; col <= maxCol; col++) {
+                    List<PlacePoint> cell = grid.get(cellKey(row, col));
+                    if (cell != null) {
+                        addInside(cell, south, west, north, east, result);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+    
+    private static void addInside(List<PlacePoint> cell, double south, double west, double north, double east, List<PlacePoint> result) {
+        for (PlacePoint point : cell) {
+            if (point.latitude >= south && point.latitude < north && point.longitude >= west && point.longitude < east) {
+                result.add(point);
+            }
+        }
+    }
+    
+    private void add(PlacePoint point) {
+        PlacePoint previous = pointsById.put(point.id, point);
+        if (previous != null) {
+            updateCell(cellOf(previous), cell -> cell.removeIf(p -> p.id.equals(previous.id)));
+        }
+        updateCell(cellOf(point), cell -> cell.add(point));
+    }
+    
+    /**
+     * Cells are replaced, never modified in place, so readers can iterate them without locking
+     */
+    private void updateCell(long key, Consumer<List<PlacePoint>> change) {
+        grid.compute(key, (k, cell) -> {
+            List<PlacePoint> updated = cell != null ? new ArrayList<>(cell) : new ArrayList<>();
+            change.accept(updated);
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+    
+    private static long cellOf(PlacePoint point) {
+        return cellKey((long) Math.floor(point.latitude / GRID_DEGREES), (long) Math.floor(point.longitude / GRID_DEGREES));
+    }
+    
+    private static long cellKey(long row, long col) {
+        return (row << 32) ^ (col & 0xffffffffL);
+    }
+    
+    private static class PlacePoint {
+        final String id;
+        final String name;
+        final PlaceCategory category;
+        final double latitude;
+        final double longitude;
+        
+        PlacePoint(String id, String name, PlaceCategory category, double latitude, double longitude) {
+            this.id = id;
+            this.name = name;
+            this.category = category;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+        
+        MapMarker toMarker() {
+            return new MapMarker(id, name, category, latitude, longitude, 1);
+        }
+    }
+    
+    /**
+     * Places of one cell: count, centroid and most common category
+     */
+    private static class Cluster {
+        private PlacePoint first;
+        private int count = 0;
+        private double latitudeSum = 0;
+        private double longitudeSum = 0;
+        private final Map<PlaceCategory, Integer> categories = new EnumMap<>(PlaceCategory.class);
+        
+        void add(PlacePoint point) {
+            if (first == null) {
+                first = point;
+            }
+            count++;
+            latitudeSum += point.latitude;
+            longitudeSum += point.longitude;
+            if (point.category != null) {
+                categories.merge(point.category, 1, Integer::sum);
+            }
+        }
+        
+        MapMarker toMarker() {
+            if (count == 1) {
+                return first.toMarker();
+            }
+            PlaceCategory mainCategory = categories.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+            return new MapMarker(null, null, mainCategory, latitudeSum / count, longitudeSum / count, count);
+        }
+    }
+}
@@ -1,26 +1,84 @@
 package com.travelpath.service;
 
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.travelpath.dto.PlacePage;
 import com.travelpath.dto.PlaceResponse;
 import com.travelpath.external.*;
+import com.travelpath.geo.CityIndex;
+import com.travelpath.geo.GeoUtils;
 import com.travelpath.model.Place;
 import com.travelpath.model.PlaceCategory;
+import com.travelpath.repository.PlaceAliasRepository;
 import com.travelpath.repository.PlaceRepository;
+import com.travelpath.util.TaskScope;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class PlacesService {
     
+    /** Fields that can be requested with a projection, and their column in the places table */
+    public static final Map<String, String> PROJECTABLE_FIELDS;
+    
+    static {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("id", "id");
+        fields.put("name", "name");
+        fields.put("category", "category");
+        fields.put("latitude", "latitude");
+        fields.put("longitude", "longitude");
+        fields.put("address", "address");
+        fields.put("description", "description");
+        fields.put("averageCost", "average_cost");
+        fields.put("estimatedWaitTime", "estimated_wait_time");
+        PROJECTABLE_FIELDS = Collections.unmodifiableMap(fields);
+    }
+    
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    
     @Autowired
     private PlaceRepository placeRepository;
     
@@ -33,6 +91,81 @@ public class PlacesService {
     @Autowired(required = false)
     private GooglePlacesService googlePlacesService;
     
+    @Autowired
+    private PlaceAliasRepository placeAliasRepository;
+    
+    @Autowired
+    private PlaceSearchHedger placeSearchHedger;
+    
+    @Autowired
+    private PlaceEntityResolver placeEntityResolver;
+    
+    @Autowired
+    @Qualifier("providerExecutor")
+    private Executor providerExecutor;
+    
+    @Autowired
+    private TileDemandTracker tileDemandTracker;
+    
+    @Autowired
+    private CityIndex cityIndex;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Value("${places.tile.size-degrees:0.01}")
+    private double tileDegrees;
+    
+    @Value("${places.cache.soft-ttl-minutes:1440}")
+    private long softTtlMinutes;
+    
+    @Value("${places.cache.hard-ttl-minutes:10080}")
+    private long hardTtlMinutes;
+    
+    @Value("${places.cache.refresh-retry-minutes:15}")
+    private long refreshRetryMinutes;
+    
+    @Value("${places.cache.max-size:1000}")
+    private long cacheMaxSize;
+    
+    @Value("${places.refresh.max-concurrent-per-provider:2}")
+    private int refreshConcurrency;
+    
+    @Value("${places.refresh.queue-capacity:50}")
+    private int refreshQueueCapacity;
+    
+    @Value("${places.negative.base-ttl-minutes:30}")
+    private long negativeBaseTtlMinutes;
+    
+    @Value("${places.negative.max-ttl-minutes:1440}")
+    private long negativeMaxTtlMinutes;
+    
+    @Value("${places.negative.max-size:5000}")
+    private long negativeMaxSize;
+    
+    @Value("${prefetch.refresh-ahead-fraction:0.2}")
+    private double refreshAheadFraction;
+    
+    @Value("${places.hedge.max-wait-ms:20000}")
+    private long providerMaxWaitMs;
+    
+    /** Places per tile and category; soft TTL = refresh in the background, hard TTL = reload before serving */
+    private AsyncLoadingCache<TileKey, TileEntry> placeCache;
+    private final Map<String, ThreadPoolExecutor> refreshExecutors = new ConcurrentHashMap<>();
+    private Counter staleServedCounter;
+    
+    /** Tiles and categories where all providers came back empty */
+    private Cache<TileKey, NegativeEntry> negativeResults;
+    private Counter negativeHitCounter;
+    private long negativeBaseTtlMillis;
+    private long negativeMaxTtlMillis;
+    private long softTtlMillis;
+    private long hardTtlMillis;
+    private long refreshRetryMillis;
+    
     @Value("${yelp.api.enabled:true}")
     private boolean yelpEnabled;
     
@@ -45,17 +178,7 @@ public class PlacesService {
         int radiusMeters,
         PlaceCategory category
     ) {
-        List<Place> cached = placeRepository.findNearbyByCategory(
-            latitude, longitude, radiusMeters / 1000.0, category.name()
-        );
-        
-        if (!cached.isEmpty()) {
-            return cached.stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
-        }
-        
-        // Use searchNearbyEntities which has the hybrid API logic
+        // Cache first, then database, then the hybrid API logic
         List<Place> places = searchNearbyEntities(latitude, longitude, radiusMeters, category);
         
         return places.stream()
@@ -63,66 +186,667 @@ public class PlacesService {
             .collect(Collectors.toList());
     }
     
-    @Cacheable(value = "places", key = "#latitude + '_' + #longitude + '_' + #radiusMeters + '_' + #category.name()")
+    /**
+     * Paged search ordered by distance (keyset pagination), returning only the requested fields.
+     * The first page makes sure the area was loaded from the providers; pages are then read
+     * from the database, which selects only the requested columns.
+     *
+     * @param fields response fields (PROJECTABLE_FIELDS or "distance" in meters), all place fields if empty
+     * @param cursor nextCursor of the previous page, null for the first page
+     * @param limit page size (capped at MAX_PAGE_SIZE), null for no pagination
+     * @throws IllegalArgumentException on an unknown field or an invalid cursor
+     */
+    public PlacePage searchPage(
+        double latitude,
+        double longitude,
+        int radiusMeters,
+        PlaceCategory category,
+        List<String> fields,
+        String cursor,
+        Integer limit
+    ) {
+        List<String> requested = fields == null || fields.isEmpty()
+            ? new ArrayList<>(PROJECTABLE_FIELDS.keySet())
+            : fields.stream().map(String::trim).filter(f -> !f.isEmpty()).distinct().collect(Collectors.toList());
+        List<String> columns = new ArrayList<>();
+        for (String field : requested) {
+            if (!field.equals("distance") && !PROJECTABLE_FIELDS.containsKey(field)) {
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+            if (!field.equals("id") && !field.equals("distance")) {
+                columns.add(PROJECTABLE_FIELDS.get(field));
+            }
+        }
+        
+        Double afterDistance = null;
+        String afterId = null;
+        if (cursor != null) {
+            String[] position = decodeCursor(cursor);
+            afterDistance = Double.valueOf(position[0]);
+            afterId = position[1];
+        } else {
+            searchNearbyEntities(latitude, longitude, radiusMeters, category);
+        }
+        
+        Integer pageSize = limit != null ? Math.max(1, Math.min(limit, MAX_PAGE_SIZE)) : (cursor != null ? DEFAULT_PAGE_SIZE : null);
+        // One extra row tells whether there is a next page
+        List<Object[]> rows = placeRepository.findPageByDistance(
+            latitude, longitude, radiusMeters / 1000.0, category.name(),
+            columns, afterDistance, afterId, pageSize != null ? pageSize + 1 : null
+        );
+        
+        boolean hasMore = pageSize != null && rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        
+        List<Map<String, Object>> items = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            int column = 2;
+            for (String field : requested) {
+                switch (field) {
+                    case "id" -> item.put("id", row[1]);
+                    case "distance" -> item.put("distance", Math.round(((Number) row[0]).doubleValue() * 1000));
+                    default -> item.put(field, row[column++]);
+                }
+            }
+            items.add(item);
+        }
+        
+        String nextCursor = null;
+        if (hasMore) {
+            Object[] last = rows.get(rows.size() - 1);
+            nextCursor = encodeCursor(((Number) last[0]).doubleValue(), (String) last[1]);
+        }
+        return new PlacePage(items, nextCursor);
+    }
+    
+    private static String encodeCursor(double distanceKm, String id) {
+        String position = distanceKm + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split(":", 2);
+            Double.parseDouble(parts[0]);
+            if (parts.length != 2 || parts[1].isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+    
     public List<Place> searchNearbyEntities(
         double latitude,
         double longitude,
         int radiusMeters,
         PlaceCategory category
     ) {
-        List<Place> cached = placeRepository.findNearbyByCategory(
-            latitude, longitude, radiusMeters / 1000.0, category.name()
+        return searchNearbyEntities(latitude, longitude, radiusMeters, EnumSet.of(category)).get(category);
+    }
+    
+    /**
+     * Search several categories at once (route generation).
+     * The cache key is the tile of the position, so nearby requests share cache entries; a tile
+     * is loaded over the radius widened by its half-diagonal, which covers the requested circle
+     * from anywhere in the tile, and its places are filtered around the real position.
+     * Categories missing from the cache are loaded together (database, then providers:
+     * primaries in parallel, hedged by a single combined Overpass query). Stale entries
+     * are served immediately while they are refreshed in the background.
+     */
+    public Map<PlaceCategory, List<Place>> searchNearbyEntities(
+        double latitude,
+        double longitude,
+        int radiusMeters,
+        Set<PlaceCategory> categories
+    ) {
+        double tileLatitude = GeoUtils.snapToTile(latitude, tileDegrees);
+        double tileLongitude = GeoUtils.snapToTile(longitude, tileDegrees);
+        int tileRadiusMeters = tileRadiusMeters(tileLatitude, radiusMeters);
+        List<TileKey> keys = new ArrayList<>();
+        for (PlaceCategory category : categories) {
+            TileKey key = new TileKey(tileLatitude, tileLongitude, tileRadiusMeters, category);
+            keys.add(key);
+            tileDemandTracker.recordPlaces(key.toString(), tileLatitude, tileLongitude, tileRadiusMeters, category);
+        }
+        
+        Map<TileKey, TileEntry> entries = placeCache.getAll(keys).join();
+        
+        Map<PlaceCategory, List<Place>> result = new EnumMap<>(PlaceCategory.class);
+        long now = System.currentTimeMillis();
+        for (TileKey key : keys) {
+            TileEntry entry = entries.get(key);
+            if (entry == null) {
+                result.put(key.category, new ArrayList<>());
+                continue;
+            }
+            if (entry.isStale(now, softTtlMillis) && now - entry.lastRefreshAttempt >= refreshRetryMillis) {
+                // Stale while revalidate: serve what we have, refresh in the background
+                staleServedCounter.increment();
+                placeCache.synchronous().refresh(key);
+            }
+            result.put(key.category, withinRadius(entry.places, latitude, longitude, radiusMeters));
+        }
+        return result;
+    }
+    
+    /**
+     * Radius of the tile entries serving requests of radiusMeters: the requested radius plus
+     * the half-diagonal of the tile
+     */
+    private int tileRadiusMeters(double tileLatitude, int radiusMeters) {
+        double halfHeight = tileDegrees / 2 * GeoUtils.METERS_PER_DEGREE_LAT;
+        double halfWidth = tileDegrees / 2 * GeoUtils.metersPerDegreeLon(tileLatitude);
+        return radiusMeters + (int) Math.ceil(Math.hypot(halfHeight, halfWidth));
+    }
+    
+    private static List<Place> withinRadius(List<Place> places, double latitude, double longitude, int radiusMeters) {
+        return places.stream()
+            .filter(p -> p.getLatitude() != null && p.getLongitude() != null
+                && GeoUtils.haversineMeters(latitude, longitude, p.getLatitude(), p.getLongitude()) <= radiusMeters)
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Reload tile entries ahead of their soft expiry (prefetch scheduler), with background priority
+     */
+    public void prefetchTile(double tileLatitude, double tileLongitude, int radiusMeters, Set<PlaceCategory> categories) {
+        long maxAgeMillis = (long) (softTtlMillis * (1.0 - refreshAheadFraction));
+        Map<PlaceCategory, TileEntry> loaded = RequestPriority.BACKGROUND.call(() ->
+            loadTile(tileLatitude, tileLongitude, radiusMeters, categories, maxAgeMillis)
         );
+        loaded.forEach((category, entry) ->
+            placeCache.synchronous().put(new TileKey(tileLatitude, tileLongitude, radiusMeters, category), entry)
+        );
+    }
+    
+    /**
+     * True if the cached entry is missing or close to its soft expiry
+     */
+    public boolean needsPrefetch(double tileLatitude, double tileLongitude, int radiusMeters, PlaceCategory category) {
+        TileEntry entry = placeCache.synchronous().getIfPresent(new TileKey(tileLatitude, tileLongitude, radiusMeters, category));
+        return entry == null || entry.isStale(System.currentTimeMillis(), (long) (softTtlMillis * (1.0 - refreshAheadFraction)));
+    }
+    
+    /**
+     * Fill the place cache from the places table: the tiles holding the most stored places first
+     * @return number of cache entries loaded
+     */
+    public int warmUpFromDatabase(int maxEntries, int radiusMeters) {
+        int loaded = 0;
+        for (Object[] row : placeRepository.findDensestTiles(tileDegrees, maxEntries)) {
+            double tileLatitude = GeoUtils.tileCenter(((Number) row[0]).longValue(), tileDegrees);
+            double tileLongitude = GeoUtils.tileCenter(((Number) row[1]).longValue(), tileDegrees);
+            PlaceCategory category = PlaceCategory.valueOf((String) row[2]);
+            int tileRadiusMeters = tileRadiusMeters(tileLatitude, radiusMeters);
+            
+            List<Place> stored = placeRepository.findNearbyByCategory(
+                tileLatitude, tileLongitude, tileRadiusMeters / 1000.0, category.name()
+            );
+            if (!stored.isEmpty()) {
+                placeCache.synchronous().put(new TileKey(tileLatitude, tileLongitude, tileRadiusMeters, category), TileEntry.fromStored(stored));
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+    
+    @PostConstruct
+    void initPlaceCache() {
+        softTtlMillis = TimeUnit.MINUTES.toMillis(softTtlMinutes);
+        hardTtlMillis = TimeUnit.MINUTES.toMillis(hardTtlMinutes);
+        refreshRetryMillis = TimeUnit.MINUTES.toMillis(refreshRetryMinutes);
+        staleServedCounter = Counter.builder("places.cache.stale.served")
+            .description("Place cache entries served stale while being refreshed")
+            .register(meterRegistry);
+        
+        placeCache = Caffeine.newBuilder()
+            .maximumSize(cacheMaxSize)
+            .expireAfter(new Expiry<TileKey, TileEntry>() {
+                // Hard TTL counts from when the data was fetched from a provider, not from the cache write
+                @Override
+                public long expireAfterCreate(TileKey key, TileEntry entry, long currentTime) {
+                    return TimeUnit.MILLISECONDS.toNanos(remainingHardTtl(entry));
+                }
+                
+                @Override
+                public long expireAfterUpdate(TileKey key, TileEntry entry, long currentTime, long currentDuration) {
+                    return TimeUnit.MILLISECONDS.toNanos(remainingHardTtl(entry));
+                }
+                
+                @Override
+                public long expireAfterRead(TileKey key, TileEntry entry, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .refreshAfterWrite(Duration.ofMillis(softTtlMillis))
+            .executor(providerExecutor)
+            .recordStats()
+            .buildAsync(new AsyncCacheLoader<TileKey, TileEntry>() {
+                @Override
+                public CompletableFuture<TileEntry> asyncLoad(TileKey key, Executor executor) {
+                    return asyncLoadAll(Set.of(key), executor).thenApply(entries -> entries.get(key));
+                }
+                
+                @Override
+                public CompletableFuture<Map<TileKey, TileEntry>> asyncLoadAll(Set<? extends TileKey> keys, Executor executor) {
+                    return CompletableFuture.supplyAsync(() -> loadTiles(keys), executor);
+                }
+                
+                @Override
+                public CompletableFuture<TileEntry> asyncReload(TileKey key, TileEntry oldEntry, Executor executor) {
+                    return reloadTile(key, oldEntry);
+                }
+            });
+        CaffeineCacheMetrics.monitor(meterRegistry, placeCache.synchronous(), "places");
+        
+        negativeBaseTtlMillis = TimeUnit.MINUTES.toMillis(negativeBaseTtlMinutes);
+        negativeMaxTtlMillis = TimeUnit.MINUTES.toMillis(negativeMaxTtlMinutes);
+        negativeHitCounter = Counter.builder("places.cache.negative.hits")
+            .description("Provider searches skipped because the tile recently had no places")
+            .register(meterRegistry);
+        negativeResults = Caffeine.newBuilder()
+            .maximumSize(negativeMaxSize)
+            .expireAfter(new Expiry<TileKey, NegativeEntry>() {
+                // Kept for twice the retry delay so consecutive misses are still counted after it
+                @Override
+                public long expireAfterCreate(TileKey key, NegativeEntry entry, long currentTime) {
+                    return TimeUnit.MILLISECONDS.toNanos(entry.ttlMillis * 2);
+                }
+                
+                @Override
+                public long expireAfterUpdate(TileKey key, NegativeEntry entry, long currentTime, long currentDuration) {
+                    return TimeUnit.MILLISECONDS.toNanos(entry.ttlMillis * 2);
+                }
+                
+                @Override
+                public long expireAfterRead(TileKey key, NegativeEntry entry, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+    }
+    
+    private long remainingHardTtl(TileEntry entry) {
+        long remaining = hardTtlMillis - (System.currentTimeMillis() - entry.refreshedAt);
+        // Entries kept past their hard TTL (providers had nothing newer) get a short grace period
+        return Math.max(remaining, refreshRetryMillis);
+    }
+    
+    /**
+     * Loader of the place cache: group the keys by tile and load each tile in one go
+     */
+    private Map<TileKey, TileEntry> loadTiles(Set<? extends TileKey> keys) {
+        Map<String, Set<PlaceCategory>> categoriesByTile = new LinkedHashMap<>();
+        Map<String, TileKey> tileKeys = new LinkedHashMap<>();
+        for (TileKey key : keys) {
+            String tile = key.latitude + "_" + key.longitude + "_" + key.radiusMeters;
+            tileKeys.putIfAbsent(tile, key);
+            categoriesByTile.computeIfAbsent(tile, t -> EnumSet.noneOf(PlaceCategory.class)).add(key.category);
+        }
+        
+        Map<TileKey, TileEntry> result = new HashMap<>();
+        categoriesByTile.forEach((tile, categories) -> {
+            TileKey first = tileKeys.get(tile);
+            loadTile(first.latitude, first.longitude, first.radiusMeters, categories, hardTtlMillis).forEach((category, entry) ->
+                result.put(new TileKey(first.latitude, first.longitude, first.radiusMeters, category), entry)
+            );
+        });
+        return result;
+    }
+    
+    /**
+     * Load the categories of one tile: stored places younger than maxAgeMillis are used as they are,
+     * the other categories are fetched from the providers (falling back to older stored places).
+     * Categories with no place at all are left out.
+     */
+    private Map<PlaceCategory, TileEntry> loadTile(
+        double latitude,
+        double longitude,
+        int radiusMeters,
+        Set<PlaceCategory> categories,
+        long maxAgeMillis
+    ) {
+        Map<PlaceCategory, TileEntry> result = new EnumMap<>(PlaceCategory.class);
+        Map<PlaceCategory, TileEntry> outdated = new EnumMap<>(PlaceCategory.class);
+        Set<PlaceCategory> missing = EnumSet.noneOf(PlaceCategory.class);
+        long now = System.currentTimeMillis();
         
-        if (!cached.isEmpty()) {
-            return cached;
+        for (PlaceCategory category : categories) {
+            List<Place> stored = placeRepository.findNearbyByCategory(
+                latitude, longitude, radiusMeters / 1000.0, category.name()
+            );
+            if (stored.isEmpty()) {
+                missing.add(category);
+                continue;
+            }
+            TileEntry entry = TileEntry.fromStored(stored);
+            if (entry.isStale(now, maxAgeMillis)) {
+                outdated.put(category, entry);
+                missing.add(category);
+            } else {
+                result.put(category, entry);
+            }
         }
         
-        // Hybrid approach: Use Yelp for restaurants, Google for others
-        List<Place> places = new ArrayList<>();
+        if (missing.isEmpty()) {
+            return result;
+        }
         
+        Map<PlaceCategory, List<Place>> fetched = fetchFromProviders(latitude, longitude, radiusMeters, missing);
+        for (PlaceCategory category : missing) {
+            List<Place> places = fetched.getOrDefault(category, new ArrayList<>());
+            if (!places.isEmpty()) {
+                result.put(category, new TileEntry(places, System.currentTimeMillis()));
+            } else if (outdated.containsKey(category)) {
+                // Providers have nothing: older stored places are better than nothing
+                result.put(category, outdated.get(category).attempted(System.currentTimeMillis()));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Background refresh of a stale entry, at most refresh.max-concurrent-per-provider at a time per provider.
+     * The old entry is kept when the refresh is skipped or providers return nothing.
+     * Refreshes run with background priority: the stale entry is still served if the quota is short.
+     */
+    private CompletableFuture<TileEntry> reloadTile(TileKey key, TileEntry oldEntry) {
+        String provider = Optional.ofNullable(primaryProviderName(key.category)).orElse("overpass");
+        Executor executor = refreshExecutors.computeIfAbsent(provider, this::newRefreshExecutor);
         try {
-            if (category == PlaceCategory.RESTAURANT && yelpEnabled && yelpPlacesService != null) {
-                // Use Yelp for restaurants
-                System.out.println("[PlacesService] Using Yelp API for restaurants");
-                List<YelpBusiness> yelpBusinesses = yelpPlacesService.searchByCategory(
-                    "RESTAURANT", latitude, longitude, radiusMeters
-                );
-                places = yelpBusinesses.stream()
-                    .map(this::convertYelpToPlace)
-                    .collect(Collectors.toList());
-            } else if (googleEnabled && googlePlacesService != null) {
-                // Use Google Places for other categories
-                System.out.println("[PlacesService] Using Google Places API for category: " + category);
-                List<GooglePlace> googlePlaces = googlePlacesService.searchByCategory(
-                    category.name(), latitude, longitude, radiusMeters
-                );
-                places = googlePlaces.stream()
-                    .map(this::convertGoogleToPlace)
-                    .collect(Collectors.toList());
+            return CompletableFuture.supplyAsync(() -> {
+                Map<PlaceCategory, List<Place>> fetched = RequestPriority.BACKGROUND.call(() -> fetchFromProviders(
+                    key.latitude, key.longitude, key.radiusMeters, EnumSet.of(key.category)
+                ));
+                List<Place> places = fetched.getOrDefault(key.category, new ArrayList<>());
+                meterRegistry.counter("places.cache.refreshes", "provider", provider, "outcome", places.isEmpty() ? "empty" : "updated").increment();
+                return places.isEmpty()
+                    ? oldEntry.attempted(System.currentTimeMillis())
+                    : new TileEntry(places, System.currentTimeMillis());
+            }, executor).exceptionally(e -> {
+                System.err.println("[PlacesService] Refresh failed for " + key + ": " + e.getMessage());
+                return oldEntry.attempted(System.currentTimeMillis());
+            });
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("places.cache.refreshes", "provider", provider, "outcome", "skipped").increment();
+            return CompletableFuture.completedFuture(oldEntry.attempted(System.currentTimeMillis()));
+        }
+    }
+    
+    private ThreadPoolExecutor newRefreshExecutor(String provider) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            refreshConcurrency, refreshConcurrency, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(refreshQueueCapacity),
+            new CustomizableThreadFactory("places-refresh-" + provider + "-")
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+    
+    @PreDestroy
+    void shutdownRefreshExecutors() {
+        refreshExecutors.values().forEach(ThreadPoolExecutor::shutdownNow);
+    }
+    
+    /**
+     * Fetch categories from the providers: primaries in parallel, hedged by one combined Overpass query.
+     * Results are deduplicated and stored.
+     */
+    private Map<PlaceCategory, List<Place>> fetchFromProviders(
+        double latitude,
+        double longitude,
+        int radiusMeters,
+        Set<PlaceCategory> requested
+    ) {
+        // Tiles where every provider recently came back empty are not asked again until their retry time
+        Map<PlaceCategory, List<Place>> result = new EnumMap<>(PlaceCategory.class);
+        Set<PlaceCategory> toFetch = EnumSet.noneOf(PlaceCategory.class);
+        long now = System.currentTimeMillis();
+        for (PlaceCategory category : requested) {
+            NegativeEntry negative = negativeResults.getIfPresent(new TileKey(latitude, longitude, radiusMeters, category));
+            if (negative != null && now < negative.retryAfter) {
+                negativeHitCounter.increment();
+                result.put(category, new ArrayList<>());
+            } else {
+                toFetch.add(category);
             }
-            
-            // Fallback to Overpass if APIs didn't return results
-            if (places.isEmpty()) {
-                System.out.println("[PlacesService] APIs returned no results, falling back to Overpass API");
-                places = overpassClient.searchNearby(latitude, longitude, radiusMeters, category);
+        }
+        if (toFetch.isEmpty()) {
+            System.out.println("[PlacesService] Skipping providers for " + requested + ": known empty tile");
+            return result;
+        }
+        
+        // Providers whose circuit breaker is open are skipped right away
+        Map<PlaceCategory, String> primaryProviders = new EnumMap<>(PlaceCategory.class);
+        for (PlaceCategory category : toFetch) {
+            String provider = primaryProviderName(category);
+            if (provider != null && isProviderAvailable(provider)) {
+                primaryProviders.put(category, provider);
             }
-            
-        } catch (Exception e) {
-            System.err.println("[PlacesService] Error with external APIs, falling back to Overpass: " + e.getMessage());
-            places = overpassClient.searchNearby(latitude, longitude, radiusMeters, category);
+        }
+        if (primaryProviders.isEmpty() && !overpassClient.isAvailable()) {
+            System.out.println("[PlacesService] No provider available for " + toFetch + ", serving stored places only");
+            toFetch.forEach(category -> result.put(category, new ArrayList<>()));
+            return result;
         }
         
-        System.out.println("[PlacesService] Found " + places.size() + " places for category: " + category);
+        System.out.println("[PlacesService] Fetching categories " + toFetch + " from providers in one batch");
+        String primaryName = primaryProviders.values().stream().distinct().sorted().collect(Collectors.joining("+"));
+        // Categories each provider actually answered (possibly with nothing)
+        Set<PlaceCategory> answeredPrimaries = Collections.synchronizedSet(EnumSet.noneOf(PlaceCategory.class));
+        Set<PlaceCategory> answeredOverpass = Collections.synchronizedSet(EnumSet.noneOf(PlaceCategory.class));
         
-        if (!places.isEmpty()) {
-            System.out.println("[PlacesService] Saving " + places.size() + " places to database...");
-            placeRepository.saveAll(places);
-            placeRepository.flush();
-            System.out.println("[PlacesService] Places saved successfully");
+        Map<PlaceCategory, List<Place>> fetched = placeSearchHedger.search(
+            primaryName,
+            primaryProviders.isEmpty() ? null : () -> searchPrimaries(primaryProviders, toFetch, latitude, longitude, radiusMeters, answeredPrimaries),
+            "overpass",
+            () -> overpassClient.searchNearby(latitude, longitude, radiusMeters, toFetch, answeredOverpass),
+            byCategory -> toFetch.stream().allMatch(c -> !byCategory.getOrDefault(c, List.of()).isEmpty()),
+            (first, second) -> mergeCategoryResults(toFetch, first, second),
+            late -> late.forEach((category, places) -> {
+                if (!places.isEmpty()) {
+                    mergeLateResults(new TileKey(latitude, longitude, radiusMeters, category), places);
+                }
+            })
+        );
+        
+        for (PlaceCategory category : toFetch) {
+            List<Place> places = fetched.getOrDefault(category, new ArrayList<>());
+            System.out.println("[PlacesService] Found " + places.size() + " places for category: " + category);
+            TileKey key = new TileKey(latitude, longitude, radiusMeters, category);
+            if (!places.isEmpty()) {
+                places = storeResolved(places, latitude, longitude, radiusMeters);
+                negativeResults.invalidate(key);
+            } else if (answeredOverpass.contains(category)
+                    && (primaryProviderName(category) == null || answeredPrimaries.contains(category))) {
+                // Only a real empty answer is remembered, not an outage: Overpass and the primary
+                // provider must both have answered in time, not been skipped (circuit open),
+                // refused or failed
+                recordEmptyResult(key);
+            }
+            result.put(category, places);
+        }
+        placeRepository.flush();
+        return result;
+    }
+    
+    /**
+     * Remember that no provider has places for this tile and category.
+     * The retry delay doubles with each consecutive empty result, up to the maximum.
+     */
+    private void recordEmptyResult(TileKey key) {
+        long now = System.currentTimeMillis();
+        NegativeEntry previous = negativeResults.getIfPresent(key);
+        int misses = previous != null ? previous.misses + 1 : 1;
+        long ttl = Math.min(negativeMaxTtlMillis, negativeBaseTtlMillis << Math.min(misses - 1, 20));
+        negativeResults.put(key, new NegativeEntry(misses, now + ttl, ttl));
+        System.out.println("[PlacesService] No places for " + key + " (" + misses + " empty results), next provider call in "
+            + TimeUnit.MILLISECONDS.toMinutes(ttl) + " min");
+    }
+    
+    /**
+     * Primary provider for a category: Yelp for restaurants, Google for the others (null if none is enabled)
+     */
+    private String primaryProviderName(PlaceCategory category) {
+        if (category == PlaceCategory.RESTAURANT && yelpEnabled && yelpPlacesService != null) {
+            return "yelp";
+        }
+        if (googleEnabled && googlePlacesService != null) {
+            return "google";
+        }
+        return null;
+    }
+    
+    private boolean isProviderAvailable(String provider) {
+        if ("yelp".equals(provider)) {
+            return yelpPlacesService.isAvailable();
+        }
+        if ("google".equals(provider)) {
+            return googlePlacesService.isAvailable();
+        }
+        return true;
+    }
+    
+    private List<Place> searchPrimary(String provider, PlaceCategory category, double latitude, double longitude, int radiusMeters) {
+        if ("yelp".equals(provider)) {
+            System.out.println("[PlacesService] Using Yelp API for restaurants");
+            return yelpPlacesService.searchByCategory("RESTAURANT", latitude, longitude, radiusMeters)
+                .stream()
+                .map(this::convertYelpToPlace)
+                .collect(Collectors.toList());
+        }
+        System.out.println("[PlacesService] Using Google Places API for category: " + category);
+        return googlePlacesService.searchByCategory(category.name(), latitude, longitude, radiusMeters)
+            .stream()
+            .map(this::convertGoogleToPlace)
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Call the primary provider of each category in parallel; categories whose call completed
+     * are added to answered
+     */
+    private Map<PlaceCategory, List<Place>> searchPrimaries(
+        Map<PlaceCategory, String> providers,
+        Set<PlaceCategory> categories,
+        double latitude,
+        double longitude,
+        int radiusMeters,
+        Set<PlaceCategory> answered
+    ) {
+        // Structured: if this search is abandoned (interrupted), the per-category calls are cancelled too
+        Map<PlaceCategory, Future<List<Place>>> subtasks = new EnumMap<>(PlaceCategory.class);
+        Map<PlaceCategory, List<Place>> result = new EnumMap<>(PlaceCategory.class);
+        try (TaskScope scope = new TaskScope(providerExecutor)) {
+            providers.forEach((category, provider) -> subtasks.put(category, scope.fork(() -> {
+                try {
+                    List<Place> places = searchPrimary(provider, category, latitude, longitude, radiusMeters);
+                    answered.add(category);
+                    return places;
+                } catch (ProviderCallRefusedException e) {
+                    System.out.println("[PlacesService] " + provider + " skipped for " + category + ": " + e.getMessage());
+                    return new ArrayList<>();
+                } catch (Exception e) {
+                    System.err.println("[PlacesService] " + provider + " failed for " + category + ": " + e.getMessage());
+                    return new ArrayList<>();
+                }
+            })));
+            scope.join(providerMaxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (PlaceCategory category : categories) {
+            Future<List<Place>> subtask = subtasks.get(category);
+            result.put(category, subtask != null ? TaskScope.result(subtask, new ArrayList<>()) : new ArrayList<>());
+        }
+        return result;
+    }
+    
+    /**
+     * Per category, keep the first non-empty result
+     */
+    private Map<PlaceCategory, List<Place>> mergeCategoryResults(
+        Set<PlaceCategory> categories,
+        Map<PlaceCategory, List<Place>> first,
+        Map<PlaceCategory, List<Place>> second
+    ) {
+        Map<PlaceCategory, List<Place>> merged = new EnumMap<>(PlaceCategory.class);
+        for (PlaceCategory category : categories) {
+            List<Place> firstPlaces = first != null ? first.get(category) : null;
+            List<Place> secondPlaces = second != null ? second.get(category) : null;
+            if (firstPlaces != null && !firstPlaces.isEmpty()) {
+                merged.put(category, firstPlaces);
+            } else {
+                merged.put(category, secondPlaces != null ? secondPlaces : new ArrayList<>());
+            }
+        }
+        return merged;
+    }
+    
+    /**
+     * Merge two provider results, keeping the first occurrence of each place id
+     */
+    private List<Place> mergePlaces(List<Place> first, List<Place> second) {
+        Map<String, Place> merged = new LinkedHashMap<>();
+        if (first != null) {
+            first.forEach(p -> merged.putIfAbsent(p.getId(), p));
+        }
+        if (second != null) {
+            second.forEach(p -> merged.putIfAbsent(p.getId(), p));
+        }
+        return new ArrayList<>(merged.values());
+    }
+    
+    /**
+     * Store places from the slower provider of a hedged search and add them to the cached entry
+     */
+    private void mergeLateResults(TileKey key, List<Place> latePlaces) {
+        List<Place> resolved = storeResolved(latePlaces, key.latitude, key.longitude, key.radiusMeters);
+        
+        placeCache.synchronous().asMap().computeIfPresent(key, (k, entry) -> new TileEntry(
+            placeEntityResolver.deduplicate(mergePlaces(entry.places, resolved)), entry.refreshedAt
+        ));
+        System.out.println("[PlacesService] Merged " + resolved.size() + " late places into cache entry " + key);
+    }
+    
+    /**
+     * Merge provider duplicates (with each other and with stored places nearby),
+     * then save canonical places and provider aliases
+     */
+    private List<Place> storeResolved(List<Place> places, double latitude, double longitude, int radiusMeters) {
+        List<Place> known = placeRepository.findNearby(latitude, longitude, radiusMeters / 1000.0);
+        PlaceEntityResolver.Resolution resolution = placeEntityResolver.resolve(places, known);
+        
+        // Places confirmed by a provider are fresh again (updatedAt drives the tile freshness)
+        LocalDateTime now = LocalDateTime.now();
+        resolution.getPlaces().forEach(place -> place.setUpdatedAt(now));
+        
+        if (!resolution.getAliases().isEmpty()) {
+            System.out.println("[PlacesService] Merged " + resolution.getAliases().size() + " duplicate places across providers");
         }
         
-        return places;
+        placeRepository.saveAll(resolution.getPlaces());
+        placeAliasRepository.saveAll(resolution.getAliases());
+        eventPublisher.publishEvent(new PlacesStoredEvent(resolution.getPlaces()));
+        return resolution.getPlaces();
+    }
+    
+    /**
+     * Find a place by its canonical id or by one of its provider aliases
+     */
+    public Optional<Place> findPlaceEntity(String placeId) {
+        Optional<Place> place = placeRepository.findById(placeId);
+        if (place.isPresent()) {
+            return place;
+        }
+        return placeAliasRepository.findById(placeId)
+            .flatMap(alias -> placeRepository.findById(alias.getCanonicalId()));
     }
     
     /**
@@ -134,6 +858,7 @@ public class PlacesService {
         place.setId(yelp.getId() != null ? yelp.getId() : UUID.randomUUID().toString());
         place.setName(yelp.getName());
         place.setCategory(PlaceCategory.RESTAURANT);
+        place.setProvider("yelp");
         place.setLatitude(yelp.getLatitude() != null ? yelp.getLatitude() : 0.0);
         place.setLongitude(yelp.getLongitude() != null ? yelp.getLongitude() : 0.0);
         place.setAddress(yelp.getDisplayAddress() != null ? yelp.getDisplayAddress() : yelp.getAddress());
@@ -163,6 +888,7 @@ public class PlacesService {
         place.setId(google.getId() != null ? google.getId() : UUID.randomUUID().toString());
         place.setName(google.getName());
         place.setCategory(determineCategoryFromGoogleTypes(google.getTypes()));
+        place.setProvider("google");
         place.setLatitude(google.getLatitude() != null ? google.getLatitude() : 0.0);
         place.setLongitude(google.getLongitude() != null ? google.getLongitude() : 0.0);
         place.setAddress(google.getAddress());
@@ -200,8 +926,7 @@ public class PlacesService {
         };
         
         // Apply city multiplier
-        String city = getCityFromCoordinates(lat, lng);
-        double cityMultiplier = getCityCostMultiplier(city);
+        double cityMultiplier = getCityCostMultiplier(lat, lng);
         
         return basePrice * cityMultiplier;
     }
@@ -224,42 +949,19 @@ public class PlacesService {
         };
         
         // Apply city multiplier
-        String city = getCityFromCoordinates(lat, lng);
-        double cityMultiplier = getCityCostMultiplier(city);
+        double cityMultiplier = getCityCostMultiplier(lat, lng);
         
         return basePrice * cityMultiplier;
     }
     
     /**
-     * Get city from coordinates (simplified)
+     * Get cost multiplier of the city containing the coordinates (city boundaries index)
      */
-    private String getCityFromCoordinates(Double lat, Double lng) {
+    private double getCityCostMultiplier(Double lat, Double lng) {
         if (lat == null || lng == null) {
-            return "Unknown";
-        }
-        
-        if (lat > 48.8 && lat < 48.9 && lng > 2.2 && lng < 2.4) {
-            return "Paris";
+            return cityIndex.getDefaultCostMultiplier();
         }
-        if (lat > 51.4 && lat < 51.6 && lng > -0.2 && lng < 0.1) {
-            return "London";
-        }
-        if (lat > 40.6 && lat < 40.8 && lng > -74.1 && lng < -73.9) {
-            return "New York";
-        }
-        
-        return "Unknown";
-    }
-    
-    /**
-     * Get cost multiplier based on city
-     */
-    private double getCityCostMultiplier(String city) {
-        return switch(city.toLowerCase()) {
-            case "paris", "london", "new york" -> 1.5;
-            case "lyon", "marseille" -> 1.0;
-            default -> 0.7;
-        };
+        return cityIndex.costMultiplier(lat, lng);
     }
     
     /**
@@ -288,7 +990,7 @@ public class PlacesService {
     }
     
     public PlaceResponse getPlaceDetails(String placeId) {
-        Place place = placeRepository.findById(placeId)
+        Place place = findPlaceEntity(placeId)
             .orElseThrow(() -> new RuntimeException("Place not found: " + placeId));
         
         return toResponse(place);
@@ -308,5 +1010,98 @@ public class PlacesService {
         );
     }
     
+    /**
+     * Cache key of a place search: tile center, radius and category
+     */
+    private static class TileKey {
+        final double latitude;
+        final double longitude;
+        final int radiusMeters;
+        final PlaceCategory category;
+        
+        TileKey(double latitude, double longitude, int radiusMeters, PlaceCategory category) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radiusMeters = radiusMeters;
+            this.category = category;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TileKey other)) return false;
+            return Double.compare(latitude, other.latitude) == 0
+                && Double.compare(longitude, other.longitude) == 0
+                && radiusMeters == other.radiusMeters
+                && category == other.category;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(latitude, longitude, radiusMeters, category);
+        }
+        
+        @Override
+        public String toString() {
+            return latitude + "_" + longitude + "_" + radiusMeters + "_" + category.name();
+        }
+    }
+    
+    /**
+     * Cached places of a tile with the time they were last confirmed by a provider
+     */
+    private static class TileEntry {
+        final List<Place> places;
+        final long refreshedAt;
+        final long lastRefreshAttempt;
+        
+        TileEntry(List<Place> places, long refreshedAt) {
+            this(places, refreshedAt, refreshedAt);
+        }
+        
+        TileEntry(List<Place> places, long refreshedAt, long lastRefreshAttempt) {
+            this.places = places;
+            this.refreshedAt = refreshedAt;
+            this.lastRefreshAttempt = lastRefreshAttempt;
+        }
+        
+        /**
+         * Entry for stored places: as fresh as the most recently updated one
+         */
+        static TileEntry fromStored(List<Place> stored) {
+            long refreshedAt = stored.stream()
+                .map(Place::getUpdatedAt)
+                .filter(Objects::nonNull)
+                .map(updatedAt -> updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                .max(Long::compare)
+                .orElse(0L);
+            return new TileEntry(stored, refreshedAt);
+        }
+        
+        /**
+         * Same data, with a refresh attempt that did not bring anything newer
+         */
+        TileEntry attempted(long now) {
+            return new TileEntry(places, refreshedAt, now);
+        }
+        
+        boolean isStale(long now, long maxAgeMillis) {
+            return now - refreshedAt > maxAgeMillis;
+        }
+    }
+    
+    /**
+     * Empty provider result: number of consecutive misses and when the providers may be asked again
+     */
+    private static class NegativeEntry {
+        final int misses;
+        final long retryAfter;
+        final long ttlMillis;
+        
+        NegativeEntry(int misses, long retryAfter, long ttlMillis) {
+            this.misses = misses;
+            this.retryAfter = retryAfter;
+            this.ttlMillis = ttlMillis;
+        }
+    }
 }
-
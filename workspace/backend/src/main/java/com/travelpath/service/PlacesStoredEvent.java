@@ -0,0 +1,19 @@
+package com.travelpath.service;
+
+import com.travelpath.model.Place;
+
+import java.util.List;
+
+/**
+ * Published after places from a provider were saved, so in-memory indexes can update incrementally
+ */
+public class PlacesStoredEvent {
+    
+    private final List<Place> places;
+    
+    public PlacesStoredEvent(List<Place> places) {
+        this.places = places;
+    }
+    
+    public List<Place> getPlaces() { return places; }
+}
@@ -1,16 +1,28 @@
 package com.travelpath.service;
 
+import com.travelpath.dto.DirectionsResult;
+import com.travelpath.dto.RouteGeometry;
+import com.travelpath.dto.RouteLeg;
 import com.travelpath.dto.RouteRequest;
 import com.travelpath.dto.RouteResponse;
 import com.travelpath.dto.StepResponse;
-import com.travelpath.external.OpenRouteServiceClient;
+import com.travelpath.geo.CityIndex;
+import com.travelpath.geo.GeoUtils;
+import com.travelpath.geo.GeometryDetail;
 import com.travelpath.model.*;
-import com.travelpath.repository.PlaceRepository;
+import com.travelpath.routing.DistanceMatrix;
+import com.travelpath.routing.RoutingEngine;
+import com.travelpath.util.TaskScope;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,32 +30,77 @@ import java.util.stream.Collectors;
 public class RouteGeneratorService {
     
     @Autowired
-    private PlaceRepository placeRepository;
+    private PlacesService placesService;
     
     @Autowired
-    private PlacesService placesService;
+    private PlaceEntityResolver placeEntityResolver;
     
     @Autowired
     private WeatherService weatherService;
     
     @Autowired
-    private OpenRouteServiceClient openRouteServiceClient;
+    private DirectionsService directionsService;
+    
+    @Autowired
+    private List<RoutingEngine> routingEngines; // In @Order: the local engine, then OpenRouteService
+    
+    @Autowired
+    private CityIndex cityIndex;
     
-    public List<RouteResponse> generateRoutes(RouteRequest request) {
+    @Autowired
+    @Qualifier("providerExecutor")
+    private Executor providerExecutor;
+    
+    @Value("${routes.fan-out.timeout-ms:25000}")
+    private long fanOutTimeoutMs;
+    
+    @Value("${routes.matrix.max-candidates:100}")
+    private int maxMatrixCandidates;
+    
+    /**
+     * @param detail geometry level returned with each route; the others stay in the directions
+     *               cache for DirectionsService.getItinerary
+     */
+    public List<RouteResponse> generateRoutes(RouteRequest request, GeometryDetail detail) {
         System.out.println("[RouteGeneratorService] Starting route generation...");
         System.out.println("[RouteGeneratorService] Request location: (" + request.getLatitude() + ", " + request.getLongitude() + ")");
         
         List<Place> allPlaces = new ArrayList<>();
-        System.out.println("[RouteGeneratorService] Fetching places for " + request.getActivities().size() + " activities...");
+        System.out.println("[RouteGeneratorService] Fetching places for " + request.getActivities().size() + " activities and weather...");
+        
+        // Places and weather come from different providers: both are fetched in parallel, in one scope
+        // so that an abandoned request (or the fan-out timeout) cancels the calls still running
+        Map<PlaceCategory, List<Place>> placesByCategory;
+        WeatherService.WeatherData weather;
+        List<WeatherService.WeatherData> forecast;
+        try (TaskScope scope = new TaskScope(providerExecutor)) {
+            // One batch for all activities: a single combined Overpass query instead of one per category
+            Future<Map<PlaceCategory, List<Place>>> placesTask = scope.fork(() -> request.getActivities().isEmpty()
+                ? Collections.emptyMap()
+                : placesService.searchNearbyEntities(
+                    request.getLatitude(),
+                    request.getLongitude(),
+                    2000,
+                    EnumSet.copyOf(request.getActivities())
+                ));
+            Future<WeatherService.WeatherData> weatherTask = scope.fork(() ->
+                weatherService.getCurrentWeather(request.getLatitude(), request.getLongitude())
+            );
+            // Cached per tile with a longer TTL: usually no provider call
+            Future<List<WeatherService.WeatherData>> forecastTask = scope.fork(() ->
+                weatherService.getForecast(request.getLatitude(), request.getLongitude())
+            );
+            scope.join(fanOutTimeoutMs, TimeUnit.MILLISECONDS);
+            placesByCategory = TaskScope.result(placesTask, Collections.emptyMap());
+            weather = TaskScope.result(weatherTask, WeatherService.defaultWeather());
+            forecast = TaskScope.result(forecastTask, Collections.emptyList());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Route generation interrupted", e);
+        }
         
         for (PlaceCategory category : request.getActivities()) {
-            System.out.println("[RouteGeneratorService] Searching places for category: " + category + " at (" + request.getLatitude() + ", " + request.getLongitude() + ")");
-            List<Place> places = placesService.searchNearbyEntities(
-                request.getLatitude(),
-                request.getLongitude(),
-                2000,
-                category
-            );
+            List<Place> places = placesByCategory.getOrDefault(category, Collections.emptyList());
             System.out.println("[RouteGeneratorService] Found " + places.size() + " places for category " + category);
             if (!places.isEmpty()) {
                 System.out.println("[RouteGeneratorService] First place: " + places.get(0).getName() + " at (" + places.get(0).getLatitude() + ", " + places.get(0).getLongitude() + ")");
@@ -53,34 +110,40 @@ public class RouteGeneratorService {
         
         System.out.println("[RouteGeneratorService] Total places found: " + allPlaces.size());
         
-        System.out.println("[RouteGeneratorService] Getting weather data...");
-        WeatherService.WeatherData weather = weatherService.getCurrentWeather(
-            request.getLatitude(), request.getLongitude()
-        );
+        // The same venue can come from several providers (or categories): keep one candidate per venue
+        allPlaces = placeEntityResolver.deduplicate(allPlaces);
+        System.out.println("[RouteGeneratorService] Places after deduplication: " + allPlaces.size());
+        
         System.out.println("[RouteGeneratorService] Weather: " + weather.temperature + "°C, " + weather.condition);
         
-        List<Place> filteredPlaces = filterByWeather(
-            allPlaces,
+        // Weather-dependent places are checked per step against the forecast for their arrival time
+        WeatherOutlook outlook = weatherService.getOutlook(
             weather,
+            forecast,
             request.getColdSensitivity(),
             request.getHeatSensitivity(),
             request.getHumiditySensitivity()
         );
-        System.out.println("[RouteGeneratorService] Places after weather filter: " + filteredPlaces.size());
+        List<Place> filteredPlaces = new ArrayList<>(allPlaces);
+        System.out.println("[RouteGeneratorService] Forecast slots: " + forecast.size() + ", weather-dependent places: "
+            + filteredPlaces.stream().filter(p -> !WeatherOutlook.isWeatherIndependent(p)).count());
         
         if (request.getRequiredPlaceIds() != null && !request.getRequiredPlaceIds().isEmpty()) {
             System.out.println("[RouteGeneratorService] Adding " + request.getRequiredPlaceIds().size() + " required places...");
             List<Place> requiredPlaces = request.getRequiredPlaceIds().stream()
-                .map(id -> placeRepository.findById(id).orElse(null))
+                .map(id -> placesService.findPlaceEntity(id).orElse(null))
                 .filter(Objects::nonNull)
                 .collect(Collectors.toList());
             filteredPlaces.addAll(requiredPlaces);
         }
         
+        // Street distances between the candidates, shared by the route variants
+        PlaceDistances distances = placeDistances(filteredPlaces, request.getLatitude(), request.getLongitude());
+        
         System.out.println("[RouteGeneratorService] Generating route variants based on constraints...");
         List<RouteResponse> routes = new ArrayList<>();
         
-        RouteResponse economicRoute = generateRoute(filteredPlaces, request, RouteType.ECONOMIC);
+        RouteResponse economicRoute = generateRoute(filteredPlaces, request, RouteType.ECONOMIC, distances, outlook);
         if (isRouteValid(economicRoute, request)) {
             routes.add(economicRoute);
             System.out.println("[RouteGeneratorService] ECONOMIC route generated and validated");
@@ -88,7 +151,7 @@ public class RouteGeneratorService {
             System.out.println("[RouteGeneratorService] ECONOMIC route discarded (exceeds constraints)");
         }
         
-        RouteResponse balancedRoute = generateRoute(filteredPlaces, request, RouteType.BALANCED);
+        RouteResponse balancedRoute = generateRoute(filteredPlaces, request, RouteType.BALANCED, distances, outlook);
         if (isRouteValid(balancedRoute, request)) {
             routes.add(balancedRoute);
             System.out.println("[RouteGeneratorService] BALANCED route generated and validated");
@@ -96,7 +159,7 @@ public class RouteGeneratorService {
             System.out.println("[RouteGeneratorService] BALANCED route discarded (exceeds constraints)");
         }
         
-        RouteResponse comfortRoute = generateRoute(filteredPlaces, request, RouteType.COMFORT);
+        RouteResponse comfortRoute = generateRoute(filteredPlaces, request, RouteType.COMFORT, distances, outlook);
         if (isRouteValid(comfortRoute, request)) {
             routes.add(comfortRoute);
             System.out.println("[RouteGeneratorService] COMFORT route generated and validated");
@@ -112,7 +175,7 @@ public class RouteGeneratorService {
             
             if (!filteredPlaces.isEmpty()) {
                 System.out.println("[RouteGeneratorService] Attempting to generate fallback route with relaxed constraints...");
-                RouteResponse fallbackRoute = generateRoute(filteredPlaces, request, RouteType.BALANCED);
+                RouteResponse fallbackRoute = generateRoute(filteredPlaces, request, RouteType.BALANCED, distances, outlook);
                 if (fallbackRoute != null && fallbackRoute.getSteps() != null && fallbackRoute.getSteps().size() >= 1) {
                     routes.add(fallbackRoute);
                     System.out.println("[RouteGeneratorService] Generated fallback route with " + fallbackRoute.getSteps().size() + 
@@ -127,6 +190,11 @@ public class RouteGeneratorService {
         }
         
         System.out.println("[RouteGeneratorService] Final result: " + routes.size() + " route(s) to return.");
+        for (RouteResponse route : routes) {
+            if (route.getGeometry() != null) {
+                route.setGeometry(route.getGeometry().atDetail(detail));
+            }
+        }
         return routes;
     }
     
@@ -161,11 +229,13 @@ public class RouteGeneratorService {
     private RouteResponse generateRoute(
         List<Place> places,
         RouteRequest request,
-        RouteType routeType
+        RouteType routeType,
+        PlaceDistances distances,
+        WeatherOutlook outlook
     ) {
         System.out.println("[RouteGeneratorService] generateRoute called for type: " + routeType + ", input places: " + places.size());
         
-        List<Place> selectedPlaces = selectPlacesByType(places, request, routeType);
+        List<Place> selectedPlaces = selectPlacesByType(places, request, routeType, distances, outlook);
         System.out.println("[RouteGeneratorService] Selected places for " + routeType + ": " + selectedPlaces.size());
         
         if (selectedPlaces.isEmpty()) {
@@ -184,7 +254,7 @@ public class RouteGeneratorService {
                 0.0,
                 0,
                 defaultMode,
-                null,
+                cityIndex.cityName(request.getLatitude(), request.getLongitude()),
                 false,
                 emptySteps
             );
@@ -203,11 +273,14 @@ public class RouteGeneratorService {
             mode = com.travelpath.model.TransportationMode.MIXED;
             System.out.println("[RouteGeneratorService] WARNING: TransportationMode was null, defaulting to MIXED");
         }
-        double transportCost = estimateTransportCost(orderedPlaces, mode);
+        // One directions call for the whole itinerary gives the geometry and every leg
+        RouteGeometry geometry = getRouteGeometry(orderedPlaces);
+        double[] legDistances = legDistances(orderedPlaces, geometry);
+        double transportCost = estimateTransportCost(legDistances, orderedPlaces.size(), mode);
         
         double totalBudget = activityCost + transportCost;
         
-        int totalDuration = calculateTotalDuration(orderedPlaces);
+        int totalDuration = calculateTotalDuration(orderedPlaces, geometry);
         
         if (request.getMaxBudget() != null && totalBudget > request.getMaxBudget() * 1.1) {
             System.out.println("[RouteGeneratorService] WARNING: Route exceeds budget constraint. " +
@@ -223,8 +296,7 @@ public class RouteGeneratorService {
             
             double stepTransportCost = 0.0;
             if (i > 0) {
-                Place previousPlace = orderedPlaces.get(i - 1);
-                double distance = calculateDistance(previousPlace, place);
+                double distance = legDistances[i - 1];
                 com.travelpath.model.TransportationMode stepMode = request.getTransportationMode();
                 if (stepMode == null) {
                     stepMode = com.travelpath.model.TransportationMode.MIXED;
@@ -243,7 +315,7 @@ public class RouteGeneratorService {
                 convertToPlaceResponse(place),
                 determineTimeSlot(i),
                 estimateDuration(place),
-                i > 0 ? calculateDistance(orderedPlaces.get(i-1), place) : null,
+                i > 0 ? legDistances[i - 1] : null,
                 stepCost,
                 null
             );
@@ -261,23 +333,27 @@ public class RouteGeneratorService {
             System.out.println("[RouteGeneratorService] WARNING: Steps was null, initializing empty list");
         }
         
-        return new RouteResponse(
+        RouteResponse response = new RouteResponse(
             UUID.randomUUID().toString(),
             "Parcours " + routeType.name(),
             routeType,
             totalBudget,
             totalDuration,
             responseMode,
-            null,
+            cityIndex.cityName(request.getLatitude(), request.getLongitude()),
             false,
             steps
         );
+        response.setGeometry(geometry);
+        return response;
     }
     
     private List<Place> selectPlacesByType(
         List<Place> availablePlaces,
         RouteRequest request,
-        RouteType routeType
+        RouteType routeType,
+        PlaceDistances distances,
+        WeatherOutlook outlook
     ) {
         int targetPlaces = deriveTargetNumberOfPlaces(request, routeType);
         System.out.println("[RouteGeneratorService] Target number of places: " + targetPlaces);
@@ -298,8 +374,21 @@ public class RouteGeneratorService {
         int searchRadiusMeters = 1500;
         System.out.println("[RouteGeneratorService] Search radius between places: " + searchRadiusMeters + "m");
         
+        // Required places are kept whatever the weather
+        Set<String> requiredPlaceIds = request.getRequiredPlaceIds() != null
+            ? new HashSet<>(request.getRequiredPlaceIds())
+            : Collections.emptySet();
+        long time = outlook.getNow();
+        final long startTime = time;
+        
         List<Place> selectedPlaces = new ArrayList<>();
-        Place currentPlace = findClosestPlace(availablePlaces, request.getLatitude(), request.getLongitude());
+        Place currentPlace = findClosestPlace(
+            availablePlaces.stream()
+                .filter(p -> requiredPlaceIds.contains(p.getId()) || outlook.allows(p, startTime))
+                .collect(Collectors.toList()),
+            request.getLatitude(),
+            request.getLongitude()
+        );
         
         if (currentPlace == null) {
             System.out.println("[RouteGeneratorService] ERROR: No places available to start route");
@@ -316,6 +405,7 @@ public class RouteGeneratorService {
         
         Random random = new Random();
         Place current = currentPlace; // Make effectively final for lambda
+        time += estimateDuration(currentPlace) * 60L;
         
         // Calculate initial remaining budget (90% for places, 10% reserved for transport)
         double remainingBudget = request.getMaxBudget() != null 
@@ -334,11 +424,12 @@ public class RouteGeneratorService {
         for (int i = 1; i < targetPlaces && i < availablePlaces.size(); i++) {
             final Place currentPlaceForIteration = current; // Final reference for lambda
             final double currentRemainingBudget = remainingBudget; // Final reference for lambda
+            final long departureTime = time; // Leaving the current place
             
             List<Place> candidates = availablePlaces.stream()
                 .filter(p -> !usedPlaceIds.contains(p.getId()))
                 .filter(p -> {
-                    double distance = calculateDistance(currentPlaceForIteration, p);
+                    double distance = distances.km(currentPlaceForIteration, p);
                     return distance * 1000 <= searchRadiusMeters;
                 })
                 .filter(p -> {
@@ -348,6 +439,9 @@ public class RouteGeneratorService {
                     }
                     return true;
                 })
+                // Weather at the estimated arrival time (one table lookup)
+                .filter(p -> requiredPlaceIds.contains(p.getId())
+                    || outlook.allows(p, departureTime + distances.seconds(currentPlaceForIteration, p)))
                 .collect(Collectors.toList());
             
             if (candidates.isEmpty()) {
@@ -355,7 +449,7 @@ public class RouteGeneratorService {
                 break;
             }
             
-            Place nextPlace = selectNextPlace(candidates, currentPlaceForIteration, request, routeType, random);
+            Place nextPlace = selectNextPlace(candidates, currentPlaceForIteration, request, routeType, random, distances);
             
             if (nextPlace == null) {
                 System.out.println("[RouteGeneratorService] WARNING: Could not select next place, stopping");
@@ -364,6 +458,7 @@ public class RouteGeneratorService {
             
             selectedPlaces.add(nextPlace);
             usedPlaceIds.add(nextPlace.getId());
+            time = departureTime + distances.seconds(currentPlaceForIteration, nextPlace) + estimateDuration(nextPlace) * 60L;
             current = nextPlace;
             
             // Update remaining budget after selecting a place
@@ -371,11 +466,11 @@ public class RouteGeneratorService {
                 remainingBudget -= nextPlace.getAverageCost();
                 System.out.println("[RouteGeneratorService] Selected place " + (i + 1) + ": " + nextPlace.getName() + 
                                  " (cost: " + nextPlace.getAverageCost() + "€, distance: " + 
-                                 String.format("%.2f", calculateDistance(selectedPlaces.get(i-1), nextPlace)) + 
+                                 String.format("%.2f", distances.km(selectedPlaces.get(i-1), nextPlace)) + 
                                  " km, remaining budget: " + String.format("%.2f", remainingBudget) + "€)");
             } else {
                 System.out.println("[RouteGeneratorService] Selected place " + (i + 1) + ": " + nextPlace.getName() + 
-                                 " (distance: " + String.format("%.2f", calculateDistance(selectedPlaces.get(i-1), nextPlace)) + " km)");
+                                 " (distance: " + String.format("%.2f", distances.km(selectedPlaces.get(i-1), nextPlace)) + " km)");
             }
             
             // Stop if budget is exhausted
@@ -441,7 +536,8 @@ public class RouteGeneratorService {
         Place currentPlace,
         RouteRequest request,
         RouteType routeType,
-        Random random
+        Random random,
+        PlaceDistances distances
     ) {
         if (candidates.isEmpty()) return null;
         
@@ -449,18 +545,18 @@ public class RouteGeneratorService {
             case ECONOMIC -> candidates.stream()
                 .sorted(Comparator.comparing(p -> {
                     double cost = p.getAverageCost() != null ? p.getAverageCost() : 0.0;
-                    double distance = calculateDistance(currentPlace, p);
+                    double distance = distances.km(currentPlace, p);
                     return cost + (distance * 2);
                 }))
                 .collect(Collectors.toList());
             case BALANCED -> candidates.stream()
-                .sorted(Comparator.comparing(p -> calculateDistance(currentPlace, p)))
+                .sorted(Comparator.comparing(p -> distances.km(currentPlace, p)))
                 .collect(Collectors.toList());
             case COMFORT -> candidates.stream()
                 .sorted(Comparator.comparing((Place p) -> {
                     double cost = p.getAverageCost() != null ? p.getAverageCost() : 0.0;
                     return -cost;
-                }).thenComparing(p -> calculateDistance(currentPlace, p)))
+                }).thenComparing(p -> distances.km(currentPlace, p)))
                 .collect(Collectors.toList());
         };
         
@@ -473,7 +569,7 @@ public class RouteGeneratorService {
         if (places.isEmpty()) return places;
         if (places.size() == 1) return places;
         
-        double[][] distanceMatrix = getDistanceMatrix(places);
+        DistanceMatrix distanceMatrix = getDistanceMatrix(places);
         
         List<Place> ordered = new ArrayList<>();
         List<Integer> remaining = new ArrayList<>();
@@ -513,13 +609,13 @@ public class RouteGeneratorService {
         return closest;
     }
     
-    private int findNearestIndex(int fromIndex, List<Integer> candidates, double[][] distanceMatrix) {
+    private int findNearestIndex(int fromIndex, List<Integer> candidates, DistanceMatrix distanceMatrix) {
         int nearest = candidates.get(0);
-        double minDist = distanceMatrix[fromIndex][nearest];
+        double minDist = distanceMatrix.distanceKm(fromIndex, nearest);
         
         for (int candidate : candidates) {
-            if (distanceMatrix[fromIndex][candidate] < minDist) {
-                minDist = distanceMatrix[fromIndex][candidate];
+            if (distanceMatrix.distanceKm(fromIndex, candidate) < minDist) {
+                minDist = distanceMatrix.distanceKm(fromIndex, candidate);
                 nearest = candidate;
             }
         }
@@ -527,15 +623,27 @@ public class RouteGeneratorService {
     }
     
     private double calculateDistance(Place from, Place to) {
+        for (RoutingEngine engine : routingEngines) {
+            if (engine.isLocal() && engine.isAvailable("foot-walking")) {
+                DistanceMatrix matrix = engine.oneToMany(
+                    new double[]{from.getLatitude(), from.getLongitude()},
+                    List.of(new double[]{to.getLatitude(), to.getLongitude()}),
+                    "foot-walking"
+                );
+                if (matrix != null && !matrix.isMissing(0, 0)) {
+                    return matrix.distanceKm(0, 0);
+                }
+            }
+        }
         try {
-            OpenRouteServiceClient.DirectionsResponse response = openRouteServiceClient.getDirections(
+            DirectionsResult directions = directionsService.getDirections(
                 from.getLatitude(), from.getLongitude(),
                 to.getLatitude(), to.getLongitude(),
                 "foot-walking"
             );
             
-            if (response != null && response.routes != null && !response.routes.isEmpty()) {
-                double distance = response.routes.get(0).summary.distance;
+            if (directions != null) {
+                double distance = directions.getDistanceMeters() / 1000.0;
                 System.out.println("[RouteGeneratorService] OpenRouteService distance: " + distance + " km");
                 return distance;
             }
@@ -543,6 +651,12 @@ public class RouteGeneratorService {
             System.err.println("[RouteGeneratorService] Error getting distance from OpenRouteService: " + e.getMessage());
         }
         
+        double haversineDistance = haversineDistance(from, to);
+        System.out.println("[RouteGeneratorService] Using Haversine fallback distance: " + haversineDistance + " km");
+        return haversineDistance;
+    }
+    
+    private double haversineDistance(Place from, Place to) {
         double earthRadius = 6371.0;
         double dLat = Math.toRadians(to.getLatitude() - from.getLatitude());
         double dLon = Math.toRadians(to.getLongitude() - from.getLongitude());
@@ -552,26 +666,51 @@ public class RouteGeneratorService {
                    Math.sin(dLon / 2) * Math.sin(dLon / 2);
         
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double haversineDistance = earthRadius * c;
-        System.out.println("[RouteGeneratorService] Using Haversine fallback distance: " + haversineDistance + " km");
-        return haversineDistance;
+        return earthRadius * c;
     }
     
-    private double estimateTransportCost(List<Place> places, com.travelpath.model.TransportationMode mode) {
-        if (places.size() <= 1) return 0.0;
+    /**
+     * Walking geometry of the whole route, or null if OpenRouteService cannot give it
+     */
+    private RouteGeometry getRouteGeometry(List<Place> places) {
+        if (places.size() < 2) {
+            return null;
+        }
+        List<double[]> waypoints = places.stream()
+            .map(p -> new double[]{p.getLatitude(), p.getLongitude()})
+            .collect(Collectors.toList());
+        try {
+            return directionsService.getItinerary(waypoints, "foot-walking");
+        } catch (Exception e) {
+            System.err.println("[RouteGeneratorService] Error getting route geometry: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Distance in km of each leg, from the route geometry or else leg by leg
+     */
+    private double[] legDistances(List<Place> places, RouteGeometry geometry) {
+        double[] distances = new double[Math.max(0, places.size() - 1)];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = geometry != null
+                ? geometry.getLegs().get(i).getDistanceMeters() / 1000.0
+                : calculateDistance(places.get(i), places.get(i + 1));
+        }
+        return distances;
+    }
+    
+    private double estimateTransportCost(double[] legDistances, int numberOfPlaces, com.travelpath.model.TransportationMode mode) {
+        if (numberOfPlaces <= 1) return 0.0;
         
         double totalTransportCost = 0.0;
         
-        for (int i = 0; i < places.size() - 1; i++) {
-            Place from = places.get(i);
-            Place to = places.get(i + 1);
-            
-            double distance = calculateDistance(from, to);
+        for (double distance : legDistances) {
             totalTransportCost += calculateSegmentTransportCost(distance, mode);
         }
         
         // Add food/refreshments estimate (5€ per place)
-        totalTransportCost += places.size() * 5.0;
+        totalTransportCost += numberOfPlaces * 5.0;
         
         return totalTransportCost;
     }
@@ -618,49 +757,71 @@ public class RouteGeneratorService {
         }
     }
     
-    private double[][] getDistanceMatrix(List<Place> places) {
+    private DistanceMatrix getDistanceMatrix(List<Place> places) {
         System.out.println("[RouteGeneratorService] Building distance matrix for " + places.size() + " places...");
         
-        List<OpenRouteServiceClient.Location> locations = places.stream()
-            .map(p -> new OpenRouteServiceClient.Location(p.getLatitude(), p.getLongitude()))
-            .collect(Collectors.toList());
-        
-        OpenRouteServiceClient.DistanceMatrixResponse matrix = openRouteServiceClient.getDistanceMatrix(
-            locations, "foot-walking"
-        );
-        
-        if (matrix != null && matrix.distances != null) {
-            System.out.println("[RouteGeneratorService] Using OpenRouteService distance matrix");
-            return matrix.distances;
+        DistanceMatrix matrix = routingMatrix(places, "foot-walking");
+        if (matrix != null) {
+            return matrix;
         }
         
-        System.out.println("[RouteGeneratorService] OpenRouteService unavailable, using Haversine fallback for distance matrix");
-        double[][] distances = new double[places.size()][places.size()];
-        for (int i = 0; i < places.size(); i++) {
-            for (int j = 0; j < places.size(); j++) {
-                if (i == j) {
-                    distances[i][j] = 0;
-                } else {
-                    distances[i][j] = calculateDistance(places.get(i), places.get(j));
-                }
+        // One directions call per pair would only hit the same failing or exhausted provider
+        System.out.println("[RouteGeneratorService] No routing engine available, using Haversine fallback for distance matrix");
+        List<double[]> points = points(places);
+        matrix = new DistanceMatrix(places.size(), places.size());
+        matrix.fillMissing(points, points);
+        return matrix;
+    }
+    
+    /**
+     * Matrix from the first available routing engine, pairs it could not give (unreachable,
+     * or tiles ORS refused) estimated with Haversine; null if no engine answered
+     */
+    private DistanceMatrix routingMatrix(List<Place> places, String profile) {
+        List<double[]> points = points(places);
+        for (RoutingEngine engine : routingEngines) {
+            if (!engine.isAvailable(profile)) {
+                continue;
             }
+            DistanceMatrix matrix = engine.matrix(points, profile);
+            if (matrix == null) {
+                continue;
+            }
+            int estimated = matrix.fillMissing(points, points);
+            System.out.println("[RouteGeneratorService] Using " + engine.getName() + " distance matrix"
+                + (estimated > 0 ? " (" + estimated + " pairs estimated)" : ""));
+            return matrix;
         }
-        return distances;
+        return null;
     }
     
-    private List<Place> filterByWeather(
-        List<Place> places,
-        WeatherService.WeatherData weather,
-        int coldSensitivity,
-        int heatSensitivity,
-        int humiditySensitivity
-    ) {
-        if (!weatherService.isWeatherSuitable(weather, coldSensitivity, heatSensitivity, humiditySensitivity)) {
-            return places.stream()
-                .filter(p -> p.getColdImpact() == 0 && p.getHeatImpact() == 0 && p.getHumidityImpact() == 0)
-                .collect(Collectors.toList());
+    /**
+     * Street distances between the candidate places closest to the start, from one (tiled)
+     * matrix instead of a directions call per pair; other places fall back to Haversine
+     */
+    private PlaceDistances placeDistances(List<Place> places, double startLat, double startLng) {
+        List<Place> candidates = places.stream()
+            .filter(p -> p.getLatitude() != null && p.getLongitude() != null)
+            .sorted(Comparator.comparingDouble(p ->
+                GeoUtils.haversineKm(startLat, startLng, p.getLatitude(), p.getLongitude())))
+            .limit(maxMatrixCandidates)
+            .collect(Collectors.toList());
+        // Row i of the matrix is the i-th distinct place (IdentityHashMap does not keep insertion order)
+        Map<Place, Integer> index = new IdentityHashMap<>();
+        List<Place> matrixPlaces = new ArrayList<>();
+        for (Place place : candidates) {
+            if (index.putIfAbsent(place, matrixPlaces.size()) == null) {
+                matrixPlaces.add(place);
+            }
         }
-        return places;
+        DistanceMatrix matrix = matrixPlaces.size() > 1 ? getDistanceMatrix(matrixPlaces) : null;
+        return new PlaceDistances(index, matrix);
+    }
+    
+    private static List<double[]> points(List<Place> places) {
+        return places.stream()
+            .map(p -> new double[]{p.getLatitude(), p.getLongitude()})
+            .collect(Collectors.toList());
     }
     
     private TimeSlot determineTimeSlot(int index) {
@@ -674,17 +835,22 @@ public class RouteGeneratorService {
         return baseDuration + (place.getEstimatedWaitTime() != null ? place.getEstimatedWaitTime() : 0);
     }
     
-    private int calculateTotalDuration(List<Place> places) {
+    private int calculateTotalDuration(List<Place> places, RouteGeometry geometry) {
         if (places.isEmpty()) return 0;
         if (places.size() == 1) return estimateDuration(places.get(0));
         
-        List<OpenRouteServiceClient.Location> locations = places.stream()
-            .map(p -> new OpenRouteServiceClient.Location(p.getLatitude(), p.getLongitude()))
-            .collect(Collectors.toList());
+        if (geometry != null) {
+            int totalDuration = 0;
+            for (Place place : places) {
+                totalDuration += estimateDuration(place);
+            }
+            for (RouteLeg leg : geometry.getLegs()) {
+                totalDuration += (int)(leg.getDurationSeconds() / 60);
+            }
+            return totalDuration;
+        }
         
-        OpenRouteServiceClient.DistanceMatrixResponse matrix = openRouteServiceClient.getDistanceMatrix(
-            locations, "foot-walking"
-        );
+        DistanceMatrix matrix = routingMatrix(places, "foot-walking");
         
         int totalDuration = 0;
         
@@ -692,9 +858,9 @@ public class RouteGeneratorService {
             totalDuration += estimateDuration(place);
         }
         
-        if (matrix != null && matrix.durations != null) {
+        if (matrix != null) {
             for (int i = 0; i < places.size() - 1; i++) {
-                totalDuration += (int)(matrix.durations[i][i + 1] / 60);
+                totalDuration += (int)(matrix.durationSeconds(i, i + 1) / 60);
             }
         } else {
             for (int i = 0; i < places.size() - 1; i++) {
@@ -719,5 +885,38 @@ public class RouteGeneratorService {
             place.getEstimatedWaitTime()
         );
     }
+    
+    /**
+     * Street distances (km) between places, looked up in a matrix by place
+     */
+    private class PlaceDistances {
+        private final Map<Place, Integer> index;
+        private final DistanceMatrix matrix;
+        
+        PlaceDistances(Map<Place, Integer> index, DistanceMatrix matrix) {
+            this.index = index;
+            this.matrix = matrix;
+        }
+        
+        double km(Place from, Place to) {
+            Integer i = index.get(from);
+            Integer j = index.get(to);
+            if (matrix == null || i == null || j == null) {
+                return haversineDistance(from, to);
+            }
+            return matrix.distanceKm(i, j);
+        }
+        
+        /**
+         * Travel time in seconds: from the matrix, or walking at 5 km/h (12 min/km) outside it
+         */
+        long seconds(Place from, Place to) {
+            Integer i = index.get(from);
+            Integer j = index.get(to);
+            if (matrix == null || i == null || j == null) {
+                return (long) (haversineDistance(from, to) * 12 * 60);
+            }
+            return (long) matrix.durationSeconds(i, j);
+        }
+    }
 }
-
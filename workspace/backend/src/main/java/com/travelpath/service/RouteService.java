@@ -1,7 +1,11 @@
 package com.travelpath.service;
 
+import com.travelpath.dto.PlaceResponse;
+import com.travelpath.dto.RouteGeometry;
 import com.travelpath.dto.RouteResponse;
+import com.travelpath.dto.RouteSummary;
 import com.travelpath.dto.StepResponse;
+import com.travelpath.geo.GeometryDetail;
 import com.travelpath.model.*;
 import com.travelpath.repository.PlaceRepository;
 import com.travelpath.repository.RouteRepository;
@@ -11,11 +15,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
 import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -39,6 +45,9 @@ public class RouteService {
     @Autowired
     private EntityManager entityManager;
     
+    @Autowired
+    private DirectionsService directionsService;
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     public Route saveRoute(RouteResponse routeResponse, String userId) {
@@ -112,17 +121,11 @@ public class RouteService {
                 route.setUserIdString(null);
             }
             
-            // Serialize steps to JSON string if provided
+            // Encode steps with their summary columns if provided
             if (routeResponse.getSteps() != null && !routeResponse.getSteps().isEmpty()) {
-                try {
-                    String stepsJson = objectMapper.writeValueAsString(routeResponse.getSteps());
-                    route.setStepsJson(stepsJson);
-                    System.out.println("Serialized " + routeResponse.getSteps().size() + " steps to JSON");
-                } catch (Exception e) {
-                    System.err.println("Error serializing steps to JSON: " + e.getMessage());
-                    e.printStackTrace();
-                    throw new RuntimeException("Failed to serialize steps", e);
-                }
+                storeSteps(route, routeResponse.getSteps());
+                System.out.println("Encoded " + routeResponse.getSteps().size() + " steps in "
+                    + route.getStepsData().length + " bytes");
             }
             
             Route savedRoute = routeRepository.save(route);
@@ -179,6 +182,57 @@ public class RouteService {
         return routeResponses;
     }
     
+    /**
+     * Saved routes of the user (or without user) for the lists: summary columns only, the steps
+     * are neither loaded nor decoded
+     */
+    @Transactional(readOnly = true)
+    public List<RouteSummary> getSavedRouteSummaries(String userId) {
+        if (userId == null || userId.isEmpty() || userId.equals("anonymous")) {
+            return routeRepository.findSavedRouteSummariesWithoutUser();
+        }
+        return routeRepository.findSavedRouteSummariesByUser(userId);
+    }
+    
+    /**
+     * Convert the next batchSize routes (by id, after afterId) still holding JSON steps to the
+     * binary form with summary columns (RouteStorageMigrator); rows whose JSON cannot be read
+     * are left as they are. Only the steps and summary columns are written, so a favourite or
+     * rename committed meanwhile is kept.
+     * @return id of the last route of the batch, or null if there was none left
+     */
+    public String migrateJsonSteps(String afterId, int batchSize) {
+        List<Object[]> rows = routeRepository.findJsonStepsAfter(afterId, PageRequest.of(0, batchSize));
+        if (rows.isEmpty()) {
+            return null;
+        }
+        int migrated = 0;
+        for (Object[] row : rows) {
+            String id = (String) row[0];
+            try {
+                List<StepResponse> steps = objectMapper.readValue(
+                    (String) row[1],
+                    new TypeReference<List<StepResponse>>() {}
+                );
+                // Detached holder for the computed columns, never persisted
+                Route converted = new Route();
+                storeSteps(converted, steps);
+                migrated += routeRepository.storeConvertedSteps(
+                    id, converted.getStepsData(), converted.getStepCount(),
+                    converted.getFirstPlaceId(), converted.getFirstPlaceName(),
+                    converted.getMinLatitude(), converted.getMinLongitude(),
+                    converted.getMaxLatitude(), converted.getMaxLongitude()
+                );
+            } catch (Exception e) {
+                System.err.println("[RouteService] Cannot convert steps of route " + id + ": " + e.getMessage());
+            }
+        }
+        if (migrated < rows.size()) {
+            System.out.println("[RouteService] Converted steps of " + migrated + "/" + rows.size() + " routes");
+        }
+        return (String) rows.get(rows.size() - 1)[0];
+    }
+    
     public RouteResponse getRouteById(String routeId) {
         Route route = routeRepository.findById(routeId)
             .orElseThrow(() -> new RuntimeException("Route not found: " + routeId));
@@ -186,6 +240,27 @@ public class RouteService {
         return convertToResponse(route);
     }
     
+    /**
+     * Walking geometry of a saved route through its steps, at one detail level: from the
+     * itinerary cache when it was generated recently, else one directions call.
+     * @return null if the route has fewer than two located steps or no geometry can be had
+     */
+    @Transactional(readOnly = true)
+    public RouteGeometry getRouteGeometry(String routeId, GeometryDetail detail) {
+        RouteResponse route = getRouteById(routeId);
+        if (route.getSteps() == null) {
+            return null;
+        }
+        List<double[]> waypoints = route.getSteps().stream()
+            .sorted(Comparator.comparing(StepResponse::getOrder, Comparator.nullsLast(Comparator.naturalOrder())))
+            .map(StepResponse::getPlace)
+            .filter(place -> place != null && place.getLatitude() != null && place.getLongitude() != null)
+            .map(place -> new double[]{place.getLatitude(), place.getLongitude()})
+            .collect(Collectors.toList());
+        RouteGeometry geometry = directionsService.getItinerary(waypoints, "foot-walking");
+        return geometry != null ? geometry.atDetail(detail) : null;
+    }
+    
     public void toggleFavorite(String routeId, String userId) {
         System.out.println("=== TOGGLE FAVORITE ===");
         System.out.println("Route ID: " + routeId);
@@ -289,11 +364,51 @@ public class RouteService {
         return step;
     }
     
+    /**
+     * Steps in binary form (steps_data) plus the summary columns; clears the former JSON text
+     */
+    private void storeSteps(Route route, List<StepResponse> steps) {
+        route.setStepsData(RouteStepsCodec.encode(steps));
+        route.setStepsJson(null);
+        route.setStepCount(steps.size());
+        PlaceResponse firstPlace = steps.isEmpty() ? null : steps.get(0).getPlace();
+        route.setFirstPlaceId(firstPlace != null ? firstPlace.getId() : null);
+        route.setFirstPlaceName(firstPlace != null ? firstPlace.getName() : null);
+        
+        Double minLatitude = null;
+        Double minLongitude = null;
+        Double maxLatitude = null;
+        Double maxLongitude = null;
+        for (StepResponse step : steps) {
+            PlaceResponse place = step.getPlace();
+            if (place == null || place.getLatitude() == null || place.getLongitude() == null) {
+                continue;
+            }
+            minLatitude = minLatitude == null ? place.getLatitude() : Math.min(minLatitude, place.getLatitude());
+            minLongitude = minLongitude == null ? place.getLongitude() : Math.min(minLongitude, place.getLongitude());
+            maxLatitude = maxLatitude == null ? place.getLatitude() : Math.max(maxLatitude, place.getLatitude());
+            maxLongitude = maxLongitude == null ? place.getLongitude() : Math.max(maxLongitude, place.getLongitude());
+        }
+        route.setMinLatitude(minLatitude);
+        route.setMinLongitude(minLongitude);
+        route.setMaxLatitude(maxLatitude);
+        route.setMaxLongitude(maxLongitude);
+    }
+    
     public RouteResponse convertToResponse(Route route) {
         List<StepResponse> stepResponses = null;
         
-        // Try to deserialize steps from JSON first
-        if (route.getStepsJson() != null && !route.getStepsJson().isEmpty()) {
+        if (route.getStepsData() != null && route.getStepsData().length > 0) {
+            try {
+                stepResponses = RouteStepsCodec.decode(route.getStepsData());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error decoding steps of route " + route.getId() + ": " + e.getMessage());
+                stepResponses = null;
+            }
+        }
+        
+        // Rows not converted yet: steps as JSON text
+        if (stepResponses == null && route.getStepsJson() != null && !route.getStepsJson().isEmpty()) {
             try {
                 stepResponses = objectMapper.readValue(
                     route.getStepsJson(),
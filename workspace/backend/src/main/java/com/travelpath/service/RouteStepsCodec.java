@@ -0,0 +1,201 @@
+package com.travelpath.service;
+
+import com.travelpath.dto.PlaceResponse;
+import com.travelpath.dto.StepResponse;
+import com.travelpath.model.PlaceCategory;
+import com.travelpath.model.TimeSlot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary form of the steps of a saved route (routes.steps_data), replacing the JSON text of
+ * steps_json: no field names, a presence bit per optional field, varint integers, coordinates
+ * as 1e-7 degree fixed point (about 1 cm), the whole deflated. A typical route takes about a
+ * quarter of its JSON size. The first byte is the format version, checked when decoding.
+ */
+public final class RouteStepsCodec {
+    
+    private static final int VERSION = 1;
+    private static final double COORDINATE_FACTOR = 1e7;
+    
+    private RouteStepsCodec() {}
+    
+    public static byte[] encode(List<StepResponse> steps) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(VERSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            writeVarLong(out, steps.size());
+            for (StepResponse step : steps) {
+                writeStep(out, step);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot encode route steps", e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * @throws IllegalArgumentException if the data is truncated, corrupt or of an unknown version
+     */
+    public static List<StepResponse> decode(byte[] data) {
+        if (data == null || data.length == 0 || data[0] != VERSION) {
+            throw new IllegalArgumentException("Unknown route steps format");
+        }
+        ByteArrayInputStream bytes = new ByteArrayInputStream(data, 1, data.length - 1);
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(bytes))) {
+            int count = (int) readVarLong(in);
+            List<StepResponse> steps = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                steps.add(readStep(in));
+            }
+            return steps;
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid route steps data: " + e.getMessage(), e);
+        }
+    }
+    
+    private static void writeStep(DataOutputStream out, StepResponse step) throws IOException {
+        writeFlags(out, step.getId(), step.getOrder(), step.getPlace(), step.getTimeSlot(), step.getEstimatedDuration(),
+            step.getDistanceFromPrevious(), step.getCost(), step.getNotes());
+        writeString(out, step.getId());
+        writeInteger(out, step.getOrder());
+        if (step.getPlace() != null) {
+            writePlace(out, step.getPlace());
+        }
+        writeString(out, step.getTimeSlot() != null ? step.getTimeSlot().name() : null);
+        writeInteger(out, step.getEstimatedDuration());
+        writeDouble(out, step.getDistanceFromPrevious());
+        writeDouble(out, step.getCost());
+        writeString(out, step.getNotes());
+    }
+    
+    private static StepResponse readStep(DataInputStream in) throws IOException {
+        long flags = readVarLong(in);
+        StepResponse step = new StepResponse();
+        step.setId(has(flags, 0) ? readString(in) : null);
+        step.setOrder(has(flags, 1) ? (int) readVarLong(in) : null);
+        step.setPlace(has(flags, 2) ? readPlace(in) : null);
+        step.setTimeSlot(has(flags, 3) ? TimeSlot.valueOf(readString(in)) : null);
+        step.setEstimatedDuration(has(flags, 4) ? (int) readVarLong(in) : null);
+        step.setDistanceFromPrevious(has(flags, 5) ? in.readDouble() : null);
+        step.setCost(has(flags, 6) ? in.readDouble() : null);
+        step.setNotes(has(flags, 7) ? readString(in) : null);
+        return step;
+    }
+    
+    private static void writePlace(DataOutputStream out, PlaceResponse place) throws IOException {
+        writeFlags(out, place.getId(), place.getName(), place.getCategory(), place.getLatitude(), place.getLongitude(),
+            place.getAddress(), place.getDescription(), place.getAverageCost(), place.getEstimatedWaitTime());
+        writeString(out, place.getId());
+        writeString(out, place.getName());
+        writeString(out, place.getCategory() != null ? place.getCategory().name() : null);
+        writeCoordinate(out, place.getLatitude());
+        writeCoordinate(out, place.getLongitude());
+        writeString(out, place.getAddress());
+        writeString(out, place.getDescription());
+        writeDouble(out, place.getAverageCost());
+        writeInteger(out, place.getEstimatedWaitTime());
+    }
+    
+    private static PlaceResponse readPlace(DataInputStream in) throws IOException {
+        long flags = readVarLong(in);
+        PlaceResponse place = new PlaceResponse();
+        place.setId(has(flags, 0) ? readString(in) : null);
+        place.setName(has(flags, 1) ? readString(in) : null);
+        place.setCategory(has(flags, 2) ? PlaceCategory.valueOf(readString(in)) : null);
+        place.setLatitude(has(flags, 3) ? readZigZag(in) / COORDINATE_FACTOR : null);
+        place.setLongitude(has(flags, 4) ? readZigZag(in) / COORDINATE_FACTOR : null);
+        place.setAddress(has(flags, 5) ? readString(in) : null);
+        place.setDescription(has(flags, 6) ? readString(in) : null);
+        place.setAverageCost(has(flags, 7) ? in.readDouble() : null);
+        place.setEstimatedWaitTime(has(flags, 8) ? (int) readVarLong(in) : null);
+        return place;
+    }
+    
+    /**
+     * One bit per field, set when it is not null; null fields are not written
+     */
+    private static void writeFlags(DataOutputStream out, Object... fields) throws IOException {
+        long flags = 0;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != null) {
+                flags |= 1L << i;
+            }
+        }
+        writeVarLong(out, flags);
+    }
+    
+    private static boolean has(long flags, int field) {
+        return (flags & (1L << field)) != 0;
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value != null) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, utf8.length);
+            out.write(utf8);
+        }
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] utf8 = new byte[(int) readVarLong(in)];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+    
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        if (value != null) {
+            writeVarLong(out, value & 0xFFFFFFFFL);
+        }
+    }
+    
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+    
+    private static void writeCoordinate(DataOutputStream out, Double value) throws IOException {
+        if (value != null) {
+            long fixed = Math.round(value * COORDINATE_FACTOR);
+            writeVarLong(out, (fixed << 1) ^ (fixed >> 63));
+        }
+    }
+    
+    private static long readZigZag(DataInputStream in) throws IOException {
+        long value = readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    /**
+     * Unsigned LEB128: 7 bits per byte, high bit set on all but the last byte
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+    
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint too long");
+    }
+}
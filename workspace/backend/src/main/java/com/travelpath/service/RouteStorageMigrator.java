@@ -0,0 +1,51 @@
+package com.travelpath.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts the routes saved with JSON steps (steps_json) to the binary steps_data and its
+ * summary columns, once the application is up, in batches of one transaction each.
+ * Routes not converted yet are still read from their JSON, so the application does not wait.
+ */
+@Component
+public class RouteStorageMigrator {
+    
+    @Autowired
+    private RouteService routeService;
+    
+    @Value("${routes.storage.migrate-on-startup:true}")
+    private boolean enabled;
+    
+    @Value("${routes.storage.migration-batch-size:200}")
+    private int batchSize;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        Thread migration = new Thread(() -> {
+            long start = System.currentTimeMillis();
+            int batches = 0;
+            try {
+                // Keyset pages by id: rows that cannot be converted are passed, not read again
+                for (String lastId = routeService.migrateJsonSteps("", batchSize); lastId != null;
+                     lastId = routeService.migrateJsonSteps(lastId, batchSize)) {
+                    batches++;
+                }
+                if (batches > 0) {
+                    System.out.println("[RouteStorageMigrator] Converted route steps in " + batches + " batches in "
+                        + (System.currentTimeMillis() - start) + "ms");
+                }
+            } catch (Exception e) {
+                System.err.println("[RouteStorageMigrator] Steps migration stopped after " + batches + " batches: " + e.getMessage());
+            }
+        }, "route-storage-migration");
+        migration.setDaemon(true);
+        migration.start();
+    }
+}
@@ -0,0 +1,128 @@
+package com.travelpath.service;
+
+import com.travelpath.model.PlaceCategory;
+import com.travelpath.util.CountMinSketch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Request density per tile, used to decide which cache entries are worth prefetching.
+ * Counts live in a count-min sketch (fixed memory whatever the number of tiles);
+ * only a bounded set of candidate tiles is remembered so the hottest ones can be listed.
+ */
+@Component
+public class TileDemandTracker {
+
+    public enum Kind { PLACES, WEATHER }
+
+    private final CountMinSketch sketch;
+    private final Map<String, Target> candidates = new ConcurrentHashMap<>();
+    private final int maxCandidates;
+
+    public TileDemandTracker(
+        @Value("${prefetch.sketch.width:2048}") int width,
+        @Value("${prefetch.sketch.depth:4}") int depth,
+        @Value("${prefetch.max-tracked-tiles:500}") int maxCandidates
+    ) {
+        this.sketch = new CountMinSketch(width, depth);
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Record a place search for a tile (one hit per category)
+     */
+    public void recordPlaces(String cacheKey, double latitude, double longitude, int radiusMeters, PlaceCategory category) {
+        record(new Target(Kind.PLACES, cacheKey, latitude, longitude, radiusMeters, category));
+    }
+
+    /**
+     * Record a weather request for a tile
+     */
+    public void recordWeather(String cacheKey, double latitude, double longitude) {
+        record(new Target(Kind.WEATHER, cacheKey, latitude, longitude, 0, null));
+    }
+
+    /**
+     * Candidate tiles with at least minHits estimated requests, hottest first
+     */
+    public List<Target> hottest(int limit, int minHits) {
+        List<Target> hot = new ArrayList<>();
+        for (Target target : candidates.values()) {
+            target.hits = sketch.estimate(target.id());
+            if (target.hits >= minHits) {
+                hot.add(target);
+            }
+        }
+        hot.sort(Comparator.comparingInt(Target::getHits).reversed());
+        return hot.size() > limit ? new ArrayList<>(hot.subList(0, limit)) : hot;
+    }
+
+    /**
+     * Halve all counts so old demand fades out, and forget tiles that went cold
+     */
+    public void decay() {
+        sketch.decay();
+        candidates.values().removeIf(target -> sketch.estimate(target.id()) == 0);
+        if (candidates.size() > maxCandidates) {
+            List<Target> byHits = new ArrayList<>(candidates.values());
+            byHits.forEach(target -> target.hits = sketch.estimate(target.id()));
+            byHits.sort(Comparator.comparingInt(Target::getHits));
+            for (int i = 0; i < byHits.size() - maxCandidates; i++) {
+                candidates.remove(byHits.get(i).id());
+            }
+        }
+    }
+
+    public int getTrackedTiles() {
+        return candidates.size();
+    }
+
+    private void record(Target target) {
+        String id = target.id();
+        sketch.add(id);
+        // Candidates may exceed the limit until the next decay() trims the coldest ones
+        if (candidates.size() < maxCandidates * 2) {
+            candidates.putIfAbsent(id, target);
+        }
+    }
+
+    /**
+     * A cache entry that can be prefetched
+     */
+    public static class Target {
+        private final Kind kind;
+        private final String cacheKey;
+        private final double latitude;
+        private final double longitude;
+        private final int radiusMeters;
+        private final PlaceCategory category;
+        private volatile int hits;
+
+        Target(Kind kind, String cacheKey, double latitude, double longitude, int radiusMeters, PlaceCategory category) {
+            this.kind = kind;
+            this.cacheKey = cacheKey;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radiusMeters = radiusMeters;
+            this.category = category;
+        }
+
+        String id() {
+            return kind + ":" + cacheKey;
+        }
+
+        public Kind getKind() { return kind; }
+        public String getCacheKey() { return cacheKey; }
+        public double getLatitude() { return latitude; }
+        public double getLongitude() { return longitude; }
+        public int getRadiusMeters() { return radiusMeters; }
+        public PlaceCategory getCategory() { return category; }
+        public int getHits() { return hits; }
+    }
+}
@@ -0,0 +1,97 @@
+package com.travelpath.service;
+
+import com.travelpath.model.Place;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Weather suitability over the next days for one traveller, precomputed per 3-hour forecast
+ * slot so route generation can check the arrival time of every candidate in constant time.
+ * Times before the first forecast slot (and the next 90 minutes) use the current weather;
+ * times past the last slot use the last one.
+ */
+public class WeatherOutlook {
+    
+    /** Step of the OpenWeather forecast, in seconds */
+    public static final long SLOT_SECONDS = 3 * 3600;
+    
+    private final long now;
+    private final boolean currentSuitable;
+    private final long firstSlotTime;
+    private final boolean[] slotSuitable;
+    
+    WeatherOutlook(long now, boolean currentSuitable, long firstSlotTime, boolean[] slotSuitable) {
+        this.now = now;
+        this.currentSuitable = currentSuitable;
+        this.firstSlotTime = firstSlotTime;
+        this.slotSuitable = slotSuitable;
+    }
+    
+    /**
+     * Table from the current weather and the forecast (in time order), with the suitability
+     * test of WeatherService; slots the forecast skips take the value of the previous one
+     */
+    static WeatherOutlook build(long now, boolean currentSuitable, List<WeatherService.WeatherData> forecast,
+                                Predicate<WeatherService.WeatherData> suitable) {
+        if (forecast == null || forecast.isEmpty() || forecast.get(0).time <= 0) {
+            return current(now, currentSuitable);
+        }
+        long first = forecast.get(0).time;
+        int slots = (int) ((forecast.get(forecast.size() - 1).time - first) / SLOT_SECONDS) + 1;
+        boolean[] table = new boolean[Math.max(1, slots)];
+        boolean[] filled = new boolean[table.length];
+        for (WeatherService.WeatherData item : forecast) {
+            int slot = (int) ((item.time - first) / SLOT_SECONDS);
+            if (slot >= 0 && slot < table.length && !filled[slot]) {
+                table[slot] = suitable.test(item);
+                filled[slot] = true;
+            }
+        }
+        for (int slot = 1; slot < table.length; slot++) {
+            if (!filled[slot]) {
+                table[slot] = table[slot - 1];
+            }
+        }
+        return new WeatherOutlook(now, currentSuitable, first, table);
+    }
+    
+    /**
+     * Outlook from the current weather alone, e.g. when the forecast cannot be had
+     */
+    public static WeatherOutlook current(long now, boolean currentSuitable) {
+        return new WeatherOutlook(now, currentSuitable, now, new boolean[0]);
+    }
+    
+    /**
+     * Unix time (seconds) the outlook was built at
+     */
+    public long getNow() {
+        return now;
+    }
+    
+    public boolean isSuitableAt(long time) {
+        // Forecast points are the middle of their slot
+        long offset = time - firstSlotTime + SLOT_SECONDS / 2;
+        if (slotSuitable.length == 0 || time < now + SLOT_SECONDS / 2 || offset < 0) {
+            return currentSuitable;
+        }
+        int slot = (int) Math.min(slotSuitable.length - 1, offset / SLOT_SECONDS);
+        return slotSuitable[slot];
+    }
+    
+    /**
+     * True if the place can be visited at that time: always for places unaffected by weather
+     */
+    public boolean allows(Place place, long time) {
+        return isWeatherIndependent(place) || isSuitableAt(time);
+    }
+    
+    public static boolean isWeatherIndependent(Place place) {
+        return isZero(place.getColdImpact()) && isZero(place.getHeatImpact()) && isZero(place.getHumidityImpact());
+    }
+    
+    private static boolean isZero(Integer impact) {
+        return impact == null || impact == 0;
+    }
+}
@@ -1,47 +1,324 @@
 package com.travelpath.service;
 
+import com.travelpath.external.ProviderQuotas;
+import com.travelpath.external.RequestPriority;
 import com.travelpath.external.WeatherApiClient;
+import com.travelpath.geo.GeoUtils;
+import com.travelpath.util.TaskScope;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Current weather and forecasts, cached per tile of weather.tile.size-degrees (about 5 km):
+ * current weather in the "weather" cache (short TTL), forecasts in "weather-forecast" (longer
+ * TTL, OpenWeather only updates them every few hours). Concurrent misses on the same tile are
+ * coalesced into one OpenWeather call, which matters at peak under its 60 calls/minute quota.
+ * Hit rates are exported as weather.cache.hit.rate (tag cache=weather|forecast).
+ * Screens showing weather for many places use the batch lookup (one call per distinct tile).
+ */
 @Service
 public class WeatherService {
     
     @Autowired
     private WeatherApiClient weatherApiClient;
     
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private TileDemandTracker tileDemandTracker;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ProviderQuotas providerQuotas;
+    
+    @Autowired
+    @Qualifier("providerExecutor")
+    private Executor providerExecutor;
+    
+    @Value("${weather.tile.size-degrees:0.05}")
+    private double tileDegrees;
+    
+    @Value("${weather.batch.max-points:200}")
+    private int maxBatchPoints;
+    
+    @Value("${weather.batch.max-provider-calls:20}")
+    private int maxBatchProviderCalls;
+    
+    @Value("${weather.batch.max-concurrent-requests:4}")
+    private int maxBatchConcurrentRequests;
+    
+    @Value("${weather.batch.timeout-ms:10000}")
+    private long batchTimeoutMs;
+    
+    /** Calls to OpenWeather in progress, by cache name and key; later misses wait for them */
+    private final Map<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final CacheStats currentStats = new CacheStats();
+    private final CacheStats forecastStats = new CacheStats();
+    
+    @PostConstruct
+    public void registerMetrics() {
+        currentStats.register(meterRegistry, "weather");
+        forecastStats.register(meterRegistry, "forecast");
+    }
+    
+    /**
+     * Current weather, shared by all requests in the same tile (about 5 km)
+     */
     public WeatherData getCurrentWeather(double latitude, double longitude) {
-        WeatherApiClient.WeatherData weather = weatherApiClient.getCurrentWeather(latitude, longitude);
+        double tileLatitude = GeoUtils.snapToTile(latitude, tileDegrees);
+        double tileLongitude = GeoUtils.snapToTile(longitude, tileDegrees);
+        String cacheKey = weatherCacheKey(tileLatitude, tileLongitude);
+        tileDemandTracker.recordWeather(cacheKey, tileLatitude, tileLongitude);
+        
+        Cache cache = cacheManager.getCache("weather");
+        WeatherData cached = cache != null ? cache.get(cacheKey, WeatherData.class) : null;
+        if (cached != null) {
+            currentStats.hits.incrementAndGet();
+            return cached;
+        }
+        currentStats.misses.incrementAndGet();
+        
+        WeatherData weather = loadCurrentWeather(cacheKey, tileLatitude, tileLongitude);
+        return weather != null ? weather : defaultWeather();
+    }
+    
+    /**
+     * Current weather for many points ({latitude, longitude}), in input order.
+     * Points are snapped to tiles and each distinct tile is looked up once; tiles missing from
+     * the cache are fetched by a few concurrent workers, at most max-provider-calls per batch and
+     * only while the OpenWeather quota has tokens left. Tiles that cannot be had get the default weather.
+     * @throws IllegalArgumentException if there are more than weather.batch.max-points points
+     */
+    public List<WeatherData> getCurrentWeather(List<double[]> points) {
+        if (points.size() > maxBatchPoints) {
+            throw new IllegalArgumentException("At most " + maxBatchPoints + " points per batch");
+        }
+        
+        // Distinct tiles, in first-seen order, and the tile of every point
+        Map<String, double[]> tiles = new LinkedHashMap<>();
+        List<String> pointKeys = new ArrayList<>(points.size());
+        for (double[] point : points) {
+            double tileLatitude = GeoUtils.snapToTile(point[0], tileDegrees);
+            double tileLongitude = GeoUtils.snapToTile(point[1], tileDegrees);
+            String cacheKey = weatherCacheKey(tileLatitude, tileLongitude);
+            pointKeys.add(cacheKey);
+            if (tiles.putIfAbsent(cacheKey, new double[]{tileLatitude, tileLongitude}) == null) {
+                tileDemandTracker.recordWeather(cacheKey, tileLatitude, tileLongitude);
+            }
+        }
+        
+        Cache cache = cacheManager.getCache("weather");
+        Map<String, WeatherData> results = new ConcurrentHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String cacheKey : tiles.keySet()) {
+            WeatherData cached = cache != null ? cache.get(cacheKey, WeatherData.class) : null;
+            if (cached != null) {
+                currentStats.hits.incrementAndGet();
+                results.put(cacheKey, cached);
+            } else {
+                currentStats.misses.incrementAndGet();
+                missing.add(cacheKey);
+            }
+        }
+        if (missing.size() > maxBatchProviderCalls) {
+            System.out.println("[WeatherService] Batch of " + points.size() + " points misses " + missing.size()
+                + " tiles, only " + maxBatchProviderCalls + " are fetched");
+            missing = missing.subList(0, maxBatchProviderCalls);
+        }
+        
+        if (!missing.isEmpty()) {
+            List<String> queue = missing;
+            AtomicInteger next = new AtomicInteger();
+            try (TaskScope scope = new TaskScope(providerExecutor)) {
+                int workers = Math.min(Math.max(1, maxBatchConcurrentRequests), queue.size());
+                for (int w = 0; w < workers; w++) {
+                    scope.fork(() -> {
+                        for (int t = next.getAndIncrement(); t < queue.size(); t = next.getAndIncrement()) {
+                            // Stop before the quota refuses: the rest of the batch gets the default weather
+                            if (!providerQuotas.isAvailable("openweather", RequestPriority.current())) {
+                                break;
+                            }
+                            String cacheKey = queue.get(t);
+                            double[] tile = tiles.get(cacheKey);
+                            WeatherData weather = loadCurrentWeather(cacheKey, tile[0], tile[1]);
+                            if (weather != null) {
+                                results.put(cacheKey, weather);
+                            }
+                        }
+                        return null;
+                    });
+                }
+                scope.join(batchTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        List<WeatherData> weather = new ArrayList<>(points.size());
+        for (String cacheKey : pointKeys) {
+            weather.add(results.getOrDefault(cacheKey, defaultWeather()));
+        }
+        return weather;
+    }
+    
+    /**
+     * Mild weather used when the provider cannot be reached
+     */
+    public static WeatherData defaultWeather() {
+        return new WeatherData(20.0, "Clear", "Ensoleillé", 60, 10.0, 20.0);
+    }
+    
+    /**
+     * Reload the weather of a tile ahead of its expiry (prefetch scheduler), with background priority
+     */
+    public void prefetchCurrentWeather(double tileLatitude, double tileLongitude) {
+        String cacheKey = weatherCacheKey(tileLatitude, tileLongitude);
+        RequestPriority.BACKGROUND.run(() -> coalesce("weather", cacheKey, () -> fetchCurrentWeather(tileLatitude, tileLongitude)));
+    }
+    
+    /**
+     * Fetch a tile missing from the cache, or wait for the fetch already in progress
+     */
+    private WeatherData loadCurrentWeather(String cacheKey, double tileLatitude, double tileLongitude) {
+        return coalesce("weather", cacheKey, () -> {
+            // Another request may have filled the tile while this one was missing it
+            Cache cache = cacheManager.getCache("weather");
+            WeatherData filled = cache != null ? cache.get(cacheKey, WeatherData.class) : null;
+            return filled != null ? filled : fetchCurrentWeather(tileLatitude, tileLongitude);
+        });
+    }
+    
+    private WeatherData fetchCurrentWeather(double tileLatitude, double tileLongitude) {
+        WeatherApiClient.WeatherData weather = weatherApiClient.getCurrentWeather(tileLatitude, tileLongitude);
         
         if (weather == null) {
-            return new WeatherData(20.0, "Clear", "Ensoleillé", 60, 10.0, 20.0);
+            return null; // Default weather is not cached, the next request retries the API
         }
         
-        return new WeatherData(
+        WeatherData data = new WeatherData(
             weather.temperature,
             weather.condition,
             weather.description,
             weather.humidity,
             weather.windSpeed,
-            weather.feelsLike
+            weather.feelsLike,
+            weather.time
         );
+        Cache cache = cacheManager.getCache("weather");
+        if (cache != null) {
+            cache.put(weatherCacheKey(tileLatitude, tileLongitude), data);
+        }
+        return data;
     }
     
+    private String weatherCacheKey(double tileLatitude, double tileLongitude) {
+        return tileLatitude + "_" + tileLongitude;
+    }
+    
+    /**
+     * Forecast in 3-hour steps (5 days), shared by all requests in the same tile; empty if the
+     * provider cannot be reached (not cached, the next request retries the API)
+     */
+    @SuppressWarnings("unchecked")
     public List<WeatherData> getForecast(double latitude, double longitude) {
-        List<WeatherApiClient.WeatherData> apiForecast = weatherApiClient.getForecast(latitude, longitude);
-        return apiForecast.stream()
-            .map(apiData -> new WeatherData(
-                apiData.temperature,
-                apiData.condition,
-                apiData.description,
-                apiData.humidity,
-                apiData.windSpeed,
-                apiData.feelsLike
-            ))
-            .collect(java.util.stream.Collectors.toList());
+        double tileLatitude = GeoUtils.snapToTile(latitude, tileDegrees);
+        double tileLongitude = GeoUtils.snapToTile(longitude, tileDegrees);
+        String cacheKey = weatherCacheKey(tileLatitude, tileLongitude);
+        
+        Cache cache = cacheManager.getCache("weather-forecast");
+        List<WeatherData> cached = cache != null ? cache.get(cacheKey, List.class) : null;
+        if (cached != null) {
+            forecastStats.hits.incrementAndGet();
+            return cached;
+        }
+        forecastStats.misses.incrementAndGet();
+        
+        return coalesce("weather-forecast", cacheKey, () -> {
+            List<WeatherData> filled = cache != null ? cache.get(cacheKey, List.class) : null;
+            if (filled != null) {
+                return filled;
+            }
+            List<WeatherData> forecast = weatherApiClient.getForecast(tileLatitude, tileLongitude).stream()
+                .map(apiData -> new WeatherData(
+                    apiData.temperature,
+                    apiData.condition,
+                    apiData.description,
+                    apiData.humidity,
+                    apiData.windSpeed,
+                    apiData.feelsLike,
+                    apiData.time
+                ))
+                .collect(Collectors.toUnmodifiableList());
+            if (!forecast.isEmpty() && cache != null) {
+                cache.put(cacheKey, forecast);
+            }
+            return forecast;
+        });
+    }
+    
+    /**
+     * Run the loader unless a call for the same cache key is already in progress, in which case
+     * wait for its result instead of calling the provider again
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T coalesce(String cacheName, String cacheKey, Supplier<T> loader) {
+        String key = cacheName + ":" + cacheKey;
+        CompletableFuture<T> call = new CompletableFuture<>();
+        CompletableFuture<T> running = (CompletableFuture<T>) inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            (cacheName.equals("weather") ? currentStats : forecastStats).coalesced.incrementAndGet();
+            return running.join();
+        }
+        try {
+            T value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+    
+    /**
+     * Suitability of the weather for the traveller now and in every forecast slot (see WeatherOutlook)
+     */
+    public WeatherOutlook getOutlook(
+        WeatherData current,
+        List<WeatherData> forecast,
+        int coldSensitivity,
+        int heatSensitivity,
+        int humiditySensitivity
+    ) {
+        long now = System.currentTimeMillis() / 1000;
+        boolean currentSuitable = isWeatherSuitable(current, coldSensitivity, heatSensitivity, humiditySensitivity);
+        return WeatherOutlook.build(now, currentSuitable, forecast,
+            item -> isWeatherSuitable(item, coldSensitivity, heatSensitivity, humiditySensitivity));
     }
     
     public boolean isWeatherSuitable(
@@ -71,6 +348,30 @@ public class WeatherService {
         return true;
     }
     
+    /**
+     * Lookups of one cache: coalesced misses are also counted as misses
+     */
+    private static class CacheStats {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong coalesced = new AtomicLong();
+        
+        void register(MeterRegistry registry, String cache) {
+            Gauge.builder("weather.cache.hit.rate", this, s -> ratio(s.hits.get(), s.hits.get() + s.misses.get()))
+                .description("Share of weather lookups answered from the tile cache")
+                .tag("cache", cache)
+                .register(registry);
+            FunctionCounter.builder("weather.cache.coalesced", this, s -> s.coalesced.get())
+                .description("Weather cache misses that waited for a call already in progress")
+                .tag("cache", cache)
+                .register(registry);
+        }
+        
+        private static double ratio(long part, long total) {
+            return total == 0 ? 0.0 : (double) part / total;
+        }
+    }
+    
     public static class WeatherData {
         public final double temperature;
         public final String condition;
@@ -78,15 +379,22 @@ public class WeatherService {
         public final int humidity;
         public final double windSpeed;
         public final double feelsLike;
+        public final long time; // Unix time (seconds) of the observation or forecast, 0 if unknown
         
         public WeatherData(double temperature, String condition, String description,
                           int humidity, double windSpeed, double feelsLike) {
+            this(temperature, condition, description, humidity, windSpeed, feelsLike, 0);
+        }
+        
+        public WeatherData(double temperature, String condition, String description,
+                          int humidity, double windSpeed, double feelsLike, long time) {
             this.temperature = temperature;
             this.condition = condition;
             this.description = description;
             this.humidity = humidity;
             this.windSpeed = windSpeed;
             this.feelsLike = feelsLike;
+            this.time = time;
         }
     }
 }
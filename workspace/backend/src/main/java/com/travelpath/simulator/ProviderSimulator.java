@@ -0,0 +1,225 @@
+package com.travelpath.simulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travelpath.util.TokenBucket;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Embeddable HTTP server imitating the five external providers on the paths our clients call:
+ * <pre>
+ *   POST /overpass/api/interpreter
+ *   POST /google/v1/places:searchNearby
+ *   GET  /yelp/v3/businesses/search, /yelp/v3/businesses/{id}
+ *   GET  /openweather/data/2.5/weather, /openweather/data/2.5/forecast
+ *   POST /ors/v2/matrix/{profile}, GET /ors/v2/directions/{profile}, POST /ors/v2/directions/{profile}/geojson
+ * </pre>
+ * Each provider has its own latency distribution, error rate and rate limit (see Behaviour).
+ * Latency is simulated without blocking a thread, so one simulator can serve thousands of
+ * concurrent calls. Responses are synthetic (SimulatedResponses) unless a recorded response
+ * exists in the recordings directory as &lt;provider&gt;/&lt;endpoint&gt;.json.
+ */
+public class ProviderSimulator {
+
+    private final String host;
+    private final int port;
+    private final Path recordingsDir;
+    private final Map<String, Behaviour> behaviours;
+    private final SimulatedResponses responses = new SimulatedResponses(new ObjectMapper());
+    private final Map<String, AtomicLong> served = new ConcurrentHashMap<>();
+    private DisposableServer server;
+
+    /**
+     * @param behaviours per provider name (overpass, google, yelp, openweather, openrouteservice);
+     *                   providers without an entry answer at once without errors or limits
+     * @param recordingsDir directory of recorded responses, or null for synthetic responses only
+     */
+    public ProviderSimulator(String host, int port, Map<String, Behaviour> behaviours, Path recordingsDir) {
+        this.host = host;
+        this.port = port;
+        this.behaviours = behaviours;
+        this.recordingsDir = recordingsDir;
+    }
+
+    public synchronized void start() {
+        if (server != null) {
+            return;
+        }
+        server = HttpServer.create()
+            .host(host)
+            .port(port)
+            .route(routes -> routes
+                .post("/overpass/api/interpreter", (request, response) ->
+                    handle("overpass", "interpreter", request, response, call -> responses.overpass(call.body)))
+                .post("/google/v1/places:searchNearby", (request, response) ->
+                    handle("google", "searchNearby", request, response, call -> responses.googleSearchNearby(call.body)))
+                .get("/yelp/v3/businesses/search", (request, response) ->
+                    handle("yelp", "search", request, response, call -> responses.yelpSearch(call.params)))
+                .get("/yelp/v3/businesses/{id}", (request, response) ->
+                    handle("yelp", "business", request, response, call -> responses.yelpBusiness(request.param("id"))))
+                .get("/openweather/data/2.5/weather", (request, response) ->
+                    handle("openweather", "weather", request, response, call -> responses.currentWeather(call.params)))
+                .get("/openweather/data/2.5/forecast", (request, response) ->
+                    handle("openweather", "forecast", request, response, call -> responses.forecast(call.params)))
+                .post("/ors/v2/matrix/{profile}", (request, response) ->
+                    handle("openrouteservice", "matrix", request, response, call -> responses.orsMatrix(request.param("profile"), call.body)))
+                .get("/ors/v2/directions/{profile}", (request, response) ->
+                    handle("openrouteservice", "directions", request, response, call -> responses.orsDirections(request.param("profile"), call.params)))
+                .post("/ors/v2/directions/{profile}/geojson", (request, response) ->
+                    handle("openrouteservice", "directions", request, response, call -> responses.orsDirectionsGeoJson(request.param("profile"), call.body)))
+            )
+            .bindNow();
+        System.out.println("[ProviderSimulator] Listening on http://" + host + ":" + server.port());
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+            System.out.println("[ProviderSimulator] Stopped, served " + served);
+        }
+    }
+
+    /**
+     * Actual port (useful when started on port 0)
+     */
+    public int getPort() {
+        return server != null ? server.port() : port;
+    }
+
+    private Publisher<Void> handle(
+        String provider,
+        String endpoint,
+        HttpServerRequest request,
+        HttpServerResponse response,
+        Function<Call, String> generator
+    ) {
+        Behaviour behaviour = behaviours.getOrDefault(provider, Behaviour.NONE);
+        return request.receive().aggregate().asString(StandardCharsets.UTF_8).defaultIfEmpty("")
+            .map(body -> answer(provider, endpoint, behaviour, new Call(body, new QueryStringDecoder(request.uri()).parameters()), generator))
+            .delayUntil(answer -> Mono.delay(behaviour.nextLatency()))
+            .flatMap(answer -> {
+                served.computeIfAbsent(provider + "/" + answer.status, k -> new AtomicLong()).incrementAndGet();
+                response.status(answer.status).header("Content-Type", "application/json; charset=utf-8");
+                if (answer.status == 429) {
+                    response.header("Retry-After", "60");
+                }
+                return response.sendString(Mono.just(answer.body), StandardCharsets.UTF_8).then();
+            });
+    }
+
+    private Answer answer(String provider, String endpoint, Behaviour behaviour, Call call, Function<Call, String> generator) {
+        if (!behaviour.tryAcquire()) {
+            return new Answer(HttpResponseStatus.TOO_MANY_REQUESTS.code(), "{\"error\":\"rate limit exceeded\"}");
+        }
+        if (ThreadLocalRandom.current().nextDouble() < behaviour.errorRate) {
+            return new Answer(behaviour.errorStatus, "{\"error\":\"simulated failure\"}");
+        }
+        try {
+            String recorded = recorded(provider, endpoint);
+            return new Answer(200, recorded != null ? recorded : generator.apply(call));
+        } catch (IllegalArgumentException e) {
+            return new Answer(400, "{\"error\":\"" + e.getMessage().replace("\"", "'") + "\"}");
+        }
+    }
+
+    private String recorded(String provider, String endpoint) {
+        if (recordingsDir == null) {
+            return null;
+        }
+        Path file = recordingsDir.resolve(provider).resolve(endpoint + ".json");
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return Files.readString(file);
+        } catch (IOException e) {
+            System.err.println("[ProviderSimulator] Cannot read recording " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Simulated behaviour of one provider.
+     * Latency is log-normal with the given median and 95th percentile (a long tail like real APIs);
+     * errorRate of the calls fail with errorStatus; above ratePerMinute calls get 429.
+     */
+    public static class Behaviour {
+        static final Behaviour NONE = new Behaviour(0, 0, 0.0, 503, 0);
+
+        private final double mu;
+        private final double sigma;
+        private final double errorRate;
+        private final int errorStatus;
+        private final TokenBucket rateLimit;
+
+        public Behaviour(long latencyMedianMs, long latencyP95Ms, double errorRate, int errorStatus, long ratePerMinute) {
+            this.mu = latencyMedianMs > 0 ? Math.log(latencyMedianMs) : Double.NEGATIVE_INFINITY;
+            this.sigma = latencyMedianMs > 0 && latencyP95Ms > latencyMedianMs
+                ? Math.log((double) latencyP95Ms / latencyMedianMs) / 1.645
+                : 0.0;
+            this.errorRate = errorRate;
+            this.errorStatus = errorStatus;
+            this.rateLimit = ratePerMinute > 0 ? new TokenBucket(ratePerMinute, Duration.ofMinutes(1).toNanos()) : null;
+        }
+
+        Duration nextLatency() {
+            if (mu == Double.NEGATIVE_INFINITY) {
+                return Duration.ZERO;
+            }
+            double millis = Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+            return Duration.ofMillis(Math.min(120_000L, Math.round(millis)));
+        }
+
+        boolean tryAcquire() {
+            if (rateLimit == null) {
+                return true;
+            }
+            synchronized (rateLimit) {
+                if (!rateLimit.canTake(0.0)) {
+                    return false;
+                }
+                rateLimit.take();
+                return true;
+            }
+        }
+    }
+
+    private static class Call {
+        final String body;
+        final Map<String, List<String>> params;
+
+        Call(String body, Map<String, List<String>> params) {
+            this.body = body;
+            this.params = params;
+        }
+    }
+
+    private static class Answer {
+        final int status;
+        final String body;
+
+        Answer(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package com.travelpath.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.travelpath.geo.GeoUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Synthetic provider responses in the format of the real APIs (only the fields our clients read,
+ * plus the usual envelope). Content is derived from a seeded random generator keyed on the
+ * requested location, so the same request always gets the same places.
+ */
+class SimulatedResponses {
+
+    private static final Pattern OVERPASS_FILTER =
+        Pattern.compile("\\[\"([^\"]+)\"=\"([^\"]+)\"]\\(around:(\\d+),(-?[\\d.]+),(-?[\\d.]+)\\)");
+
+    private static final String[] NAME_WORDS = {
+        "Voltaire", "Montmartre", "des Arts", "du Parc", "Saint-Michel", "de la Gare",
+        "Victor Hugo", "du Marché", "Lumière", "des Lilas", "de la Place", "du Pont"
+    };
+
+    private static final String[] STREETS = {
+        "Rue de la République", "Avenue Jean Jaurès", "Rue Victor Hugo", "Boulevard Pasteur",
+        "Rue du Général de Gaulle", "Place de l'Église", "Rue des Écoles", "Quai de la Seine"
+    };
+
+    private static final String[][] WEATHER_CONDITIONS = {
+        {"Clear", "ciel dégagé"}, {"Clouds", "peu nuageux"}, {"Clouds", "couvert"},
+        {"Rain", "légère pluie"}, {"Rain", "pluie modérée"}, {"Mist", "brume"}
+    };
+
+    private static final DateTimeFormatter FORECAST_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final ObjectMapper objectMapper;
+
+    SimulatedResponses(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Overpass interpreter: elements for every ["key"="value"](around:r,lat,lon) filter of the query
+     */
+    String overpass(String query) {
+        Matcher matcher = OVERPASS_FILTER.matcher(query);
+        Set<String> tags = new LinkedHashSet<>();
+        double lat = 0, lon = 0;
+        int radius = 1000;
+        while (matcher.find()) {
+            tags.add(matcher.group(1) + "=" + matcher.group(2));
+            radius = Integer.parseInt(matcher.group(3));
+            lat = Double.parseDouble(matcher.group(4));
+            lon = Double.parseDouble(matcher.group(5));
+        }
+
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("version", 0.6);
+        root.put("generator", "TravelPath provider simulator");
+        ArrayNode elements = root.putArray("elements");
+        for (String tag : tags) {
+            String key = tag.substring(0, tag.indexOf('='));
+            String value = tag.substring(tag.indexOf('=') + 1);
+            Random random = random(lat, lon, tag.hashCode());
+            // Denser results for larger searches, like a city centre
+            int count = 5 + random.nextInt(10 + radius / 50);
+            for (int i = 0; i < count; i++) {
+                double[] point = randomPoint(random, lat, lon, radius);
+                ObjectNode element = elements.addObject();
+                boolean way = random.nextInt(4) == 0;
+                element.put("type", way ? "way" : "node");
+                element.put("id", Math.abs((long) tag.hashCode() * 1_000_003L + Math.round(point[0] * 1e5) * 31 + i));
+                if (way) {
+                    ObjectNode center = element.putObject("center");
+                    center.put("lat", point[0]);
+                    center.put("lon", point[1]);
+                } else {
+                    element.put("lat", point[0]);
+                    element.put("lon", point[1]);
+                }
+                ObjectNode elementTags = element.putObject("tags");
+                elementTags.put(key, value);
+                elementTags.put("name", label(value) + " " + NAME_WORDS[random.nextInt(NAME_WORDS.length)]);
+                elementTags.put("addr:street", STREETS[random.nextInt(STREETS.length)]);
+                elementTags.put("addr:housenumber", String.valueOf(1 + random.nextInt(120)));
+                elementTags.put("addr:city", "Simulated City");
+                if ("restaurant".equals(value)) {
+                    elementTags.put("cuisine", random.nextBoolean() ? "french" : "italian");
+                }
+            }
+        }
+        return write(root);
+    }
+
+    /**
+     * Google Places (New) searchNearby
+     */
+    String googleSearchNearby(String body) {
+        JsonNode request = read(body);
+        JsonNode circle = request.path("locationRestriction").path("circle");
+        double lat = circle.path("center").path("latitude").asDouble();
+        double lon = circle.path("center").path("longitude").asDouble();
+        int radius = circle.path("radius").asInt(1000);
+        int maxResults = request.path("maxResultCount").asInt(20);
+        String type = request.path("includedTypes").path(0).asText("point_of_interest");
+        String[] priceLevels = {"PRICE_LEVEL_INEXPENSIVE", "PRICE_LEVEL_MODERATE", "PRICE_LEVEL_EXPENSIVE"};
+
+        Random random = random(lat, lon, type.hashCode());
+        ObjectNode root = objectMapper.createObjectNode();
+        ArrayNode places = root.putArray("places");
+        for (int i = 0; i < maxResults; i++) {
+            double[] point = randomPoint(random, lat, lon, radius);
+            ObjectNode place = places.addObject();
+            place.put("id", "ChIJsim" + Long.toHexString(Math.abs(random.nextLong())));
+            ObjectNode displayName = place.putObject("displayName");
+            displayName.put("text", label(type) + " " + NAME_WORDS[random.nextInt(NAME_WORDS.length)]);
+            displayName.put("languageCode", "fr");
+            ObjectNode location = place.putObject("location");
+            location.put("latitude", point[0]);
+            location.put("longitude", point[1]);
+            place.put("formattedAddress", (1 + random.nextInt(120)) + " " + STREETS[random.nextInt(STREETS.length)] + ", Simulated City");
+            place.put("priceLevel", priceLevels[random.nextInt(priceLevels.length)]);
+            place.put("rating", Math.round((3.0 + random.nextDouble() * 2.0) * 10) / 10.0);
+            place.put("userRatingCount", 10 + random.nextInt(5000));
+            place.putArray("types").add(type).add("point_of_interest").add("establishment");
+        }
+        return write(root);
+    }
+
+    /**
+     * Yelp Fusion businesses/search
+     */
+    String yelpSearch(Map<String, List<String>> params) {
+        String term = first(params, "term", "restaurants");
+        double lat = Double.parseDouble(first(params, "latitude", "0"));
+        double lon = Double.parseDouble(first(params, "longitude", "0"));
+        int radius = Integer.parseInt(first(params, "radius", "1000"));
+        int limit = Integer.parseInt(first(params, "limit", "20"));
+
+        Random random = random(lat, lon, term.hashCode());
+        ObjectNode root = objectMapper.createObjectNode();
+        ArrayNode businesses = root.putArray("businesses");
+        for (int i = 0; i < limit; i++) {
+            double[] point = randomPoint(random, lat, lon, radius);
+            String id = "sim-" + Long.toHexString(Math.abs(random.nextLong()));
+            business(businesses.addObject(), id, label(term) + " " + NAME_WORDS[random.nextInt(NAME_WORDS.length)], point, random, false);
+        }
+        root.put("total", 240 + random.nextInt(500));
+        ObjectNode center = root.putObject("region").putObject("center");
+        center.put("latitude", lat);
+        center.put("longitude", lon);
+        return write(root);
+    }
+
+    /**
+     * Yelp Fusion businesses/{id}, with opening hours
+     */
+    String yelpBusiness(String id) {
+        Random random = new Random(id.hashCode());
+        double[] point = {round6(48.85 + random.nextDouble() * 0.02), round6(2.34 + random.nextDouble() * 0.02)};
+        ObjectNode business = objectMapper.createObjectNode();
+        business(business, id, "Restaurant " + NAME_WORDS[random.nextInt(NAME_WORDS.length)], point, random, true);
+        return write(business);
+    }
+
+    /**
+     * OpenWeather current weather (/weather)
+     */
+    String currentWeather(Map<String, List<String>> params) {
+        double lat = Double.parseDouble(first(params, "lat", "0"));
+        double lon = Double.parseDouble(first(params, "lon", "0"));
+        // Changes every hour, the same within an hour and a 0.1 degree area
+        Random random = random(lat, lon, (int) (System.currentTimeMillis() / 3_600_000L));
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode coord = root.putObject("coord");
+        coord.put("lon", lon);
+        coord.put("lat", lat);
+        weatherFields(root, lat, random);
+        root.put("dt", System.currentTimeMillis() / 1000);
+        root.put("name", "Simulated City");
+        root.put("cod", 200);
+        return write(root);
+    }
+
+    /**
+     * OpenWeather 5 day / 3 hour forecast (/forecast)
+     */
+    String forecast(Map<String, List<String>> params) {
+        double lat = Double.parseDouble(first(params, "lat", "0"));
+        double lon = Double.parseDouble(first(params, "lon", "0"));
+        LocalDateTime start = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.HOURS);
+        start = start.withHour(start.getHour() - start.getHour() % 3).plusHours(3);
+
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("cod", "200");
+        root.put("cnt", 40);
+        ArrayNode list = root.putArray("list");
+        for (int i = 0; i < 40; i++) {
+            LocalDateTime time = start.plusHours(3L * i);
+            Random random = random(lat, lon, time.hashCode());
+            ObjectNode item = list.addObject();
+            item.put("dt", time.toEpochSecond(ZoneOffset.UTC));
+            weatherFields(item, lat, random);
+            // Cooler at night
+            ObjectNode main = (ObjectNode) item.get("main");
+            double dayOffset = -4.0 * Math.cos((time.getHour() - 3) / 24.0 * 2 * Math.PI);
+            main.put("temp", round1(main.get("temp").asDouble() + dayOffset));
+            main.put("feels_like", round1(main.get("feels_like").asDouble() + dayOffset));
+            item.put("dt_txt", time.format(FORECAST_TIME));
+        }
+        ObjectNode city = root.putObject("city");
+        city.put("name", "Simulated City");
+        return write(root);
+    }
+
+    /**
+     * ORS matrix: locations in the ORS format ([lon, lat] pairs) or as {latitude, longitude}
+     * objects, optional sources and destinations indexes. Distances in km, durations in seconds.
+     * Like ORS, refuses more than 3,500 sources x destinations.
+     */
+    String orsMatrix(String profile, String body) {
+        JsonNode request = read(body);
+        List<double[]> locations = new ArrayList<>();
+        for (JsonNode location : request.path("locations")) {
+            if (location.isArray()) {
+                locations.add(new double[]{location.get(1).asDouble(), location.get(0).asDouble()});
+            } else {
+                locations.add(new double[]{location.path("latitude").asDouble(), location.path("longitude").asDouble()});
+            }
+        }
+        List<double[]> sources = select(locations, request.path("sources"));
+        List<double[]> destinations = select(locations, request.path("destinations"));
+        if ((long) sources.size() * destinations.size() > 3500) {
+            throw new IllegalArgumentException("Request parameters exceed the server configuration limits: "
+                + "only a total of 3500 routes are allowed");
+        }
+        double speedKmh = speedKmh(profile);
+        ObjectNode root = objectMapper.createObjectNode();
+        ArrayNode distances = root.putArray("distances");
+        ArrayNode durations = root.putArray("durations");
+        for (double[] from : sources) {
+            ArrayNode distanceRow = distances.addArray();
+            ArrayNode durationRow = durations.addArray();
+            for (double[] to : destinations) {
+                double km = streetDistanceKm(from, to);
+                distanceRow.add(Math.round(km * 100) / 100.0);
+                durationRow.add(Math.round(km / speedKmh * 3600 * 10) / 10.0);
+            }
+        }
+        ObjectNode metadata = root.putObject("metadata");
+        metadata.put("service", "matrix");
+        metadata.putObject("query").put("profile", profile).put("locations", locations.size());
+        return write(root);
+    }
+
+    private static List<double[]> select(List<double[]> locations, JsonNode indexes) {
+        if (!indexes.isArray()) {
+            return locations;
+        }
+        List<double[]> selected = new ArrayList<>();
+        for (JsonNode index : indexes) {
+            if (index.asInt() < 0 || index.asInt() >= locations.size()) {
+                throw new IllegalArgumentException("Invalid location index " + index.asInt());
+            }
+            selected.add(locations.get(index.asInt()));
+        }
+        return selected;
+    }
+
+    /**
+     * ORS directions (GET, start and end): GeoJSON feature collection, distances in meters
+     */
+    String orsDirections(String profile, Map<String, List<String>> params) {
+        return directions(profile, List.of(lonLat(first(params, "start", "0,0")), lonLat(first(params, "end", "0,0"))));
+    }
+
+    /**
+     * ORS directions (POST .../geojson): same answer for a list of waypoints, one segment per leg
+     */
+    String orsDirectionsGeoJson(String profile, String body) {
+        List<double[]> waypoints = new ArrayList<>();
+        for (JsonNode coordinate : read(body).path("coordinates")) {
+            waypoints.add(new double[]{coordinate.get(1).asDouble(), coordinate.get(0).asDouble()});
+        }
+        if (waypoints.size() < 2) {
+            throw new IllegalArgumentException("at least 2 coordinates are required");
+        }
+        return directions(profile, waypoints);
+    }
+
+    private String directions(String profile, List<double[]> waypoints) {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("type", "FeatureCollection");
+        ObjectNode feature = root.putArray("features").addObject();
+        feature.put("type", "Feature");
+        ObjectNode properties = feature.putObject("properties");
+        ArrayNode segments = properties.putArray("segments");
+        ArrayNode wayPoints = properties.putArray("way_points").add(0);
+        ObjectNode geometry = feature.putObject("geometry");
+        geometry.put("type", "LineString");
+        ArrayNode coordinates = geometry.putArray("coordinates");
+        double totalMeters = 0;
+        double totalSeconds = 0;
+        int index = 0;
+        for (int leg = 0; leg + 1 < waypoints.size(); leg++) {
+            double[] start = waypoints.get(leg);
+            double[] end = waypoints.get(leg + 1);
+            double km = streetDistanceKm(start, end);
+            double meters = Math.round(km * 10000) / 10.0;
+            double seconds = Math.round(km / speedKmh(profile) * 3600 * 10) / 10.0;
+            ObjectNode segment = segments.addObject();
+            segment.put("distance", meters);
+            segment.put("duration", seconds);
+            segment.putArray("steps");
+            totalMeters += meters;
+            totalSeconds += seconds;
+
+            Random random = random(start[0], start[1], (int) (end[0] * 1e4 + end[1] * 1e4));
+            int points = 2 + (int) Math.min(60, km * 20);
+            // The first point of each leg is the last point of the previous one
+            for (int i = leg == 0 ? 0 : 1; i < points; i++) {
+                double t = (double) i / (points - 1);
+                double jitter = (i == 0 || i == points - 1) ? 0.0 : (random.nextDouble() - 0.5) * 0.0004;
+                coordinates.addArray()
+                    .add(round6(start[1] + (end[1] - start[1]) * t + jitter))
+                    .add(round6(start[0] + (end[0] - start[0]) * t + jitter));
+            }
+            index += points - 1;
+            wayPoints.add(index);
+        }
+        ObjectNode summary = properties.putObject("summary");
+        summary.put("distance", Math.round(totalMeters * 10) / 10.0);
+        summary.put("duration", Math.round(totalSeconds * 10) / 10.0);
+        ObjectNode metadata = root.putObject("metadata");
+        metadata.put("service", "routing");
+        metadata.putObject("query").put("profile", profile).put("format", "geojson");
+        return write(root);
+    }
+
+    private void business(ObjectNode business, String id, String name, double[] point, Random random, boolean withHours) {
+        String[] prices = {"€", "€€", "€€€"};
+        business.put("id", id);
+        business.put("name", name);
+        business.put("price", prices[random.nextInt(prices.length)]);
+        business.put("rating", (2 + random.nextInt(7)) / 2.0);
+        business.put("review_count", random.nextInt(2000));
+        business.put("is_closed", false);
+        ObjectNode coordinates = business.putObject("coordinates");
+        coordinates.put("latitude", point[0]);
+        coordinates.put("longitude", point[1]);
+        String street = (1 + random.nextInt(120)) + " " + STREETS[random.nextInt(STREETS.length)];
+        ObjectNode location = business.putObject("location");
+        location.put("address1", street);
+        location.put("city", "Simulated City");
+        location.put("country", "FR");
+        location.put("zip_code", "750" + (10 + random.nextInt(10)));
+        location.putArray("display_address").add(street).add("Simulated City");
+        business.putArray("categories").addObject().put("alias", "restaurants").put("title", "Restaurants");
+        business.put("phone", "+3314" + (1000000 + random.nextInt(8999999)));
+        business.put("display_phone", "+33 1 4" + random.nextInt(10) + " 00 00 00");
+        if (withHours) {
+            ObjectNode hours = business.putArray("hours").addObject();
+            ArrayNode open = hours.putArray("open");
+            for (int day = 0; day < 7; day++) {
+                if (day == 0 && random.nextBoolean()) {
+                    continue; // Closed on Mondays
+                }
+                open.addObject().put("day", day).put("start", "1130").put("end", "2300").put("is_overnight", false);
+            }
+            hours.put("is_open_now", true);
+        }
+    }
+
+    private void weatherFields(ObjectNode node, double lat, Random random) {
+        String[] condition = WEATHER_CONDITIONS[random.nextInt(WEATHER_CONDITIONS.length)];
+        // Warmer towards the equator
+        double temperature = round1(28.0 - Math.abs(lat) * 0.3 + random.nextGaussian() * 4.0);
+        double wind = round1(1.0 + random.nextDouble() * 8.0);
+        ObjectNode weather = node.putArray("weather").addObject();
+        weather.put("id", 800 + random.nextInt(4));
+        weather.put("main", condition[0]);
+        weather.put("description", condition[1]);
+        ObjectNode main = node.putObject("main");
+        main.put("temp", temperature);
+        main.put("feels_like", round1(temperature - wind * 0.3));
+        main.put("humidity", 35 + random.nextInt(60));
+        main.put("pressure", 1000 + random.nextInt(30));
+        node.putObject("wind").put("speed", wind);
+    }
+
+    private static double speedKmh(String profile) {
+        if (profile.startsWith("driving")) {
+            return 25.0;
+        }
+        if (profile.startsWith("cycling")) {
+            return 15.0;
+        }
+        return 5.0;
+    }
+
+    /**
+     * Street distance estimated from the straight line (streets are rarely straight)
+     */
+    private static double streetDistanceKm(double[] from, double[] to) {
+        return GeoUtils.haversineKm(from[0], from[1], to[0], to[1]) * 1.3;
+    }
+
+    /**
+     * "lon,lat" as used by ORS, returned as {lat, lon}
+     */
+    private static double[] lonLat(String value) {
+        String[] parts = value.split(",");
+        return new double[]{Double.parseDouble(parts[1].trim()), Double.parseDouble(parts[0].trim())};
+    }
+
+    private static double[] randomPoint(Random random, double lat, double lon, int radiusMeters) {
+        double distance = radiusMeters * Math.sqrt(random.nextDouble());
+        double angle = random.nextDouble() * 2 * Math.PI;
+        double dLat = distance * Math.cos(angle) / GeoUtils.METERS_PER_DEGREE_LAT;
+        double dLon = distance * Math.sin(angle) / GeoUtils.metersPerDegreeLon(lat);
+        return new double[]{round6(lat + dLat), round6(lon + dLon)};
+    }
+
+    private static Random random(double lat, double lon, int salt) {
+        long cell = Math.round(lat * 1000) * 73_856_093L ^ Math.round(lon * 1000) * 19_349_663L;
+        return new Random(cell * 31 + salt);
+    }
+
+    private static String label(String value) {
+        String text = value.replace('_', ' ').replace("restaurants", "restaurant").replace("museums", "museum");
+        return switch (text) {
+            case "cafe" -> "Café";
+            case "museum" -> "Musée";
+            case "park" -> "Parc";
+            case "theatre" -> "Théâtre";
+            case "library" -> "Bibliothèque";
+            default -> Character.toUpperCase(text.charAt(0)) + text.substring(1);
+        };
+    }
+
+    private static String first(Map<String, List<String>> params, String name, String fallback) {
+        List<String> values = params.get(name);
+        return values == null || values.isEmpty() ? fallback : values.get(0);
+    }
+
+    private static double round1(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static double round6(double value) {
+        return Math.round(value * 1e6) / 1e6;
+    }
+
+    private JsonNode read(String body) {
+        try {
+            return objectMapper.readTree(body == null || body.isEmpty() ? "{}" : body);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid JSON body: " + e.getMessage());
+        }
+    }
+
+    private String write(JsonNode node) {
+        try {
+            return objectMapper.writeValueAsString(node);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
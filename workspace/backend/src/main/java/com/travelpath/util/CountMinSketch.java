@@ -0,0 +1,85 @@
+package com.travelpath.util;
+
+/**
+ * Count-min sketch: approximate counts of string keys in a fixed amount of memory.
+ * Estimates never undercount; with conservative updates the overcount stays small
+ * for the few heavy keys we care about. Counts can be halved periodically so old
+ * demand fades out.
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final int[][] counters;
+    private long total = 0;
+
+    public CountMinSketch(int width, int depth) {
+        this.width = width;
+        this.depth = depth;
+        this.counters = new int[depth][width];
+    }
+
+    /**
+     * Count one occurrence of the key and return its new estimate
+     */
+    public synchronized int add(String key) {
+        int[] slots = slots(key);
+        int estimate = estimate(slots);
+        // Conservative update: only raise the counters that hold the minimum
+        for (int row = 0; row < depth; row++) {
+            if (counters[row][slots[row]] == estimate && estimate < Integer.MAX_VALUE) {
+                counters[row][slots[row]]++;
+            }
+        }
+        total++;
+        return estimate + 1;
+    }
+
+    public synchronized int estimate(String key) {
+        return estimate(slots(key));
+    }
+
+    /**
+     * Halve every counter (aging)
+     */
+    public synchronized void decay() {
+        for (int[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        total >>>= 1;
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    private int estimate(int[] slots) {
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[row][slots[row]]);
+        }
+        return min;
+    }
+
+    private int[] slots(String key) {
+        // Two base hashes combined per row (Kirsch-Mitzenmacher)
+        int h1 = mix(key.hashCode());
+        int h2 = mix(h1 ^ 0x9E3779B9);
+        int[] slots = new int[depth];
+        for (int row = 0; row < depth; row++) {
+            slots[row] = Math.floorMod(h1 + row * h2, width);
+        }
+        return slots;
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,111 @@
+package com.travelpath.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Structured group of subtasks owned by one caller, used with try-with-resources:
+ * subtasks are forked on an executor, the owner joins them, and closing the scope cancels
+ * (and interrupts) every subtask that is still running. If the owner is interrupted while
+ * joining, e.g. because its request was abandoned, the subtasks are cancelled with it, and
+ * a blocking provider call in a subtask gives up its HTTP request.
+ * Same shape as the JDK's StructuredTaskScope, which is still a preview API.
+ */
+public class TaskScope implements AutoCloseable {
+
+    private final Executor executor;
+    private final List<FutureTask<?>> subtasks = new ArrayList<>();
+    private boolean closed = false;
+
+    public TaskScope(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Start a subtask; if the executor refuses it, it runs in the caller
+     */
+    public synchronized <T> Future<T> fork(Supplier<T> task) {
+        if (closed) {
+            throw new IllegalStateException("Task scope is closed");
+        }
+        FutureTask<T> subtask = new FutureTask<>(task::get);
+        subtasks.add(subtask);
+        try {
+            executor.execute(subtask);
+        } catch (RejectedExecutionException e) {
+            subtask.run();
+        }
+        return subtask;
+    }
+
+    /**
+     * Wait until every subtask is done or the timeout elapses; subtasks still running
+     * after the timeout are cancelled
+     */
+    public void join(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            for (FutureTask<?> subtask : snapshot()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    subtask.get(remaining, TimeUnit.NANOSECONDS);
+                } catch (ExecutionException | CancellationException e) {
+                    // Reported by result()
+                } catch (TimeoutException e) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            cancelAll();
+            throw e;
+        }
+        cancelAll();
+    }
+
+    /**
+     * Result of a joined subtask, or the fallback if it failed, was cancelled or did not finish
+     */
+    public static <T> T result(Future<T> subtask, T fallback) {
+        if (!subtask.isDone() || subtask.isCancelled()) {
+            return fallback;
+        }
+        try {
+            return subtask.get();
+        } catch (ExecutionException e) {
+            return fallback;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        cancelAll();
+    }
+
+    private void cancelAll() {
+        for (FutureTask<?> subtask : snapshot()) {
+            subtask.cancel(true);
+        }
+    }
+
+    private synchronized List<FutureTask<?>> snapshot() {
+        return new ArrayList<>(subtasks);
+    }
+}
@@ -0,0 +1,57 @@
+package com.travelpath.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Text normalisation for matching place names: accents removed, lower case, punctuation as spaces.
+ * Letters and digits of every script are kept; Latin letters that have no decomposition (ł, ø, ß...)
+ * are folded to their usual ASCII spelling so "Łódź" matches "lodz".
+ */
+public final class TextNormalizer {
+    
+    private static final String[][] LATIN_FOLDS = {
+        {"ł", "l"}, {"ø", "o"}, {"đ", "d"}, {"ħ", "h"}, {"ı", "i"},
+        {"ß", "ss"}, {"æ", "ae"}, {"œ", "oe"}, {"þ", "th"}
+    };
+    
+    private TextNormalizer() {}
+    
+    /**
+     * "Musée d'Orsay" -> "musee d orsay", "Łódź" -> "lodz", "Москва" -> "москва"
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+            .replaceAll("\\p{M}", "")
+            .toLowerCase(Locale.ROOT);
+        for (String[] fold : LATIN_FOLDS) {
+            normalized = normalized.replace(fold[0], fold[1]);
+        }
+        return normalized
+            .replaceAll("[^\\p{L}\\p{N}]+", " ")
+            .trim();
+    }
+    
+    /**
+     * Normalised words of a text
+     */
+    public static List<String> tokens(String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : normalized.split(" ")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,50 @@
+package com.travelpath.util;
+
+/**
+ * Token bucket refilled continuously: capacity tokens per period.
+ * Not thread-safe on its own, callers synchronize (several buckets are often taken together).
+ */
+public class TokenBucket {
+
+    private final long capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(long capacity, long periodNanos) {
+        this.capacity = capacity;
+        this.tokensPerNano = (double) capacity / periodNanos;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Tokens currently available (refills first)
+     */
+    public double available() {
+        refill();
+        return tokens;
+    }
+
+    /**
+     * True if a token can be taken while leaving at least reserve tokens in the bucket
+     */
+    public boolean canTake(double reserve) {
+        return available() >= 1.0 + reserve;
+    }
+
+    public void take() {
+        refill();
+        tokens -= 1.0;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}